@@ -0,0 +1,248 @@
+package moviebooking;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Waiting room in front of one show's seat map. At most `maxActive` clients hold seats at once;
+// the rest wait in arrival order and are let in as holds are confirmed, released or lapse.
+// Nobody blocks: enter() answers straight away and a waiting client asks again later, keeping
+// its place as long as it comes back within `patienceMillis`. Once `maxWaiting` clients are in
+// line, newcomers are turned away without being queued.
+public class AdmissionQueue {
+    public static final int DEFAULT_MAX_ACTIVE = 100;
+    public static final int DEFAULT_MAX_WAITING = 5000;
+    public static final long DEFAULT_PATIENCE_MILLIS = 30_000;
+    private static final long MIN_RETRY_MILLIS = 20;
+
+    // Thrown by enter() when the client has to wait, or is turned away because the line is full.
+    public static class WaitException extends RuntimeException {
+        private final int position;
+        private final long estimatedWaitMillis;
+        private final long retryAfterMillis;
+
+        public WaitException(int position, long estimatedWaitMillis, long retryAfterMillis) {
+            super(position == 0 ? "This show is too busy right now, please try again shortly"
+                  : "You are number " + position + " in line for this show"
+                    + (estimatedWaitMillis > 0 ? ", about " + (estimatedWaitMillis + 999) / 1000 + " s to go" : ""));
+            this.position = position;
+            this.estimatedWaitMillis = estimatedWaitMillis;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        // Place in line, starting at 1; 0 if the client was turned away
+        public int getPosition() { return position; }
+        public boolean isRejected() { return position == 0; }
+        // 0 until the queue has seen enough holds finish to estimate
+        public long getEstimatedWaitMillis() { return estimatedWaitMillis; }
+        // When to ask again
+        public long getRetryAfterMillis() { return retryAfterMillis; }
+    }
+
+    private static class Waiter {
+        final String client;
+        final long joinedAt;
+        long lastSeen;
+        int slot; // in `line`; renumbered when the line is compacted
+
+        Waiter(String client, long joinedAt) {
+            this.client = client;
+            this.joinedAt = joinedAt;
+            this.lastSeen = joinedAt;
+        }
+    }
+
+    private final int maxActive;
+    private final int maxWaiting;
+    private final long patienceMillis;
+    private final long startNanos = System.nanoTime();
+
+    // Guarded by this
+    private int active; // open holds plus slots kept for clients who were just let in
+    // In line, in arrival order
+    private final LinkedHashMap<String, Waiter> waiting = new LinkedHashMap<>();
+    // The same waiters, least recently seen first, so the ones who stopped asking are found
+    // wherever they stand in line
+    private final LinkedHashMap<String, Waiter> bySeen = new LinkedHashMap<>(16, 0.75f, true);
+    // Fenwick tree over slots handed out in arrival order, holding 1 for every waiter still in
+    // line. A position is a prefix sum, so anyone can leave from the middle of the line in
+    // O(log n) and no position needs a scan, however long the line is.
+    private int[] line;
+    private int nextSlot;
+    // Let in but not back yet, with the deadline to claim the slot; deadlines are in order
+    private final LinkedHashMap<String, Long> admitted = new LinkedHashMap<>();
+    private double averageSlotMillis;
+    private int longestLine;
+
+    private final LongAdder entered = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+
+    public AdmissionQueue() {
+        this(DEFAULT_MAX_ACTIVE, DEFAULT_MAX_WAITING, DEFAULT_PATIENCE_MILLIS);
+    }
+
+    public AdmissionQueue(int maxActive, int maxWaiting, long patienceMillis) {
+        if (maxActive < 1 || maxWaiting < 0) {
+            throw new IllegalArgumentException("Need at least one active slot");
+        }
+        this.maxActive = maxActive;
+        this.maxWaiting = maxWaiting;
+        this.patienceMillis = patienceMillis;
+        this.line = new int[2 * Math.max(maxWaiting, 8) + 1];
+    }
+
+    private long now() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    // Takes a slot for the client and returns the time it was let in, to pass to leave() later.
+    // Throws WaitException if the client has to wait (or cannot even queue).
+    public synchronized long enter(String client) {
+        long now = now();
+        expire(now);
+        if (admitted.remove(client) != null) {
+            entered.increment();
+            return now;
+        }
+        if (waiting.isEmpty() && active < maxActive) {
+            active++;
+            entered.increment();
+            return now;
+        }
+        // Also makes the client the most recently seen
+        Waiter waiter = bySeen.get(client);
+        if (waiter == null) {
+            if (waiting.size() >= maxWaiting) {
+                rejected.increment();
+                throw new WaitException(0, estimateMillis(waiting.size()), retryAfter(waiting.size()));
+            }
+            waiter = new Waiter(client, now);
+            joinLine(waiter);
+            waiting.put(client, waiter);
+            bySeen.put(client, waiter);
+            queued.increment();
+            longestLine = Math.max(longestLine, waiting.size());
+        }
+        waiter.lastSeen = now;
+        int position = countInLine(waiter.slot);
+        throw new WaitException(position, estimateMillis(position), retryAfter(position));
+    }
+
+    // Frees the slot taken by enter() once the client's hold is confirmed, released or lapsed.
+    public synchronized void leave(long enteredAt) {
+        long now = now();
+        long slotMillis = now - enteredAt;
+        averageSlotMillis = averageSlotMillis == 0 ? slotMillis : 0.9 * averageSlotMillis + 0.1 * slotMillis;
+        active--;
+        expire(now);
+    }
+
+    // Keeps the slot for the client to try again, e.g. after the seats it wanted were taken.
+    public synchronized void keep(String client) {
+        // Re-inserted so the deadlines stay in order
+        admitted.remove(client);
+        admitted.put(client, now() + patienceMillis);
+    }
+
+    // Drops clients who stopped asking, wherever they are in line, or never came back for their
+    // slot, then lets people in from the head of the line.
+    private void expire(long now) {
+        for (Iterator<Long> it = admitted.values().iterator(); it.hasNext(); ) {
+            if (it.next() > now) {
+                break;
+            }
+            it.remove();
+            abandoned.increment();
+            active--;
+        }
+        for (Iterator<Waiter> it = bySeen.values().iterator(); it.hasNext(); ) {
+            Waiter waiter = it.next();
+            if (now - waiter.lastSeen <= patienceMillis) {
+                break;
+            }
+            it.remove();
+            waiting.remove(waiter.client);
+            addToLine(waiter.slot, -1);
+            abandoned.increment();
+        }
+        for (Iterator<Waiter> it = waiting.values().iterator(); it.hasNext() && active < maxActive; ) {
+            Waiter waiter = it.next();
+            it.remove();
+            bySeen.remove(waiter.client);
+            addToLine(waiter.slot, -1);
+            active++;
+            admitted.put(waiter.client, now + patienceMillis);
+            waitTime.record((now - waiter.joinedAt) * 1_000_000);
+        }
+        if (waiting.isEmpty()) {
+            // Every slot handed out has been taken back out of the tree, so numbering can start over
+            nextSlot = 0;
+        }
+    }
+
+    // Gives the newcomer the next slot, at the back of the line.
+    private void joinLine(Waiter waiter) {
+        if (nextSlot == line.length - 1) {
+            // Out of slots: number the waiters still in line from 0 again, in the same order
+            line = new int[Math.max(line.length, 2 * waiting.size() + 1)];
+            nextSlot = 0;
+            for (Waiter inLine : waiting.values()) {
+                inLine.slot = nextSlot++;
+                addToLine(inLine.slot, 1);
+            }
+        }
+        waiter.slot = nextSlot++;
+        addToLine(waiter.slot, 1);
+    }
+
+    private void addToLine(int slot, int delta) {
+        for (int i = slot + 1; i < line.length; i += i & -i) {
+            line[i] += delta;
+        }
+    }
+
+    // Waiters still in line at or before `slot`: the position of the waiter holding it
+    private int countInLine(int slot) {
+        int count = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            count += line[i];
+        }
+        return count;
+    }
+
+    private long estimateMillis(int position) {
+        return (long) (position * averageSlotMillis / maxActive);
+    }
+
+    // Half the estimated wait, so clients close in on their turn instead of overshooting it
+    // while their slot sits idle.
+    private long retryAfter(int position) {
+        return Math.max(MIN_RETRY_MILLIS, Math.min(estimateMillis(position) / 2, patienceMillis / 2));
+    }
+
+    public synchronized int getActive() { return active; }
+    public synchronized int getDepth() { return waiting.size(); }
+    public synchronized int getLongestLine() { return longestLine; }
+    public long getEntered() { return entered.sum(); }
+    public long getQueued() { return queued.sum(); }
+    public long getRejected() { return rejected.sum(); }
+    public long getAbandoned() { return abandoned.sum(); }
+    public LatencyHistogram getWaitTime() { return waitTime; }
+
+    public List<String> describeMetrics() {
+        List<String> lines = new ArrayList<>();
+        synchronized (this) {
+            lines.add(String.format("active: %d / %d  in line: %d / %d (longest %d)  avg hold: %.0f ms",
+                                    active, maxActive, waiting.size(), maxWaiting, longestLine, averageSlotMillis));
+        }
+        lines.add(String.format("let in: %,d  queued: %,d  turned away: %,d  gave up: %,d",
+                                getEntered(), getQueued(), getRejected(), getAbandoned()));
+        lines.add("wait " + waitTime.summary());
+        return lines;
+    }
+}
@@ -0,0 +1,165 @@
+package moviebooking;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Keeps the seat maps of recently used movies in memory so availability checks never touch
+// SQLite. A map is loaded from BookingStore on first use, and the least recently used movie
+// is dropped once more than `capacity` are cached. Confirmed bookings are written through to
+// the database, and the seats are given back if that write fails. A thread still working on a
+// map that was just evicted can at worst lose a race that the bookings table's unique
+// constraint then rejects.
+public class AvailabilityCache {
+    private final BookingStore store;
+    private final int capacity;
+    private final ConcurrentHashMap<Integer, SeatMap> seatMaps = new ConcurrentHashMap<>();
+    private final SeatReservationEngine engine;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder writeThroughs = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+
+    public AvailabilityCache(BookingStore store, int capacity) {
+        this(store, capacity, SeatReservationEngine.DEFAULT_HOLD_MILLIS);
+    }
+
+    public AvailabilityCache(BookingStore store, int capacity, long holdMillis) {
+        this.store = store;
+        this.capacity = capacity;
+        this.engine = new SeatReservationEngine(holdMillis, this);
+    }
+
+    // The engine whose holds and bookings go through this cache.
+    public SeatReservationEngine getEngine() {
+        return engine;
+    }
+
+    public SeatMap get(int movieId) {
+        SeatMap map = seatMaps.get(movieId);
+        if (map != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            map = seatMaps.computeIfAbsent(movieId, this::load);
+            evictIfFull(movieId);
+        }
+        // nanoTime rather than a shared counter, so concurrent readers never contend on LRU order
+        map.lastAccess = System.nanoTime();
+        return map;
+    }
+
+    private SeatMap load(int movieId) {
+        long start = System.nanoTime();
+        Movie movie = Database.getMovie(movieId);
+        if (movie == null) {
+            throw new BookingApi.UnknownShowException(movieId);
+        }
+        try {
+            SeatMap map = new SeatMap(movie);
+            for (int seat : store.getBookedSeats(movieId)) {
+                map.compareAndSet(seat, SeatMap.FREE, SeatMap.BOOKED);
+            }
+            return map;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load seats for movie " + movieId, e);
+        } finally {
+            loadNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    // Drops least recently used maps until the cache fits. Maps with live holds or bookings still
+    // being written are kept, since their state is not in the database yet.
+    private void evictIfFull(int justLoaded) {
+        while (seatMaps.size() > capacity) {
+            long now = engine.now();
+            Map.Entry<Integer, SeatMap> coldest = null;
+            for (Map.Entry<Integer, SeatMap> entry : seatMaps.entrySet()) {
+                SeatMap map = entry.getValue();
+                if (entry.getKey() == justLoaded || map.pendingWrites.get() > 0 || map.hasLiveHolds(now)) {
+                    continue;
+                }
+                if (coldest == null || map.lastAccess < coldest.getValue().lastAccess) {
+                    coldest = entry;
+                }
+            }
+            if (coldest == null) {
+                return;
+            }
+            if (seatMaps.remove(coldest.getKey(), coldest.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    // Saves bookings the engine just confirmed. If the database refuses them (say another app
+    // instance sold the seat first) they are cancelled in memory too and the future fails.
+    // The caller has already counted the write in map.pendingWrites, so the map is not evicted.
+    CompletableFuture<List<Booking>> writeThrough(SeatMap map, List<Booking> bookings) {
+        writeThroughs.increment();
+        return store.save(bookings).whenComplete((saved, error) -> {
+            if (error != null) {
+                writeFailures.increment();
+                for (Booking booking : bookings) {
+                    int seat = Seat.indexOf(booking.getSeatNumber());
+                    // A cancel already queued behind the failed insert will find no row to delete
+                    if (map.compareAndSet(seat, SeatMap.BOOKED, SeatMap.FREE)
+                            || map.compareAndSet(seat, SeatMap.CANCELLING, SeatMap.FREE)) {
+                        engine.logEvent(BookingEventLog.CANCEL, map.getMovie().getId(), seat);
+                    }
+                }
+            }
+            map.pendingWrites.decrementAndGet();
+        });
+    }
+
+    // Deletes a booking the engine marked CANCELLING. The seat is freed, and the cancellation
+    // logged, only once the delete has committed; if it fails the seat goes back to BOOKED.
+    // The caller has already counted the write in map.pendingWrites, so the map is not evicted.
+    CompletableFuture<List<Booking>> cancelThrough(SeatMap map, int seat) {
+        writeThroughs.increment();
+        return store.cancel(map.getMovie().getId(), Seat.label(seat)).whenComplete((result, error) -> {
+            if (error != null) {
+                writeFailures.increment();
+                map.compareAndSet(seat, SeatMap.CANCELLING, SeatMap.BOOKED);
+            } else if (map.compareAndSet(seat, SeatMap.CANCELLING, SeatMap.FREE)) {
+                engine.logEvent(BookingEventLog.CANCEL, map.getMovie().getId(), seat);
+            }
+            map.pendingWrites.decrementAndGet();
+        });
+    }
+
+    public void invalidate(int movieId) {
+        seatMaps.remove(movieId);
+    }
+
+    public int size() { return seatMaps.size(); }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+    public long getWriteThroughs() { return writeThroughs.sum(); }
+    public long getWriteFailures() { return writeFailures.sum(); }
+
+    public double getHitRate() {
+        long lookups = getHits() + getMisses();
+        return lookups == 0 ? 0 : (double) getHits() / lookups;
+    }
+
+    public List<String> describeMetrics() {
+        List<String> lines = new ArrayList<>();
+        long misses = getMisses();
+        lines.add(String.format("cached shows: %d / %d", size(), capacity));
+        lines.add(String.format("hits: %,d  misses: %,d  hit rate: %.2f%%", getHits(), misses, 100 * getHitRate()));
+        lines.add(String.format("evictions: %,d  avg load: %,.0f us", getEvictions(),
+                                misses == 0 ? 0.0 : loadNanos.sum() / 1000.0 / misses));
+        lines.add(String.format("write-throughs: %,d  failed: %,d", getWriteThroughs(), getWriteFailures()));
+        return lines;
+    }
+}
@@ -1,3 +1,5 @@
+package moviebooking;
+
 public class Booking {
     private int id;
     private int movieId;
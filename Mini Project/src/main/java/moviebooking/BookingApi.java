@@ -0,0 +1,84 @@
+package moviebooking;
+
+import java.util.List;
+
+// The booking operations every client uses: the in-process BookingService, the HTTP server
+// that exposes it, and HttpBookingClient for box-office terminals talking to that server.
+// Bad input (unknown show, seat or hold) is reported as IllegalArgumentException; an unknown
+// show as its UnknownShowException, so the HTTP server can answer 404 for it.
+public interface BookingApi {
+    List<Movie> listShows();
+
+    Availability getAvailability(int movieId);
+
+    // Holds all the seats or none; returns null if any of them is taken. Throws
+    // AdmissionQueue.WaitException when the show is busy and the user has to wait their turn.
+    HoldTicket hold(int movieId, String user, List<String> seatNumbers);
+
+    // Books a hold once it is saved. Returns null if the hold expired and a seat was lost,
+    // and throws IllegalStateException if the database refused the booking.
+    List<Booking> confirm(String holdId);
+
+    void release(String holdId);
+
+    // Cancels a sold seat; false if it was not booked.
+    boolean cancel(int movieId, String seatNumber);
+
+    class Availability {
+        private final int movieId;
+        private final int remainingSeats;
+        private final boolean[] available;
+
+        public Availability(int movieId, int remainingSeats, boolean[] available) {
+            this.movieId = movieId;
+            this.remainingSeats = remainingSeats;
+            this.available = available;
+        }
+
+        public int getMovieId() { return movieId; }
+        public int getTotalSeats() { return available.length; }
+        // Seats not sold yet, including ones under someone's hold
+        public int getRemainingSeats() { return remainingSeats; }
+        public boolean isAvailable(int seat) { return available[seat]; }
+
+        public int getAvailableSeats() {
+            int count = 0;
+            for (boolean free : available) {
+                if (free) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    class HoldTicket {
+        private final String id;
+        private final int movieId;
+        private final List<String> seatNumbers;
+        private final long expiresInMillis;
+
+        public HoldTicket(String id, int movieId, List<String> seatNumbers, long expiresInMillis) {
+            this.id = id;
+            this.movieId = movieId;
+            this.seatNumbers = seatNumbers;
+            this.expiresInMillis = expiresInMillis;
+        }
+
+        public String getId() { return id; }
+        public int getMovieId() { return movieId; }
+        public List<String> getSeatNumbers() { return seatNumbers; }
+        public long getExpiresInMillis() { return expiresInMillis; }
+    }
+
+    class UnknownShowException extends IllegalArgumentException {
+        private final int movieId;
+
+        public UnknownShowException(int movieId) {
+            super("Unknown movie: " + movieId);
+            this.movieId = movieId;
+        }
+
+        public int getMovieId() { return movieId; }
+    }
+}
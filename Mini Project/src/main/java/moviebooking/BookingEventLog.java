@@ -0,0 +1,368 @@
+package moviebooking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Append-only, memory-mapped log of booking events (hold, release, confirm, cancel), one
+// fixed-size record per seat. It is the audit trail of every seat change and, together with
+// the periodic snapshots next to it, enough to rebuild which seats are sold after a crash.
+//
+// Record layout (32 bytes): sequence, time millis, movie id, seat, type, 3 bytes padding,
+// checksum. Sequences start at 1 and have no gaps, so record n lives at a fixed offset; the
+// log ends at the first record whose checksum does not match (never written, or torn).
+// Holds are only recorded for auditing: they are not durable and do not survive a restart.
+public class BookingEventLog implements AutoCloseable {
+    public static final byte HOLD = 1;
+    public static final byte RELEASE = 2;
+    public static final byte CONFIRM = 3;
+    public static final byte CANCEL = 4;
+
+    // When appended events are forced to disk
+    public enum SyncMode {
+        NONE,   // left to the OS; a machine crash can lose recent events, a process crash cannot
+        BATCH,  // every `batchSize` events and at least every `maxDelayMillis`
+        EVERY   // before append() returns
+    }
+
+    // Receives events during replay().
+    public interface EventHandler {
+        void onEvent(long sequence, long timeMillis, byte type, int movieId, int seat);
+    }
+
+    static final int RECORD_SIZE = 32;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC = 0x424B4C47; // "BKLG"
+    private static final int SNAPSHOT_MAGIC = 0x424B534E; // "BKSN"
+    private static final int VERSION = 1;
+    private static final long CHUNK_RECORDS = 1 << 21; // 64 MB per mapping
+    private static final long CHUNK_SIZE = CHUNK_RECORDS * RECORD_SIZE;
+
+    private final Path file;
+    private final Path snapshotFile;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    // Copy-on-write so replay can read mappings while append adds new ones
+    private final List<MappedByteBuffer> chunks = new CopyOnWriteArrayList<>();
+    private final Object checkpointLock = new Object();
+    private final SyncMode syncMode;
+    private final int batchSize;
+    private final ScheduledExecutorService background;
+
+    // Guarded by this
+    private ScheduledExecutorService checkpointer; // startCheckpoints() when there is no background thread
+    private long nextSequence;
+    private int unsynced;
+    private int firstDirtyChunk = Integer.MAX_VALUE;
+    private int lastDirtyChunk = -1;
+
+    public static BookingEventLog open(String path) throws IOException {
+        return new BookingEventLog(Paths.get(path), SyncMode.BATCH, 1000, 100);
+    }
+
+    public BookingEventLog(Path file, SyncMode syncMode, int batchSize, long maxDelayMillis) throws IOException {
+        this.file = file;
+        this.snapshotFile = Paths.get(file + ".snapshot");
+        this.syncMode = syncMode;
+        this.batchSize = Math.max(1, batchSize);
+        boolean existing = Files.exists(file) && Files.size(file) >= HEADER_SIZE;
+        this.raf = new RandomAccessFile(file.toFile(), "rw");
+        this.channel = raf.getChannel();
+        if (existing) {
+            readHeader();
+        } else {
+            writeHeader();
+        }
+        long chunkCount = Math.max(1, (raf.length() - HEADER_SIZE + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        for (int i = 0; i < chunkCount; i++) {
+            mapChunk(i);
+        }
+        this.nextSequence = findEnd(snapshotSequence() + 1);
+        if (syncMode == SyncMode.BATCH) {
+            background = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "event-log-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            background.scheduleWithFixedDelay(this::sync, maxDelayMillis, maxDelayMillis, TimeUnit.MILLISECONDS);
+        } else {
+            background = null;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        raf.setLength(HEADER_SIZE);
+        raf.seek(0);
+        raf.writeInt(MAGIC);
+        raf.writeInt(VERSION);
+        raf.writeInt(RECORD_SIZE);
+        channel.force(true);
+    }
+
+    private void readHeader() throws IOException {
+        raf.seek(0);
+        if (raf.readInt() != MAGIC || raf.readInt() != VERSION || raf.readInt() != RECORD_SIZE) {
+            throw new IOException(file + " is not a booking event log");
+        }
+    }
+
+    private MappedByteBuffer mapChunk(int index) throws IOException {
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + index * CHUNK_SIZE, CHUNK_SIZE);
+        chunks.add(chunk);
+        return chunk;
+    }
+
+    // First sequence at or after `from` that has not been written.
+    private long findEnd(long from) {
+        long sequence = from;
+        while (isValid(sequence)) {
+            sequence++;
+        }
+        return sequence;
+    }
+
+    private boolean isValid(long sequence) {
+        long index = sequence - 1;
+        int chunk = (int) (index / CHUNK_RECORDS);
+        if (chunk >= chunks.size()) {
+            return false;
+        }
+        MappedByteBuffer buffer = chunks.get(chunk);
+        int offset = (int) (index % CHUNK_RECORDS) * RECORD_SIZE;
+        long time = buffer.getLong(offset + 8);
+        int movieId = buffer.getInt(offset + 16);
+        int seat = buffer.getInt(offset + 20);
+        byte type = buffer.get(offset + 24);
+        return buffer.getLong(offset) == sequence
+               && buffer.getInt(offset + 28) == checksum(sequence, time, movieId, seat, type);
+    }
+
+    private static int checksum(long sequence, long time, int movieId, int seat, byte type) {
+        long h = sequence * 0x9E3779B97F4A7C15L;
+        h = (h ^ time) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ ((long) movieId << 32 | (seat & 0xFFFFFFFFL))) * 0x165667B19E3779F9L;
+        h = (h ^ type) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Appends one event and returns its sequence number.
+    public long append(byte type, int movieId, int seat) {
+        long time = System.currentTimeMillis();
+        boolean forceNow;
+        long sequence;
+        synchronized (this) {
+            sequence = nextSequence;
+            long index = sequence - 1;
+            int chunk = (int) (index / CHUNK_RECORDS);
+            MappedByteBuffer buffer;
+            try {
+                buffer = chunk < chunks.size() ? chunks.get(chunk) : mapChunk(chunk);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not grow " + file, e);
+            }
+            int offset = (int) (index % CHUNK_RECORDS) * RECORD_SIZE;
+            buffer.putLong(offset + 8, time);
+            buffer.putInt(offset + 16, movieId);
+            buffer.putInt(offset + 20, seat);
+            buffer.put(offset + 24, type);
+            buffer.putInt(offset + 28, checksum(sequence, time, movieId, seat, type));
+            buffer.putLong(offset, sequence);
+            nextSequence = sequence + 1;
+            firstDirtyChunk = Math.min(firstDirtyChunk, chunk);
+            lastDirtyChunk = Math.max(lastDirtyChunk, chunk);
+            forceNow = syncMode == SyncMode.EVERY || (syncMode == SyncMode.BATCH && ++unsynced >= batchSize);
+        }
+        if (forceNow) {
+            sync();
+        }
+        return sequence;
+    }
+
+    // Forces everything appended so far to disk.
+    public void sync() {
+        int first;
+        int last;
+        synchronized (this) {
+            if (lastDirtyChunk < 0) {
+                return;
+            }
+            first = firstDirtyChunk;
+            last = lastDirtyChunk;
+            firstDirtyChunk = Integer.MAX_VALUE;
+            lastDirtyChunk = -1;
+            unsynced = 0;
+        }
+        for (int chunk = first; chunk <= last; chunk++) {
+            chunks.get(chunk).force();
+        }
+    }
+
+    public synchronized long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    // Calls the handler for every event from `fromSequence` to the end of the log, in order.
+    public long replay(long fromSequence, EventHandler handler) {
+        return replay(fromSequence, getLastSequence(), handler);
+    }
+
+    // Calls the handler for events fromSequence..toSequence (inclusive) and returns how many there were.
+    public long replay(long fromSequence, long toSequence, EventHandler handler) {
+        long first = Math.max(1, fromSequence);
+        long last = Math.min(toSequence, getLastSequence());
+        for (long sequence = first; sequence <= last; sequence++) {
+            long index = sequence - 1;
+            MappedByteBuffer buffer = chunks.get((int) (index / CHUNK_RECORDS));
+            int offset = (int) (index % CHUNK_RECORDS) * RECORD_SIZE;
+            handler.onEvent(sequence, buffer.getLong(offset + 8), buffer.get(offset + 24),
+                            buffer.getInt(offset + 16), buffer.getInt(offset + 20));
+        }
+        return Math.max(0, last - first + 1);
+    }
+
+    // Sold seats per movie, from the latest snapshot plus the events logged after it.
+    public Map<Integer, BitSet> recover() throws IOException {
+        return recover(getLastSequence());
+    }
+
+    private Map<Integer, BitSet> recover(long upTo) throws IOException {
+        Map<Integer, BitSet> booked = new HashMap<>();
+        long fromSequence = readSnapshot(booked) + 1;
+        replay(fromSequence, upTo, (sequence, time, type, movieId, seat) -> {
+            if (type == CONFIRM) {
+                booked.computeIfAbsent(movieId, id -> new BitSet()).set(seat);
+            } else if (type == CANCEL) {
+                BitSet seats = booked.get(movieId);
+                if (seats != null) {
+                    seats.clear(seat);
+                }
+            }
+        });
+        return booked;
+    }
+
+    // Writes a new snapshot covering every event so far, so the next recovery only replays
+    // what comes after it. Appends carry on while the snapshot is built.
+    public long checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            sync();
+            long upTo = getLastSequence();
+            if (upTo == snapshotSequence()) {
+                return upTo;
+            }
+            Map<Integer, BitSet> booked = recover(upTo);
+            Path temp = Paths.get(snapshotFile + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(upTo);
+                out.writeInt(booked.size());
+                for (Map.Entry<Integer, BitSet> entry : booked.entrySet()) {
+                    long[] words = entry.getValue().toLongArray();
+                    out.writeInt(entry.getKey());
+                    out.writeInt(words.length);
+                    for (long word : words) {
+                        out.writeLong(word);
+                    }
+                }
+            }
+            try (FileChannel snapshot = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                snapshot.force(true);
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return upTo;
+        }
+    }
+
+    // Checkpoints in the background every `intervalSeconds`, until close().
+    public void startCheckpoints(long intervalSeconds) {
+        ScheduledExecutorService scheduler;
+        synchronized (this) {
+            if (background == null && checkpointer == null) {
+                checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "event-log-checkpoint");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            scheduler = background != null ? background : checkpointer;
+        }
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private long snapshotSequence() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(snapshotFile))) {
+            return in.readInt() == SNAPSHOT_MAGIC && in.readInt() == VERSION ? in.readLong() : 0;
+        }
+    }
+
+    // Loads the snapshot into `booked` and returns the last sequence it covers (0 if none).
+    private long readSnapshot(Map<Integer, BitSet> booked) throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != VERSION) {
+                throw new IOException(snapshotFile + " is not a booking snapshot");
+            }
+            long upTo = in.readLong();
+            int movies = in.readInt();
+            for (int i = 0; i < movies; i++) {
+                int movieId = in.readInt();
+                long[] words = new long[in.readInt()];
+                for (int w = 0; w < words.length; w++) {
+                    words[w] = in.readLong();
+                }
+                booked.put(movieId, BitSet.valueOf(words));
+            }
+            return upTo;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (background != null) {
+            background.shutdownNow();
+        }
+        ScheduledExecutorService checkpoints;
+        synchronized (this) {
+            checkpoints = checkpointer;
+        }
+        if (checkpoints != null) {
+            checkpoints.shutdownNow();
+        }
+        // A checkpoint already under way finishes before the file goes
+        synchronized (checkpointLock) {
+            sync();
+            channel.close();
+            raf.close();
+        }
+    }
+}
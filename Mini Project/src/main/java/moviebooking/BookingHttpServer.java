@@ -0,0 +1,249 @@
+package moviebooking;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// JSON over HTTP for any BookingApi, using the JDK's built-in server:
+//   GET    /shows                       list of shows
+//   GET    /shows/{id}/seats            {"remainingSeats":..., "available":"1101..."} one char per seat,
+//                                       or 404 with the movieId if there is no such show
+//   POST   /holds                       {"movieId":1,"user":"ana","seats":["A1","A2"]} -> 201 or 409,
+//                                       or 503 with a Retry-After while the user waits in the show's queue
+//   POST   /holds/{holdId}/confirm      bookings, or 409 if the hold lapsed and a seat was lost
+//   DELETE /holds/{holdId}              release a hold
+//   DELETE /shows/{id}/seats/{seat}     cancel a booking, 404 if the seat was not booked
+// Requests run on a fixed pool sized well past the core count, because a confirm blocks its
+// thread until the booking is committed.
+public class BookingHttpServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+
+    static {
+        // The JDK server writes headers and body separately; with Nagle's algorithm on, each
+        // response then waits out the client's delayed ACK (~40 ms). Must be set before the
+        // server classes load, and an explicit -D setting still wins.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final BookingApi api;
+    private final HttpServer server;
+    private final ExecutorService workers;
+
+    public BookingHttpServer(BookingApi api, int port) throws IOException {
+        this(api, port, Math.max(16, Runtime.getRuntime().availableProcessors() * 8));
+    }
+
+    public BookingHttpServer(BookingApi api, int port, int threads) throws IOException {
+        this.api = api;
+        AtomicInteger count = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "booking-http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/shows", this::handleShows);
+        server.createContext("/holds", this::handleHolds);
+        server.setExecutor(workers);
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("Booking service listening on port " + getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleShows(HttpExchange exchange) throws IOException {
+        String[] path = pathParts(exchange);
+        String method = exchange.getRequestMethod();
+        try {
+            if (path.length == 1 && method.equals("GET")) {
+                StringBuilder json = new StringBuilder("[");
+                for (Movie movie : api.listShows()) {
+                    if (json.length() > 1) {
+                        json.append(',');
+                    }
+                    json.append("{\"id\":").append(movie.getId())
+                        .append(",\"name\":").append(Json.quote(movie.getName()))
+                        .append(",\"totalSeats\":").append(movie.getTotalSeats()).append('}');
+                }
+                send(exchange, 200, json.append(']').toString());
+            } else if (path.length == 3 && path[2].equals("seats") && method.equals("GET")) {
+                BookingApi.Availability availability = api.getAvailability(Integer.parseInt(path[1]));
+                StringBuilder seats = new StringBuilder(availability.getTotalSeats());
+                for (int seat = 0; seat < availability.getTotalSeats(); seat++) {
+                    seats.append(availability.isAvailable(seat) ? '1' : '0');
+                }
+                send(exchange, 200, "{\"movieId\":" + availability.getMovieId()
+                                    + ",\"remainingSeats\":" + availability.getRemainingSeats()
+                                    + ",\"available\":\"" + seats + "\"}");
+            } else if (path.length == 4 && path[2].equals("seats") && method.equals("DELETE")) {
+                if (api.cancel(Integer.parseInt(path[1]), path[3])) {
+                    send(exchange, 204, null);
+                } else {
+                    sendError(exchange, 404, "Seat " + path[3] + " is not booked");
+                }
+            } else {
+                sendError(exchange, 404, "No such endpoint");
+            }
+        } catch (RuntimeException e) {
+            sendFailure(exchange, e);
+        }
+    }
+
+    private void handleHolds(HttpExchange exchange) throws IOException {
+        String[] path = pathParts(exchange);
+        String method = exchange.getRequestMethod();
+        try {
+            if (path.length == 1 && method.equals("POST")) {
+                Object body = Json.parse(readBody(exchange));
+                if (!(body instanceof Map)) {
+                    throw new IllegalArgumentException("Expected a JSON object");
+                }
+                Map<?, ?> request = (Map<?, ?>) body;
+                Object user = request.get("user");
+                BookingApi.HoldTicket ticket = api.hold(number(request.get("movieId")),
+                                                        user instanceof String ? (String) user : null,
+                                                        strings(request.get("seats")));
+                if (ticket == null) {
+                    sendError(exchange, 409, "Some of those seats are taken");
+                } else {
+                    send(exchange, 201, holdJson(ticket));
+                }
+            } else if (path.length == 3 && path[2].equals("confirm") && method.equals("POST")) {
+                List<Booking> bookings = api.confirm(path[1]);
+                if (bookings == null) {
+                    sendError(exchange, 409, "The hold expired and some of its seats were taken");
+                } else {
+                    send(exchange, 200, bookingsJson(bookings));
+                }
+            } else if (path.length == 2 && method.equals("DELETE")) {
+                api.release(path[1]);
+                send(exchange, 204, null);
+            } else {
+                sendError(exchange, 404, "No such endpoint");
+            }
+        } catch (RuntimeException e) {
+            sendFailure(exchange, e);
+        }
+    }
+
+    static String holdJson(BookingApi.HoldTicket ticket) {
+        StringBuilder seats = new StringBuilder("[");
+        for (String seat : ticket.getSeatNumbers()) {
+            seats.append(seats.length() > 1 ? "," : "").append(Json.quote(seat));
+        }
+        return "{\"holdId\":" + Json.quote(ticket.getId()) + ",\"movieId\":" + ticket.getMovieId()
+               + ",\"seats\":" + seats + "],\"expiresInMillis\":" + ticket.getExpiresInMillis() + "}";
+    }
+
+    static String bookingsJson(List<Booking> bookings) {
+        StringBuilder json = new StringBuilder("[");
+        for (Booking booking : bookings) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(booking.getId())
+                .append(",\"movieId\":").append(booking.getMovieId())
+                .append(",\"seatNumber\":").append(Json.quote(booking.getSeatNumber()))
+                .append(",\"user\":").append(Json.quote(booking.getUser())).append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private static String[] pathParts(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        return path.replaceAll("^/+|/+$", "").split("/+");
+    }
+
+    private static int number(Object value) {
+        double number = value instanceof Double ? (Double) value : Double.NaN;
+        // Unequal for fractions, NaN and anything past the int range
+        if (number != (int) number) {
+            throw new IllegalArgumentException("Expected a whole number but got " + value);
+        }
+        return (int) number;
+    }
+
+    private static List<String> strings(Object value) {
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException("Expected a list of seat numbers");
+        }
+        List<String> result = new ArrayList<>();
+        for (Object item : (List<?>) value) {
+            result.add(String.valueOf(item));
+        }
+        return result;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void sendFailure(HttpExchange exchange, RuntimeException e) throws IOException {
+        if (e instanceof AdmissionQueue.WaitException) {
+            AdmissionQueue.WaitException wait = (AdmissionQueue.WaitException) e;
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf((wait.getRetryAfterMillis() + 999) / 1000));
+            send(exchange, 503, "{\"error\":" + Json.quote(wait.getMessage())
+                                + ",\"position\":" + wait.getPosition()
+                                + ",\"estimatedWaitMillis\":" + wait.getEstimatedWaitMillis()
+                                + ",\"retryAfterMillis\":" + wait.getRetryAfterMillis() + "}");
+        } else if (e instanceof BookingApi.UnknownShowException) {
+            send(exchange, 404, "{\"error\":" + Json.quote(e.getMessage())
+                                + ",\"movieId\":" + ((BookingApi.UnknownShowException) e).getMovieId() + "}");
+        } else if (e instanceof IllegalArgumentException) {
+            sendError(exchange, 400, e.getMessage());
+        } else {
+            e.printStackTrace();
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "{\"error\":" + Json.quote(message) + "}");
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package moviebooking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Headless booking service over one SeatReservationEngine. Holds are handed out as opaque ids
+// so clients on other machines can confirm or release them later; ids of holds that lapsed
+// without either are swept periodically. With admission control on, each show only lets a
+// limited number of clients hold seats at a time and the rest wait their turn in an AdmissionQueue.
+public class BookingService implements BookingApi, AutoCloseable {
+    private static final long SWEEP_SECONDS = 5;
+
+    private final SeatReservationEngine engine;
+    private final ConcurrentHashMap<String, OpenHold> holds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, AdmissionQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "hold-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Read on every listing, so kept in memory instead of querying the movies table each time
+    private volatile List<Movie> shows;
+    // 0 while admission control is off
+    private volatile int maxActivePerShow;
+    private volatile int maxWaitingPerShow;
+
+    // A hold handed out to a client, with the admission slot it occupies (if any)
+    private static class OpenHold {
+        final SeatReservationEngine.Hold hold;
+        final AdmissionQueue queue;
+        final long enteredAt;
+
+        OpenHold(SeatReservationEngine.Hold hold, AdmissionQueue queue, long enteredAt) {
+            this.hold = hold;
+            this.queue = queue;
+            this.enteredAt = enteredAt;
+        }
+
+        void close() {
+            if (queue != null) {
+                queue.leave(enteredAt);
+            }
+        }
+    }
+
+    public BookingService(SeatReservationEngine engine, List<Movie> shows) {
+        this.engine = engine;
+        setShows(shows);
+        sweeper.scheduleWithFixedDelay(this::sweepExpiredHolds, SWEEP_SECONDS, SWEEP_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Replaces the show list, e.g. after movies were added to the database. An engine without
+    // an AvailabilityCache must already have the movies registered.
+    public void setShows(List<Movie> shows) {
+        this.shows = Collections.unmodifiableList(new ArrayList<>(shows));
+    }
+
+    public SeatReservationEngine getEngine() {
+        return engine;
+    }
+
+    // From now on at most `maxActive` clients per show may hold seats at once, with up to
+    // `maxWaiting` more in line; hold() throws AdmissionQueue.WaitException for the others.
+    public void enableAdmission(int maxActive, int maxWaiting) {
+        if (maxActive < 1) {
+            throw new IllegalArgumentException("Need at least one active slot per show");
+        }
+        this.maxWaitingPerShow = maxWaiting;
+        this.maxActivePerShow = maxActive;
+    }
+
+    // The show's admission queue, or null while admission control is off.
+    public AdmissionQueue getQueue(int movieId) {
+        int maxActive = maxActivePerShow;
+        if (maxActive == 0) {
+            return null;
+        }
+        return queues.computeIfAbsent(movieId, id -> new AdmissionQueue(maxActive, maxWaitingPerShow,
+                                                                       AdmissionQueue.DEFAULT_PATIENCE_MILLIS));
+    }
+
+    @Override
+    public List<Movie> listShows() {
+        return shows;
+    }
+
+    @Override
+    public Availability getAvailability(int movieId) {
+        return new Availability(movieId, engine.remainingSeats(movieId), engine.getAvailability(movieId));
+    }
+
+    @Override
+    public HoldTicket hold(int movieId, String user, List<String> seatNumbers) {
+        if (user == null || user.trim().isEmpty()) {
+            throw new IllegalArgumentException("A user name is required");
+        }
+        if (seatNumbers == null || seatNumbers.isEmpty()) {
+            throw new IllegalArgumentException("At least one seat is required");
+        }
+        int[] seats = new int[seatNumbers.size()];
+        for (int i = 0; i < seats.length; i++) {
+            seats[i] = Seat.indexOf(seatNumbers.get(i));
+            if (seats[i] < 0) {
+                throw new IllegalArgumentException("Invalid seat number: " + seatNumbers.get(i));
+            }
+        }
+        String client = user.trim();
+        engine.getSeatMap(movieId); // unknown shows are rejected before they get a queue
+        AdmissionQueue queue = getQueue(movieId);
+        long enteredAt = queue == null ? 0 : queue.enter(client);
+        SeatReservationEngine.Hold hold = null;
+        try {
+            hold = engine.hold(movieId, client, seats);
+        } finally {
+            if (hold == null && queue != null) {
+                // Seats taken or invalid: the client keeps its turn to try other seats
+                queue.keep(client);
+            }
+        }
+        if (hold == null) {
+            return null;
+        }
+        String id = UUID.randomUUID().toString();
+        holds.put(id, new OpenHold(hold, queue, enteredAt));
+        List<String> held = new ArrayList<>(seats.length);
+        for (int seat : hold.getSeats()) {
+            held.add(Seat.label(seat));
+        }
+        return new HoldTicket(id, movieId, held, engine.millisLeft(hold));
+    }
+
+    @Override
+    public List<Booking> confirm(String holdId) {
+        OpenHold open = holds.remove(holdId);
+        if (open == null) {
+            throw new IllegalArgumentException("Unknown hold: " + holdId);
+        }
+        try {
+            return engine.book(open.hold).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Booking could not be saved: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            open.close();
+        }
+    }
+
+    @Override
+    public void release(String holdId) {
+        OpenHold open = holds.remove(holdId);
+        if (open != null) {
+            engine.release(open.hold);
+            open.close();
+        }
+    }
+
+    @Override
+    public boolean cancel(int movieId, String seatNumber) {
+        int seat = Seat.indexOf(seatNumber);
+        if (seat < 0 || seat >= engine.getSeatMap(movieId).getTotalSeats()) {
+            throw new IllegalArgumentException("Invalid seat number: " + seatNumber);
+        }
+        try {
+            return engine.cancelBooking(movieId, seat).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Cancellation could not be saved: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public int getOpenHolds() {
+        return holds.size();
+    }
+
+    // Admission control metrics of every show that has a queue.
+    public List<String> describeAdmission() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<Integer, AdmissionQueue> entry : new TreeMap<>(queues).entrySet()) {
+            lines.add("show " + entry.getKey() + ":");
+            for (String line : entry.getValue().describeMetrics()) {
+                lines.add("  " + line);
+            }
+        }
+        return lines;
+    }
+
+    // Also gives back the admission slots of lapsed holds, so the next clients in line get in.
+    private void sweepExpiredHolds() {
+        for (Map.Entry<String, OpenHold> entry : holds.entrySet()) {
+            OpenHold open = entry.getValue();
+            if (engine.millisLeft(open.hold) == 0 && holds.remove(entry.getKey(), open)) {
+                open.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+}
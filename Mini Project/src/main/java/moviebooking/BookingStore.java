@@ -0,0 +1,272 @@
+package moviebooking;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Persists confirmed bookings with group commit: callers queue their bookings and get a future,
+// one writer thread with its own connection drains everything queued so far into a single
+// transaction, and the futures complete once that transaction has committed. Under a rush the
+// cost of a commit is shared by every booking in the group instead of paid per insert.
+public class BookingStore implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int MAX_GROUP = 1_000;
+    private static final LatencyHistogram WRITE_LATENCY = Metrics.histogram("store.write");
+    private static final LatencyHistogram COMMIT_LATENCY = Metrics.histogram("store.commit");
+    private static final LatencyHistogram GET_BOOKINGS = Metrics.histogram("store.bookings.get");
+    private static final LatencyHistogram GET_BOOKED_SEATS = Metrics.histogram("store.seats.get");
+
+    private final BlockingQueue<Write> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private final Connection writeConn;
+    // Reads share one connection; WAL lets them run while the writer commits
+    private final Connection readConn;
+    private volatile boolean closed;
+
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong bookingsWritten = new AtomicLong();
+    private final AtomicLong bookingsRejected = new AtomicLong();
+
+    // A booking or cancellation waiting for the writer thread
+    private static class Write {
+        final List<Booking> bookings;
+        final int cancelMovieId;
+        final String cancelSeat;
+        List<Booking> saved = new ArrayList<>();
+        final CompletableFuture<List<Booking>> result = new CompletableFuture<>();
+        final long queuedAt = System.nanoTime();
+
+        Write(List<Booking> bookings, int cancelMovieId, String cancelSeat) {
+            this.bookings = bookings;
+            this.cancelMovieId = cancelMovieId;
+            this.cancelSeat = cancelSeat;
+        }
+    }
+
+    private static final Write STOP = new Write(null, 0, null);
+
+    public BookingStore() throws SQLException {
+        writeConn = Database.openConnection();
+        readConn = Database.openConnection();
+        writer = new Thread(this::writeLoop, "booking-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Metrics.gauge("store.queue.depth", queue::size);
+        Metrics.gauge("store.commits", commits::get);
+        Metrics.gauge("store.bookings.written", bookingsWritten::get);
+        Metrics.gauge("store.bookings.rejected", bookingsRejected::get);
+    }
+
+    // Saves all the bookings or none of them. The future completes with the bookings, carrying
+    // their database ids, after commit; it fails if any seat is already booked in the database.
+    public CompletableFuture<List<Booking>> save(List<Booking> bookings) {
+        return enqueue(new Write(bookings, 0, null));
+    }
+
+    // Completes with an empty list, or fails if the seat was not booked.
+    public CompletableFuture<List<Booking>> cancel(int movieId, String seatNumber) {
+        return enqueue(new Write(null, movieId, seatNumber));
+    }
+
+    private CompletableFuture<List<Booking>> enqueue(Write write) {
+        if (closed) {
+            write.result.completeExceptionally(new IllegalStateException("BookingStore is closed"));
+            return write.result;
+        }
+        try {
+            // Blocks when the writer is this far behind, which throttles callers instead of growing the queue
+            queue.put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write.result.completeExceptionally(e);
+        }
+        // Closed while this was being queued: the writer may already be gone
+        if (closed && queue.remove(write)) {
+            write.result.completeExceptionally(new IllegalStateException("BookingStore is closed"));
+        }
+        return write.result;
+    }
+
+    private void writeLoop() {
+        List<Write> group = new ArrayList<>(MAX_GROUP);
+        try (PreparedStatement insertBooking = writeConn.prepareStatement(
+                 "INSERT INTO bookings (movie_id, seat_number, user, booked_at) VALUES (?, ?, ?, ?)",
+                 Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement insertSeat = writeConn.prepareStatement(
+                 "INSERT INTO seat_states (movie_id, seat_index, booking_id) VALUES (?, ?, ?)");
+             PreparedStatement deleteBooking = writeConn.prepareStatement(
+                 "DELETE FROM bookings WHERE movie_id = ? AND seat_number = ?");
+             Statement savepoints = writeConn.createStatement()) {
+            writeConn.setAutoCommit(false);
+            boolean running = true;
+            while (running) {
+                group.add(queue.take());
+                queue.drainTo(group, MAX_GROUP - 1);
+                List<Write> applied = new ArrayList<>(group.size());
+                for (Write write : group) {
+                    if (write == STOP) {
+                        running = false;
+                        continue;
+                    }
+                    // A savepoint per request, so one conflicting booking does not undo the rest of the group
+                    savepoints.execute("SAVEPOINT booking");
+                    try {
+                        apply(write, insertBooking, insertSeat, deleteBooking);
+                        savepoints.execute("RELEASE booking");
+                        applied.add(write);
+                    } catch (SQLException | RuntimeException e) {
+                        savepoints.execute("ROLLBACK TO booking");
+                        savepoints.execute("RELEASE booking");
+                        write.result.completeExceptionally(e);
+                        if (write.bookings != null) {
+                            bookingsRejected.addAndGet(write.bookings.size());
+                        }
+                    }
+                }
+                try {
+                    long commitStart = System.nanoTime();
+                    writeConn.commit();
+                    long committed = System.nanoTime();
+                    COMMIT_LATENCY.record(committed - commitStart);
+                    commits.incrementAndGet();
+                    for (Write write : applied) {
+                        if (write.bookings != null) {
+                            bookingsWritten.addAndGet(write.bookings.size());
+                        }
+                        // Queue wait plus the group's transaction, as the caller sees it
+                        WRITE_LATENCY.record(committed - write.queuedAt);
+                        write.result.complete(write.saved);
+                    }
+                } catch (SQLException e) {
+                    writeConn.rollback();
+                    for (Write write : applied) {
+                        write.result.completeExceptionally(e);
+                    }
+                }
+                group.clear();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closed = true;
+            failPending(group);
+        }
+    }
+
+    // Inserts the bookings, collecting copies that carry their database ids.
+    private static void apply(Write write, PreparedStatement insertBooking, PreparedStatement insertSeat,
+                              PreparedStatement deleteBooking) throws SQLException {
+        if (write.bookings == null) {
+            deleteBooking.setInt(1, write.cancelMovieId);
+            deleteBooking.setString(2, write.cancelSeat);
+            if (deleteBooking.executeUpdate() == 0) {
+                throw new SQLException("Seat " + write.cancelSeat + " is not booked");
+            }
+            return;
+        }
+        long now = System.currentTimeMillis();
+        write.saved = new ArrayList<>(write.bookings.size());
+        for (Booking booking : write.bookings) {
+            int seat = Seat.indexOf(booking.getSeatNumber());
+            if (seat < 0) {
+                throw new SQLException("Invalid seat number: " + booking.getSeatNumber());
+            }
+            insertBooking.setInt(1, booking.getMovieId());
+            insertBooking.setString(2, booking.getSeatNumber());
+            insertBooking.setString(3, booking.getUser());
+            insertBooking.setLong(4, now);
+            insertBooking.executeUpdate();
+            int id;
+            try (ResultSet keys = insertBooking.getGeneratedKeys()) {
+                keys.next();
+                id = keys.getInt(1);
+            }
+            insertSeat.setInt(1, booking.getMovieId());
+            insertSeat.setInt(2, seat);
+            insertSeat.setInt(3, id);
+            insertSeat.executeUpdate();
+            write.saved.add(new Booking(id, booking.getMovieId(), booking.getSeatNumber(), booking.getUser()));
+        }
+    }
+
+    private void failPending(List<Write> group) {
+        IllegalStateException stopped = new IllegalStateException("BookingStore is closed");
+        for (Write write : group) {
+            write.result.completeExceptionally(stopped);
+        }
+        Write write;
+        while ((write = queue.poll()) != null) {
+            write.result.completeExceptionally(stopped);
+        }
+    }
+
+    public List<Booking> getBookings(int movieId) throws SQLException {
+        String sql = "SELECT id, movie_id, seat_number, user FROM bookings WHERE movie_id = ? ORDER BY id";
+        List<Booking> bookings = new ArrayList<>();
+        long start = System.nanoTime();
+        synchronized (readConn) {
+            try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
+                pstmt.setInt(1, movieId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        bookings.add(new Booking(rs.getInt("id"), rs.getInt("movie_id"),
+                                                 rs.getString("seat_number"), rs.getString("user")));
+                    }
+                }
+            }
+        }
+        GET_BOOKINGS.record(System.nanoTime() - start);
+        return bookings;
+    }
+
+    // Indexes of the booked seats, for rebuilding a movie's seat map.
+    public int[] getBookedSeats(int movieId) throws SQLException {
+        String sql = "SELECT seat_index FROM seat_states WHERE movie_id = ? ORDER BY seat_index";
+        List<Integer> seats = new ArrayList<>();
+        long start = System.nanoTime();
+        synchronized (readConn) {
+            try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
+                pstmt.setInt(1, movieId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        seats.add(rs.getInt(1));
+                    }
+                }
+            }
+        }
+        GET_BOOKED_SEATS.record(System.nanoTime() - start);
+        return seats.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public long getCommitCount() { return commits.get(); }
+    public long getBookingsWritten() { return bookingsWritten.get(); }
+    public long getBookingsRejected() { return bookingsRejected.get(); }
+
+    // Writes everything already queued, then stops the writer.
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                queue.put(STOP);
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            writeConn.close();
+            synchronized (readConn) {
+                readConn.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package moviebooking;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Database {
+    private static final String DEFAULT_URL = "jdbc:sqlite:database/movies.db";
+    private static String url = DEFAULT_URL;
+    // Used for schema and movie lookups only; booking writes go through BookingStore
+    private static Connection conn = null;
+
+    private static final LatencyHistogram ADD_MOVIE = Metrics.histogram("db.movies.add");
+    private static final LatencyHistogram GET_MOVIE = Metrics.histogram("db.movies.get");
+    private static final LatencyHistogram LIST_MOVIES = Metrics.histogram("db.movies.list");
+    private static final LatencyHistogram OPEN_CONNECTION = Metrics.histogram("db.connection.open");
+    private static final LongAdder ERRORS = Metrics.counter("db.errors");
+
+    public static void connect() {
+        connect(DEFAULT_URL);
+    }
+
+    public static synchronized void connect(String databaseUrl) {
+        try {
+            // 🔹 Ensure the SQLite JDBC driver is loaded
+            Class.forName("org.sqlite.JDBC");
+            if (conn != null) {
+                conn.close();
+            }
+            url = databaseUrl;
+            conn = openConnection();
+            System.out.println("Database Connected Successfully!");
+        } catch (ClassNotFoundException e) {
+            System.err.println("SQLite JDBC driver not found!");
+            e.printStackTrace();
+        } catch (SQLException e) {
+            System.err.println("Database Connection Failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public static String getUrl() {
+        return url;
+    }
+
+    // Every connection runs in WAL mode so readers never block the booking writer,
+    // with synchronous=NORMAL: commits are durable at checkpoints instead of fsyncing each one.
+    public static Connection openConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = DriverManager.getConnection(url);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA journal_mode=WAL");
+            stmt.execute("PRAGMA synchronous=NORMAL");
+            stmt.execute("PRAGMA busy_timeout=5000");
+            stmt.execute("PRAGMA foreign_keys=ON");
+        } catch (SQLException e) {
+            ERRORS.increment();
+            connection.close();
+            throw e;
+        }
+        OPEN_CONNECTION.record(System.nanoTime() - start);
+        return connection;
+    }
+
+    public static synchronized void createTables() {
+        if (conn == null) {
+            System.err.println("Error: No database connection!");
+            return;
+        }
+        String[] sql = {
+            "CREATE TABLE IF NOT EXISTS movies (id INTEGER PRIMARY KEY, name TEXT, seats INTEGER)",
+            // One row per sold seat; the unique constraint is the last line of defence against double booking
+            "CREATE TABLE IF NOT EXISTS bookings (id INTEGER PRIMARY KEY, movie_id INTEGER NOT NULL REFERENCES movies(id), "
+                + "seat_number TEXT NOT NULL, user TEXT NOT NULL, booked_at INTEGER NOT NULL, UNIQUE (movie_id, seat_number))",
+            // Seat state by index, for loading a movie's seat map without parsing seat numbers
+            "CREATE TABLE IF NOT EXISTS seat_states (movie_id INTEGER NOT NULL REFERENCES movies(id), seat_index INTEGER NOT NULL, "
+                + "booking_id INTEGER REFERENCES bookings(id) ON DELETE CASCADE, PRIMARY KEY (movie_id, seat_index)) WITHOUT ROWID"
+        };
+        try (Statement stmt = conn.createStatement()) {
+            for (String statement : sql) {
+                stmt.execute(statement);
+            }
+            System.out.println("Tables Created/Verified.");
+        } catch (SQLException e) {
+            ERRORS.increment();
+            System.err.println("Error creating table: " + e.getMessage());
+        }
+    }
+
+    public static synchronized void addMovie(Movie movie) {
+        String sql = "INSERT OR REPLACE INTO movies (id, name, seats) VALUES (?, ?, ?)";
+        long start = System.nanoTime();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, movie.getId());
+            pstmt.setString(2, movie.getName());
+            pstmt.setInt(3, movie.getTotalSeats());
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            ERRORS.increment();
+            System.err.println("Error saving movie: " + e.getMessage());
+        } finally {
+            ADD_MOVIE.record(System.nanoTime() - start);
+        }
+    }
+
+    public static synchronized Movie getMovie(int id) {
+        long start = System.nanoTime();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT id, name, seats FROM movies WHERE id = ?")) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Movie(rs.getInt("id"), rs.getString("name"), rs.getInt("seats"));
+                }
+            }
+        } catch (SQLException e) {
+            ERRORS.increment();
+            System.err.println("Error loading movie: " + e.getMessage());
+        } finally {
+            GET_MOVIE.record(System.nanoTime() - start);
+        }
+        return null;
+    }
+
+    public static synchronized List<Movie> getMovies() {
+        List<Movie> movies = new ArrayList<>();
+        long start = System.nanoTime();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, name, seats FROM movies ORDER BY id")) {
+            while (rs.next()) {
+                movies.add(new Movie(rs.getInt("id"), rs.getString("name"), rs.getInt("seats")));
+            }
+        } catch (SQLException e) {
+            ERRORS.increment();
+            System.err.println("Error loading movies: " + e.getMessage());
+        } finally {
+            LIST_MOVIES.record(System.nanoTime() - start);
+        }
+        return movies;
+    }
+}
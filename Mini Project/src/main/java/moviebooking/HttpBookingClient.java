@@ -0,0 +1,156 @@
+package moviebooking;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// BookingApi for a terminal talking to a BookingHttpServer on another machine.
+// Server-side rejections come back as the same exceptions BookingService throws;
+// network failures are thrown as UncheckedIOException.
+public class HttpBookingClient implements BookingApi {
+    private final String baseUrl;
+    private final HttpClient http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    public HttpBookingClient(String baseUrl) {
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+    }
+
+    @Override
+    public List<Movie> listShows() {
+        List<Movie> movies = new ArrayList<>();
+        for (Object item : (List<?>) call("GET", "/shows", null).body) {
+            Map<?, ?> movie = (Map<?, ?>) item;
+            movies.add(new Movie(number(movie.get("id")), (String) movie.get("name"), number(movie.get("totalSeats"))));
+        }
+        return movies;
+    }
+
+    @Override
+    public Availability getAvailability(int movieId) {
+        Map<?, ?> json = (Map<?, ?>) call("GET", "/shows/" + movieId + "/seats", null).body;
+        String seats = (String) json.get("available");
+        boolean[] available = new boolean[seats.length()];
+        for (int seat = 0; seat < available.length; seat++) {
+            available[seat] = seats.charAt(seat) == '1';
+        }
+        return new Availability(movieId, number(json.get("remainingSeats")), available);
+    }
+
+    @Override
+    public HoldTicket hold(int movieId, String user, List<String> seatNumbers) {
+        StringBuilder seats = new StringBuilder("[");
+        for (String seat : seatNumbers) {
+            seats.append(seats.length() > 1 ? "," : "").append(Json.quote(seat));
+        }
+        String body = "{\"movieId\":" + movieId + ",\"user\":" + Json.quote(user) + ",\"seats\":" + seats + "]}";
+        Response response = call("POST", "/holds", body);
+        if (response.status == 409) {
+            return null;
+        }
+        Map<?, ?> json = (Map<?, ?>) response.body;
+        List<String> held = new ArrayList<>();
+        for (Object seat : (List<?>) json.get("seats")) {
+            held.add((String) seat);
+        }
+        return new HoldTicket((String) json.get("holdId"), movieId, held, (long) number(json.get("expiresInMillis")));
+    }
+
+    @Override
+    public List<Booking> confirm(String holdId) {
+        Response response = call("POST", "/holds/" + encode(holdId) + "/confirm", "");
+        if (response.status == 409) {
+            return null;
+        }
+        List<Booking> bookings = new ArrayList<>();
+        for (Object item : (List<?>) response.body) {
+            Map<?, ?> booking = (Map<?, ?>) item;
+            bookings.add(new Booking(number(booking.get("id")), number(booking.get("movieId")),
+                                     (String) booking.get("seatNumber"), (String) booking.get("user")));
+        }
+        return bookings;
+    }
+
+    @Override
+    public void release(String holdId) {
+        call("DELETE", "/holds/" + encode(holdId), null);
+    }
+
+    @Override
+    public boolean cancel(int movieId, String seatNumber) {
+        return call("DELETE", "/shows/" + movieId + "/seats/" + encode(seatNumber), null).status != 404;
+    }
+
+    private static class Response {
+        final int status;
+        final Object body;
+
+        Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    // Returns 2xx, 404 and 409 responses to the caller, except a 404 for an unknown show;
+    // anything else becomes an exception.
+    private Response call(String method, String path, String body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(30))
+            .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                                         : HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        if (body != null) {
+            request.header("Content-Type", "application/json; charset=utf-8");
+        }
+        HttpResponse<String> response;
+        try {
+            response = http.send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Booking server unreachable: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling the booking server", e);
+        }
+        int status = response.statusCode();
+        Object json = response.body().isEmpty() ? null : Json.parse(response.body());
+        if (status == 400) {
+            throw new IllegalArgumentException(errorMessage(json));
+        }
+        // Other 404s (a seat that was not booked) are answers, left to the caller
+        if (status == 404 && json instanceof Map && ((Map<?, ?>) json).containsKey("movieId")) {
+            throw new BookingApi.UnknownShowException(number(((Map<?, ?>) json).get("movieId")));
+        }
+        if (status == 503 && json instanceof Map && ((Map<?, ?>) json).containsKey("position")) {
+            Map<?, ?> wait = (Map<?, ?>) json;
+            throw new AdmissionQueue.WaitException(number(wait.get("position")),
+                                                   ((Double) wait.get("estimatedWaitMillis")).longValue(),
+                                                   ((Double) wait.get("retryAfterMillis")).longValue());
+        }
+        if (status >= 300 && status != 404 && status != 409) {
+            throw new IllegalStateException(errorMessage(json));
+        }
+        return new Response(status, json);
+    }
+
+    private static String errorMessage(Object json) {
+        return json instanceof Map ? String.valueOf(((Map<?, ?>) json).get("error")) : "Booking server error";
+    }
+
+    private static int number(Object value) {
+        return ((Double) value).intValue();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
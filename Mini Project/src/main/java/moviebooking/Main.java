@@ -0,0 +1,295 @@
+package moviebooking;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Headless load generator for the booking flow, for capacity planning an opening night.
+// N simulated users repeatedly browse the movie list, open a show's seat map, hold 1-4 seats
+// (retrying with other seats on conflict) and confirm the booking, which commits to SQLite.
+// In "http" mode the users go through BookingHttpServer on a local port instead of calling
+// BookingService directly, which adds the cost of the HTTP layer. With maxActivePerShow set, the
+// service's admission control is on and users wait their turn in each show's queue.
+// Run with: java -cp movie-booking.jar moviebooking.Main [users] [seconds] [shows] [seatsPerShow] [thinkMillis]
+//                                                        [dbFile] [local|http] [maxActivePerShow]
+public class Main {
+    private static final int MAX_HOLD_ATTEMPTS = 3;
+    private static final int BROWSE_EVERY = 10;
+
+    private final int users;
+    private final int seconds;
+    private final int shows;
+    private final int seatsPerShow;
+    private final int thinkMillis;
+
+    private final LatencyHistogram browseLatency = new LatencyHistogram();
+    private final LatencyHistogram seatMapLatency = new LatencyHistogram();
+    private final LatencyHistogram holdLatency = new LatencyHistogram();
+    private final LatencyHistogram confirmLatency = new LatencyHistogram();
+    private final LatencyHistogram bookingLatency = new LatencyHistogram();
+    private final LatencyHistogram queueLatency = new LatencyHistogram();
+
+    private final LongAdder bookings = new LongAdder();
+    private final LongAdder seatsSold = new LongAdder();
+    private final LongAdder holdAttempts = new LongAdder();
+    private final LongAdder holdConflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder gaveUp = new LongAdder();
+    private final LongAdder confirmLost = new LongAdder();
+    private final LongAdder saveFailed = new LongAdder();
+    private final LongAdder queuedHolds = new LongAdder();
+    private final LongAdder turnedAway = new LongAdder();
+    private final Set<Integer> soldOutShows = ConcurrentHashMap.newKeySet();
+
+    public Main(int users, int seconds, int shows, int seatsPerShow, int thinkMillis) {
+        this.users = users;
+        this.seconds = seconds;
+        this.shows = shows;
+        this.seatsPerShow = seatsPerShow;
+        this.thinkMillis = thinkMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = intArg(args, 0, 64);
+        int seconds = intArg(args, 1, 30);
+        int shows = intArg(args, 2, 20);
+        int seatsPerShow = intArg(args, 3, 300);
+        int thinkMillis = intArg(args, 4, 0);
+        String dbFile = args.length > 5 ? args[5] : "loadtest.db";
+        boolean overHttp = args.length > 6 && args[6].equals("http");
+        int maxActivePerShow = intArg(args, 7, 0);
+
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            new File(dbFile + suffix).delete();
+        }
+        Database.connect("jdbc:sqlite:" + dbFile);
+        Database.createTables();
+        for (int id = 1; id <= shows; id++) {
+            Database.addMovie(new Movie(id, "Show " + id, seatsPerShow));
+        }
+        try (BookingStore store = new BookingStore()) {
+            AvailabilityCache cache = new AvailabilityCache(store, shows);
+            try (BookingService service = new BookingService(cache.getEngine(), Database.getMovies())) {
+                if (maxActivePerShow > 0) {
+                    service.enableAdmission(maxActivePerShow, AdmissionQueue.DEFAULT_MAX_WAITING);
+                }
+                Main generator = new Main(users, seconds, shows, seatsPerShow, thinkMillis);
+                if (!overHttp) {
+                    generator.run(service, cache);
+                } else {
+                    try (BookingHttpServer server = new BookingHttpServer(service, 0)) {
+                        server.start();
+                        generator.run(new HttpBookingClient("http://localhost:" + server.getPort()), cache);
+                    }
+                }
+                if (maxActivePerShow > 0) {
+                    System.out.println("Admission queues (hottest show first):");
+                    List<String> lines = service.describeAdmission();
+                    for (String line : lines.subList(0, Math.min(lines.size(), 8))) {
+                        System.out.println("  " + line);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    // Runs until the time is up or every show is sold out, then prints the report.
+    public void run(BookingApi api, AvailabilityCache cache) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        System.out.printf("Load test: %d users, %d s, %d shows x %d seats, think time %d ms%n",
+                          users, seconds, shows, seatsPerShow, thinkMillis);
+        for (int i = 0; i < users; i++) {
+            String user = "user-" + i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    simulateUser(api, user, deadline, stop);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "load-" + user);
+            threads.add(thread);
+            thread.start();
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        report(System.nanoTime() - started, cache);
+    }
+
+    private void simulateUser(BookingApi api, String user, long deadline, AtomicBoolean stop)
+            throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Movie> movies = null;
+        int iteration = 0;
+        while (!stop.get() && System.nanoTime() < deadline) {
+            long begin = System.nanoTime();
+            // Users re-read the movie list now and then rather than before every booking
+            if (movies == null || iteration++ % BROWSE_EVERY == 0) {
+                movies = api.listShows();
+                browseLatency.record(System.nanoTime() - begin);
+            }
+
+            Movie movie = pickShow(random, movies);
+            long t = System.nanoTime();
+            BookingApi.Availability availability = api.getAvailability(movie.getId());
+            seatMapLatency.record(System.nanoTime() - t);
+            int[] free = freeSeats(availability);
+            if (free.length == 0) {
+                if (availability.getRemainingSeats() == 0 && soldOutShows.add(movie.getId())
+                    && soldOutShows.size() == shows) {
+                    stop.set(true);
+                }
+                continue;
+            }
+
+            BookingApi.HoldTicket hold = null;
+            for (int attempt = 0; attempt < MAX_HOLD_ATTEMPTS && hold == null; attempt++) {
+                if (attempt > 0) {
+                    retries.increment();
+                    free = freeSeats(api.getAvailability(movie.getId()));
+                    if (free.length == 0) {
+                        break;
+                    }
+                }
+                List<String> wanted = pickSeats(random, free);
+                holdAttempts.increment();
+                t = System.nanoTime();
+                try {
+                    hold = holdInTurn(api, movie.getId(), user, wanted, deadline);
+                } catch (AdmissionQueue.WaitException e) {
+                    // Turned away (or still in line when the run ended): come back later
+                    // rather than hammering the show
+                    if (e.isRejected()) {
+                        turnedAway.increment();
+                        Thread.sleep(e.getRetryAfterMillis());
+                    }
+                    break;
+                }
+                holdLatency.record(System.nanoTime() - t);
+                if (hold == null) {
+                    holdConflicts.increment();
+                }
+            }
+            if (hold == null) {
+                gaveUp.increment();
+                continue;
+            }
+
+            t = System.nanoTime();
+            try {
+                List<Booking> booked = api.confirm(hold.getId());
+                confirmLatency.record(System.nanoTime() - t);
+                if (booked == null) {
+                    confirmLost.increment();
+                    continue;
+                }
+                bookings.increment();
+                seatsSold.add(booked.size());
+                bookingLatency.record(System.nanoTime() - begin);
+            } catch (IllegalStateException e) {
+                saveFailed.increment();
+            }
+            if (thinkMillis > 0) {
+                Thread.sleep(random.nextInt(thinkMillis * 2 + 1));
+            }
+        }
+    }
+
+    // Asks for the hold until the user's turn comes, as a client polling the queue would.
+    // Rethrows if the user is turned away; gives up (null) when the run is over.
+    private BookingApi.HoldTicket holdInTurn(BookingApi api, int movieId, String user, List<String> seats,
+                                             long deadline) throws InterruptedException {
+        long start = System.nanoTime();
+        boolean waited = false;
+        while (true) {
+            try {
+                BookingApi.HoldTicket hold = api.hold(movieId, user, seats);
+                if (waited) {
+                    queueLatency.record(System.nanoTime() - start);
+                }
+                return hold;
+            } catch (AdmissionQueue.WaitException e) {
+                if (e.isRejected() || System.nanoTime() > deadline) {
+                    throw e;
+                }
+                if (!waited) {
+                    queuedHolds.increment();
+                    waited = true;
+                }
+                Thread.sleep(e.getRetryAfterMillis());
+            }
+        }
+    }
+
+    // Opening-night skew: half the traffic goes to the first show.
+    private static Movie pickShow(ThreadLocalRandom random, List<Movie> movies) {
+        return random.nextBoolean() ? movies.get(0) : movies.get(random.nextInt(movies.size()));
+    }
+
+    private static int[] freeSeats(BookingApi.Availability availability) {
+        int[] free = new int[availability.getTotalSeats()];
+        int count = 0;
+        for (int seat = 0; seat < free.length; seat++) {
+            if (availability.isAvailable(seat)) {
+                free[count++] = seat;
+            }
+        }
+        return Arrays.copyOf(free, count);
+    }
+
+    // 1-4 adjacent-ish seats from what looked free a moment ago.
+    private static List<String> pickSeats(ThreadLocalRandom random, int[] free) {
+        int count = Math.min(free.length, 1 + random.nextInt(4));
+        int first = random.nextInt(free.length - count + 1);
+        List<String> seats = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            seats.add(Seat.label(free[i]));
+        }
+        return seats;
+    }
+
+    private void report(long nanos, AvailabilityCache cache) {
+        double secondsRun = nanos / 1e9;
+        long attempts = holdAttempts.sum();
+        System.out.printf("Ran %.1f s: %,d bookings (%,.0f/s), %,d seats sold (%,.0f/s), %d/%d shows sold out%n",
+                          secondsRun, bookings.sum(), bookings.sum() / secondsRun, seatsSold.sum(),
+                          seatsSold.sum() / secondsRun, soldOutShows.size(), shows);
+        System.out.printf("Holds: %,d attempts, %.2f%% conflicts, %,d retries, %,d users gave up%n",
+                          attempts, attempts == 0 ? 0.0 : 100.0 * holdConflicts.sum() / attempts,
+                          retries.sum(), gaveUp.sum());
+        System.out.printf("Confirms: %,d lost after hold expiry, %,d failed to save%n", confirmLost.sum(), saveFailed.sum());
+        System.out.printf("Queue: %,d holds waited their turn, %,d turned away%n", queuedHolds.sum(), turnedAway.sum());
+        System.out.println("Latency:");
+        System.out.println("  browse   " + browseLatency.summary());
+        System.out.println("  seat map " + seatMapLatency.summary());
+        System.out.println("  hold     " + holdLatency.summary());
+        System.out.println("  confirm  " + confirmLatency.summary());
+        System.out.println("  booking  " + bookingLatency.summary());
+        System.out.println("  in line  " + queueLatency.summary());
+        System.out.println("Availability cache:");
+        for (String line : cache.describeMetrics()) {
+            System.out.println("  " + line);
+        }
+        System.out.println("Database and store:");
+        for (String line : Metrics.describe()) {
+            System.out.println("  " + line);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package moviebooking;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Process-wide counters, gauges and latency histograms, by name ("db.movies.get"). Callers look
+// a metric up once and keep it in a field, so recording is a few atomic adds with no allocation.
+// Everything is published as one JMX MBean, MovieBooking:type=Metrics (jconsole shows each
+// histogram as count / mean / p50 / p99 / p999 / max in microseconds), and the service can print
+// the lot every few seconds with -Dmetrics.log=<seconds>.
+public final class Metrics {
+    public static final String OBJECT_NAME = "MovieBooking:type=Metrics";
+
+    private static final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService logger;
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MBean(), new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("Metrics are not available over JMX: " + e.getMessage());
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    // Read when the metrics are published; a later registration under the same name wins.
+    public static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public static List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            lines.add(String.format("%-28s %,d", entry.getKey(), entry.getValue().sum()));
+        }
+        for (Map.Entry<String, LongSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+            lines.add(String.format("%-28s %,d", entry.getKey(), entry.getValue().getAsLong()));
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                lines.add(String.format("%-28s %s", entry.getKey(), entry.getValue().summary()));
+            }
+        }
+        return lines;
+    }
+
+    // Prints describe() every periodSeconds on a daemon thread; a second call changes nothing.
+    public static synchronized void startLogging(long periodSeconds) {
+        if (logger != null || periodSeconds <= 0) {
+            return;
+        }
+        logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.scheduleAtFixedRate(() -> {
+            StringBuilder dump = new StringBuilder("===== Metrics at " + LocalTime.now().truncatedTo(ChronoUnit.SECONDS)
+                                                   + " =====\n");
+            for (String line : describe()) {
+                dump.append(line).append('\n');
+            }
+            System.out.print(dump);
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    // One read-only attribute per counter and gauge, and six per histogram ("<name>.p99Micros" etc.).
+    // The attribute list is rebuilt on every getMBeanInfo(), so metrics created later still show up.
+    private static final class MBean implements DynamicMBean {
+        private static final String[] HISTOGRAM_FIELDS = {"count", "meanMicros", "p50Micros", "p99Micros",
+                                                          "p999Micros", "maxMicros"};
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            LongAdder counter = counters.get(attribute);
+            if (counter != null) {
+                return counter.sum();
+            }
+            LongSupplier gauge = gauges.get(attribute);
+            if (gauge != null) {
+                return gauge.getAsLong();
+            }
+            int dot = attribute.lastIndexOf('.');
+            LatencyHistogram histogram = dot < 0 ? null : histograms.get(attribute.substring(0, dot));
+            if (histogram != null) {
+                switch (attribute.substring(dot + 1)) {
+                    case "count": return histogram.getCount();
+                    case "meanMicros": return histogram.getMeanNanos() / 1e3;
+                    case "p50Micros": return histogram.percentileNanos(50) / 1e3;
+                    case "p99Micros": return histogram.percentileNanos(99) / 1e3;
+                    case "p999Micros": return histogram.percentileNanos(99.9) / 1e3;
+                    case "maxMicros": return histogram.getMaxNanos() / 1e3;
+                    default: break;
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // Left out, as the DynamicMBean contract allows
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        // There are no operations, so any name is unknown
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (String name : new TreeMap<>(counters).keySet()) {
+                attributes.add(new MBeanAttributeInfo(name, "long", "Counter", true, false, false));
+            }
+            for (String name : new TreeMap<>(gauges).keySet()) {
+                attributes.add(new MBeanAttributeInfo(name, "long", "Gauge", true, false, false));
+            }
+            for (String name : new TreeMap<>(histograms).keySet()) {
+                for (String field : HISTOGRAM_FIELDS) {
+                    attributes.add(new MBeanAttributeInfo(name + "." + field, field.equals("count") ? "long" : "double",
+                                                          "Latency histogram", true, false, false));
+                }
+            }
+            return new MBeanInfo(Metrics.class.getName(), "Movie booking metrics",
+                                 attributes.toArray(new MBeanAttributeInfo[0]), null,
+                                 new MBeanOperationInfo[0], null);
+        }
+    }
+}
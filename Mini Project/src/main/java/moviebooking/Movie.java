@@ -1,3 +1,5 @@
+package moviebooking;
+
 public class Movie {
     private int id;
     private String name;
@@ -0,0 +1,273 @@
+package moviebooking;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class MovieBookingApp {
+    static final Movie DEFAULT_MOVIE = new Movie(1, "Featured Movie", 60);
+    private static final int CACHED_SHOWS = 64;
+    private static final String EVENT_LOG = "database/bookings.log";
+    private static final long CHECKPOINT_SECONDS = 60;
+    // What the windows book through: the local service, or a remote one with --connect.
+    // All windows share it, so they all see the same seat holds and bookings.
+    static BookingApi api;
+
+    // Usage: MovieBookingApp                  local database, Swing UI
+    //        MovieBookingApp --serve [port]   headless booking server for box-office terminals
+    //        MovieBookingApp --connect url    Swing UI as a terminal of a remote server
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting Movie Booking App...");
+
+        if (args.length >= 2 && args[0].equals("--connect")) {
+            api = new HttpBookingClient(args[1]);
+        } else {
+            // Step 1: Connect to the Database
+            Database.connect();
+
+            // Step 2: Create necessary tables if not already created
+            Database.createTables();
+            BookingService service = startService();
+            api = service;
+
+            if (args.length >= 1 && args[0].equals("--serve")) {
+                int port = args.length >= 2 ? Integer.parseInt(args[1]) : BookingHttpServer.DEFAULT_PORT;
+                // Many terminals may rush the same show: make them queue for it
+                service.enableAdmission(AdmissionQueue.DEFAULT_MAX_ACTIVE, AdmissionQueue.DEFAULT_MAX_WAITING);
+                new BookingHttpServer(service, port).start();
+                return;
+            }
+        }
+
+        // Step 3: Launch the GUI using Swing (Runs on Event Dispatch Thread)
+        SwingUtilities.invokeLater(() -> {
+            new MainFrame(); // This is your main UI window
+        });
+    }
+
+    // Adds the default movie to an empty database and starts the service over the cached engine,
+    // or over a memory-only engine when bookings cannot be saved to the database. Either way every
+    // seat change goes to the event log, and the memory-only engine recovers sold seats from it.
+    static BookingService startService() {
+        // -Dmetrics.log=<seconds> prints the DB and store metrics periodically; they are always on JMX
+        Metrics.startLogging(Long.getLong("metrics.log", 0));
+        List<Movie> movies = Database.getMovies();
+        if (movies.isEmpty()) {
+            Database.addMovie(DEFAULT_MOVIE);
+            movies = Database.getMovies();
+        }
+        BookingEventLog eventLog = openEventLog();
+        try {
+            BookingStore store = new BookingStore();
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close));
+            SeatReservationEngine engine = new AvailabilityCache(store, CACHED_SHOWS).getEngine();
+            engine.setEventLog(eventLog);
+            return new BookingService(engine, movies);
+        } catch (Exception e) {
+            System.err.println("Bookings will not be saved to the database: " + e.getMessage());
+            if (movies.isEmpty()) {
+                movies = Collections.singletonList(DEFAULT_MOVIE);
+            }
+            SeatReservationEngine engine = new SeatReservationEngine();
+            Map<Integer, BitSet> sold = recoverSoldSeats(eventLog);
+            for (Movie movie : movies) {
+                BitSet seats = sold.get(movie.getId());
+                engine.register(movie, seats == null ? new int[0] : seats.stream().toArray());
+            }
+            engine.setEventLog(eventLog);
+            return new BookingService(engine, movies);
+        }
+    }
+
+    // The booking event log, checkpointed in the background; null if it cannot be opened.
+    private static BookingEventLog openEventLog() {
+        try {
+            BookingEventLog eventLog = BookingEventLog.open(EVENT_LOG);
+            eventLog.startCheckpoints(CHECKPOINT_SECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    eventLog.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+            return eventLog;
+        } catch (IOException e) {
+            System.err.println("Booking events will not be logged: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Map<Integer, BitSet> recoverSoldSeats(BookingEventLog eventLog) {
+        if (eventLog != null) {
+            try {
+                return eventLog.recover();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return Collections.emptyMap();
+    }
+
+    // Runs a service call off the event thread, then hands the result (or the error) back on it.
+    static <T> void callAsync(Component owner, Supplier<T> call, Consumer<T> onResult) {
+        CompletableFuture.supplyAsync(call).whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                onResult.accept(result);
+            } else {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                JOptionPane.showMessageDialog(owner, cause.getMessage(), "Booking Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }));
+    }
+}
+
+// Main UI Frame for the application
+class MainFrame extends JFrame {
+    public MainFrame() {
+        setTitle("Movie Ticket Booking System");
+        setSize(600, 400);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+
+        JPanel panel = new JPanel();
+        panel.setLayout(new GridLayout(4, 1));
+
+        JLabel welcomeLabel = new JLabel("Welcome to Movie Booking System", SwingConstants.CENTER);
+        panel.add(welcomeLabel);
+
+        JComboBox<String> showBox = new JComboBox<>();
+        List<Movie> shows = new ArrayList<>();
+        panel.add(showBox);
+        MovieBookingApp.callAsync(this, MovieBookingApp.api::listShows, loaded -> {
+            shows.addAll(loaded);
+            for (Movie movie : loaded) {
+                showBox.addItem(movie.getName());
+            }
+        });
+
+        JButton bookButton = new JButton("Book Tickets");
+        bookButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (showBox.getSelectedIndex() >= 0) {
+                    new BookingFrame(shows.get(showBox.getSelectedIndex())); // Opens booking window
+                }
+            }
+        });
+
+        panel.add(bookButton);
+
+        JButton exitButton = new JButton("Exit");
+        exitButton.addActionListener(e -> System.exit(0));
+        panel.add(exitButton);
+
+        add(panel);
+        setVisible(true);
+    }
+}
+
+// Booking Window: a grid of seats for one movie, booked through the booking service
+class BookingFrame extends JFrame {
+    private final Movie movie;
+    private final JToggleButton[] seatButtons;
+    private final JTextField userField = new JTextField(12);
+    private final JLabel statusLabel = new JLabel(" ", SwingConstants.CENTER);
+
+    public BookingFrame(Movie movie) {
+        this.movie = movie;
+        setTitle("Book Tickets - " + movie.getName());
+        setSize(600, 450);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(null);
+        setLayout(new BorderLayout());
+
+        JPanel seatPanel = new JPanel(new GridLayout(0, Seat.SEATS_PER_ROW, 4, 4));
+        seatButtons = new JToggleButton[movie.getTotalSeats()];
+        for (int i = 0; i < seatButtons.length; i++) {
+            seatButtons[i] = new JToggleButton(Seat.label(i));
+            seatButtons[i].setMargin(new Insets(2, 2, 2, 2));
+            seatPanel.add(seatButtons[i]);
+        }
+
+        JPanel controlPanel = new JPanel();
+        controlPanel.add(new JLabel("Name:"));
+        controlPanel.add(userField);
+        JButton bookButton = new JButton("Book Selected Seats");
+        bookButton.addActionListener(e -> bookSelectedSeats());
+        controlPanel.add(bookButton);
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> refreshSeats());
+        controlPanel.add(refreshButton);
+
+        add(new JScrollPane(seatPanel), BorderLayout.CENTER);
+        add(controlPanel, BorderLayout.SOUTH);
+        add(statusLabel, BorderLayout.NORTH);
+
+        refreshSeats();
+        setVisible(true);
+    }
+
+    // Disables seats that are booked or held by someone else.
+    private void refreshSeats() {
+        MovieBookingApp.callAsync(this, () -> MovieBookingApp.api.getAvailability(movie.getId()), availability -> {
+            for (int i = 0; i < seatButtons.length && i < availability.getTotalSeats(); i++) {
+                boolean available = availability.isAvailable(i);
+                seatButtons[i].setEnabled(available);
+                if (!available) {
+                    seatButtons[i].setSelected(false);
+                }
+            }
+            statusLabel.setText(availability.getAvailableSeats() + " of " + movie.getTotalSeats() + " seats available");
+        });
+    }
+
+    private void bookSelectedSeats() {
+        String user = userField.getText().trim();
+        if (user.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Please enter your name.");
+            return;
+        }
+        List<String> seats = new ArrayList<>();
+        for (int i = 0; i < seatButtons.length; i++) {
+            if (seatButtons[i].isSelected()) {
+                seats.add(Seat.label(i));
+            }
+        }
+        if (seats.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Please select at least one seat.");
+            return;
+        }
+        // Hold, then confirm straight away; the confirm returns once the booking is saved
+        MovieBookingApp.callAsync(this, () -> {
+            BookingApi.HoldTicket ticket = MovieBookingApp.api.hold(movie.getId(), user, seats);
+            return ticket == null ? null : MovieBookingApp.api.confirm(ticket.getId());
+        }, bookings -> {
+            if (bookings == null) {
+                JOptionPane.showMessageDialog(this, "Some of those seats were just taken. Please choose again.");
+            } else {
+                showBooked(bookings, user);
+            }
+            refreshSeats();
+        });
+    }
+
+    private void showBooked(List<Booking> bookings, String user) {
+        StringBuilder booked = new StringBuilder();
+        for (Booking booking : bookings) {
+            booked.append(booked.length() == 0 ? "" : ", ").append(booking.getSeatNumber());
+        }
+        JOptionPane.showMessageDialog(this, "Booked " + booked + " for " + user + ".");
+    }
+}
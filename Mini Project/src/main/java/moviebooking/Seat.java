@@ -0,0 +1,61 @@
+package moviebooking;
+
+public class Seat {
+    // Seats are numbered row by row: index 0 is "A1", index 10 is "B1", ...
+    public static final int SEATS_PER_ROW = 10;
+
+    private final int movieId;
+    private final int index;
+
+    public Seat(int movieId, int index) {
+        this.movieId = movieId;
+        this.index = index;
+    }
+
+    public int getMovieId() { return movieId; }
+    public int getIndex() { return index; }
+    public String getSeatNumber() { return label(index); }
+
+    public static String label(int index) {
+        int row = index / SEATS_PER_ROW;
+        StringBuilder letters = new StringBuilder();
+        do {
+            letters.insert(0, (char) ('A' + row % 26));
+            row = row / 26 - 1;
+        } while (row >= 0);
+        return letters.toString() + (index % SEATS_PER_ROW + 1);
+    }
+
+    // Inverse of label(); returns -1 for anything that is not a seat number.
+    public static int indexOf(String seatNumber) {
+        if (seatNumber == null) {
+            return -1;
+        }
+        int i = 0;
+        int row = -1;
+        while (i < seatNumber.length() && seatNumber.charAt(i) >= 'A' && seatNumber.charAt(i) <= 'Z') {
+            row = (row + 1) * 26 + (seatNumber.charAt(i) - 'A');
+            i++;
+        }
+        if (row < 0 || i == seatNumber.length() || seatNumber.length() - i > 2) {
+            return -1;
+        }
+        int column = 0;
+        for (; i < seatNumber.length(); i++) {
+            char c = seatNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            column = column * 10 + (c - '0');
+        }
+        if (column < 1 || column > SEATS_PER_ROW) {
+            return -1;
+        }
+        return row * SEATS_PER_ROW + column - 1;
+    }
+
+    @Override
+    public String toString() {
+        return getSeatNumber();
+    }
+}
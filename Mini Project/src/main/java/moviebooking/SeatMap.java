@@ -0,0 +1,130 @@
+package moviebooking;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free seat state for one movie.
+// Every seat has one state word that only changes by compare-and-set:
+//   FREE (0), BOOKED (-1), CANCELLING (-2), or a hold: (holdId << 40) | expiry, where holdId
+//   is 23 bits and expiry is the hold deadline in milliseconds on the engine clock (40 bits,
+//   ~34 years). A cancelling seat is still sold until its booking is deleted from the database.
+// Booked seats are mirrored in a bitset so counts and availability scans read 64 seats per word.
+public class SeatMap {
+    static final long FREE = 0L;
+    static final long BOOKED = -1L;
+    static final long CANCELLING = -2L;
+    static final int HOLD_ID_MASK = 0x7FFFFF;
+    private static final long EXPIRY_MASK = (1L << 40) - 1;
+
+    private final Movie movie;
+    private final AtomicLongArray states;
+    private final AtomicLongArray bookedBits;
+    // Seats not yet sold, kept in step with the bitset so it can be read without a scan
+    private final AtomicInteger unsold;
+    // Bookings confirmed here but not yet committed to the database
+    final AtomicInteger pendingWrites = new AtomicInteger();
+    // Last time the map was used (System.nanoTime), for AvailabilityCache's LRU order
+    volatile long lastAccess;
+
+    public SeatMap(Movie movie) {
+        this.movie = movie;
+        this.states = new AtomicLongArray(movie.getTotalSeats());
+        this.bookedBits = new AtomicLongArray((movie.getTotalSeats() + 63) >>> 6);
+        this.unsold = new AtomicInteger(movie.getTotalSeats());
+    }
+
+    public Movie getMovie() { return movie; }
+    public int getTotalSeats() { return states.length(); }
+
+    static long holdState(int holdId, long expiresAt) {
+        return ((long) (holdId & HOLD_ID_MASK) << 40) | (expiresAt & EXPIRY_MASK);
+    }
+
+    static boolean isHold(long state) {
+        return state != FREE && !isSold(state);
+    }
+
+    static boolean isSold(long state) {
+        return state == BOOKED || state == CANCELLING;
+    }
+
+    static long expiryOf(long state) {
+        return state & EXPIRY_MASK;
+    }
+
+    // A hold past its deadline counts as free and may be taken over by anyone.
+    static boolean isAvailable(long state, long now) {
+        return state == FREE || (isHold(state) && expiryOf(state) <= now);
+    }
+
+    long state(int seat) {
+        return states.get(seat);
+    }
+
+    boolean compareAndSet(int seat, long expected, long update) {
+        if (!states.compareAndSet(seat, expected, update)) {
+            return false;
+        }
+        if (isSold(update) && !isSold(expected)) {
+            syncBit(seat);
+            unsold.decrementAndGet();
+        } else if (isSold(expected) && !isSold(update)) {
+            syncBit(seat);
+            unsold.incrementAndGet();
+        }
+        return true;
+    }
+
+    // Sets the seat's bit from its current state. A cancel and a rebook of the same seat may reach
+    // the bitset in either order, so the state is read again after each write: whoever wrote a
+    // value that is already stale sees that and writes the bit again.
+    private void syncBit(int seat) {
+        int word = seat >>> 6;
+        long mask = 1L << seat;
+        while (true) {
+            boolean booked = isSold(states.get(seat));
+            long bits = bookedBits.get(word);
+            long updated = booked ? bits | mask : bits & ~mask;
+            if ((bits == updated || bookedBits.compareAndSet(word, bits, updated)) && isSold(states.get(seat)) == booked) {
+                return;
+            }
+        }
+    }
+
+    public boolean isBooked(int seat) {
+        return (bookedBits.get(seat >>> 6) & (1L << seat)) != 0;
+    }
+
+    public int bookedCount() {
+        int count = 0;
+        for (int i = 0; i < bookedBits.length(); i++) {
+            count += Long.bitCount(bookedBits.get(i));
+        }
+        return count;
+    }
+
+    public int unsoldCount() {
+        return unsold.get();
+    }
+
+    boolean hasLiveHolds(long now) {
+        for (int seat = 0; seat < states.length(); seat++) {
+            long state = states.get(seat);
+            if (isHold(state) && expiryOf(state) > now) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Seats that are neither booked nor under a live hold at the given engine time.
+    public int availableCount(long now) {
+        int count = 0;
+        for (int seat = 0; seat < states.length(); seat++) {
+            if (isAvailable(states.get(seat), now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,248 @@
+package moviebooking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Books seats in two steps: hold() reserves seats for a short time while the user decides,
+// confirm() turns the hold into bookings. All seat changes are compare-and-set on the
+// movie's SeatMap, so two users can never end up with the same seat and no locks are taken.
+public class SeatReservationEngine {
+    public static final long DEFAULT_HOLD_MILLIS = 5 * 60 * 1000;
+
+    private final ConcurrentHashMap<Integer, SeatMap> seatMaps = new ConcurrentHashMap<>();
+    private final AtomicInteger nextHoldId = new AtomicInteger();
+    private final AtomicInteger nextBookingId = new AtomicInteger();
+    private final long holdMillis;
+    private final long startNanos = System.nanoTime();
+    // When set, seat maps come from the cache and bookings are saved to the database
+    private final AvailabilityCache cache;
+    // When set, every seat change is appended here
+    private volatile BookingEventLog eventLog;
+
+    public SeatReservationEngine() {
+        this(DEFAULT_HOLD_MILLIS);
+    }
+
+    public SeatReservationEngine(long holdMillis) {
+        this(holdMillis, null);
+    }
+
+    SeatReservationEngine(long holdMillis, AvailabilityCache cache) {
+        this.holdMillis = holdMillis;
+        this.cache = cache;
+    }
+
+    public void setEventLog(BookingEventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    void logEvent(byte type, int movieId, int seat) {
+        BookingEventLog log = eventLog;
+        if (log != null) {
+            log.append(type, movieId, seat);
+        }
+    }
+
+    private void logEvents(byte type, int movieId, int[] seats) {
+        BookingEventLog log = eventLog;
+        if (log != null) {
+            for (int seat : seats) {
+                log.append(type, movieId, seat);
+            }
+        }
+    }
+
+    // A temporary claim on some seats; it lapses on its own if never confirmed or released.
+    public static class Hold {
+        private final int movieId;
+        private final String user;
+        private final int[] seats;
+        private final long state;
+
+        Hold(int movieId, String user, int[] seats, long state) {
+            this.movieId = movieId;
+            this.user = user;
+            this.seats = seats;
+            this.state = state;
+        }
+
+        public int getMovieId() { return movieId; }
+        public String getUser() { return user; }
+        public int[] getSeats() { return seats.clone(); }
+    }
+
+    public SeatMap register(Movie movie) {
+        return seatMaps.computeIfAbsent(movie.getId(), id -> new SeatMap(movie));
+    }
+
+    // Registers a movie whose seats were partly sold before, e.g. as loaded by BookingStore.
+    public SeatMap register(Movie movie, int[] bookedSeats) {
+        return seatMaps.computeIfAbsent(movie.getId(), id -> {
+            SeatMap map = new SeatMap(movie);
+            for (int seat : bookedSeats) {
+                map.compareAndSet(seat, SeatMap.FREE, SeatMap.BOOKED);
+            }
+            return map;
+        });
+    }
+
+    public SeatMap getSeatMap(int movieId) {
+        if (cache != null) {
+            return cache.get(movieId);
+        }
+        SeatMap map = seatMaps.get(movieId);
+        if (map == null) {
+            throw new BookingApi.UnknownShowException(movieId);
+        }
+        return map;
+    }
+
+    // Milliseconds since the engine started; hold deadlines are on this clock.
+    long now() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    // Holds all the given seats or none of them. Returns null if any seat is taken.
+    public Hold hold(int movieId, String user, int... seats) {
+        SeatMap map = getSeatMap(movieId);
+        int[] sorted = seats.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] < 0 || sorted[i] >= map.getTotalSeats() || (i > 0 && sorted[i] == sorted[i - 1])) {
+                throw new IllegalArgumentException("Invalid seat selection: " + Arrays.toString(seats));
+            }
+        }
+        long now = now();
+        int holdId = nextHoldId.incrementAndGet() & SeatMap.HOLD_ID_MASK;
+        long state = SeatMap.holdState(holdId == 0 ? 1 : holdId, now + holdMillis);
+        for (int i = 0; i < sorted.length; i++) {
+            if (!claim(map, sorted[i], state, now)) {
+                undo(map, sorted, i, state, SeatMap.FREE);
+                return null;
+            }
+        }
+        logEvents(BookingEventLog.HOLD, movieId, sorted);
+        return new Hold(movieId, user, sorted, state);
+    }
+
+    private static boolean claim(SeatMap map, int seat, long state, long now) {
+        while (true) {
+            long current = map.state(seat);
+            if (!SeatMap.isAvailable(current, now)) {
+                return false;
+            }
+            if (map.compareAndSet(seat, current, state)) {
+                return true;
+            }
+        }
+    }
+
+    // Puts the first `count` seats back from `from` to `to`.
+    private static void undo(SeatMap map, int[] seats, int count, long from, long to) {
+        for (int i = 0; i < count; i++) {
+            map.compareAndSet(seats[i], from, to);
+        }
+    }
+
+    // Books the held seats. Returns null if the hold expired and any seat was lost to someone else.
+    public List<Booking> confirm(Hold hold) {
+        return confirm(getSeatMap(hold.movieId), hold);
+    }
+
+    private List<Booking> confirm(SeatMap map, Hold hold) {
+        for (int i = 0; i < hold.seats.length; i++) {
+            if (!map.compareAndSet(hold.seats[i], hold.state, SeatMap.BOOKED)) {
+                undo(map, hold.seats, i, SeatMap.BOOKED, hold.state);
+                undo(map, hold.seats, hold.seats.length, hold.state, SeatMap.FREE);
+                return null;
+            }
+        }
+        logEvents(BookingEventLog.CONFIRM, hold.movieId, hold.seats);
+        List<Booking> bookings = new ArrayList<>(hold.seats.length);
+        for (int seat : hold.seats) {
+            bookings.add(new Booking(nextBookingId.incrementAndGet(), hold.movieId, Seat.label(seat), hold.user));
+        }
+        return bookings;
+    }
+
+    // Confirms the hold and, with a cache, saves the bookings to the database. Completes with
+    // null if the seats were lost, and fails if the database refused the bookings.
+    public CompletableFuture<List<Booking>> book(Hold hold) {
+        SeatMap map = getSeatMap(hold.movieId);
+        if (cache == null) {
+            return CompletableFuture.completedFuture(confirm(map, hold));
+        }
+        map.pendingWrites.incrementAndGet();
+        List<Booking> bookings = confirm(map, hold);
+        if (bookings == null) {
+            map.pendingWrites.decrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+        return cache.writeThrough(map, bookings);
+    }
+
+    // Cancels a sold seat and, with a cache, deletes its booking from the database. The seat stays
+    // taken (CANCELLING) until the delete commits, so nobody can book it ahead of the delete.
+    public CompletableFuture<Boolean> cancelBooking(int movieId, int seat) {
+        SeatMap map = getSeatMap(movieId);
+        if (cache == null) {
+            return CompletableFuture.completedFuture(cancel(movieId, seat));
+        }
+        map.pendingWrites.incrementAndGet();
+        if (!map.compareAndSet(seat, SeatMap.BOOKED, SeatMap.CANCELLING)) {
+            map.pendingWrites.decrementAndGet();
+            return CompletableFuture.completedFuture(false);
+        }
+        return cache.cancelThrough(map, seat).thenApply(result -> true);
+    }
+
+    // Gives back seats that are still held; seats already taken over are left alone.
+    public void release(Hold hold) {
+        SeatMap map = getSeatMap(hold.movieId);
+        for (int seat : hold.seats) {
+            if (map.compareAndSet(seat, hold.state, SeatMap.FREE)) {
+                logEvent(BookingEventLog.RELEASE, hold.movieId, seat);
+            }
+        }
+    }
+
+    public boolean cancel(int movieId, int seat) {
+        if (!getSeatMap(movieId).compareAndSet(seat, SeatMap.BOOKED, SeatMap.FREE)) {
+            return false;
+        }
+        logEvent(BookingEventLog.CANCEL, movieId, seat);
+        return true;
+    }
+
+    public boolean isAvailable(int movieId, int seat) {
+        return SeatMap.isAvailable(getSeatMap(movieId).state(seat), now());
+    }
+
+    // Availability of every seat, read in one pass over the seat map.
+    public boolean[] getAvailability(int movieId) {
+        SeatMap map = getSeatMap(movieId);
+        long now = now();
+        boolean[] available = new boolean[map.getTotalSeats()];
+        for (int seat = 0; seat < available.length; seat++) {
+            available[seat] = SeatMap.isAvailable(map.state(seat), now);
+        }
+        return available;
+    }
+
+    public long millisLeft(Hold hold) {
+        return Math.max(0, SeatMap.expiryOf(hold.state) - now());
+    }
+
+    // Seats not sold yet, including ones under a hold; answered without scanning the seats.
+    public int remainingSeats(int movieId) {
+        return getSeatMap(movieId).unsoldCount();
+    }
+
+    public int availableSeats(int movieId) {
+        return getSeatMap(movieId).availableCount(now());
+    }
+}
@@ -0,0 +1,83 @@
+package moviebooking;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// One active slot and a line behind it: positions in arrival order, a waiter who stops asking
+// dropped from the middle of the line, and freed slots going to the head of the line.
+class AdmissionQueueTest {
+    private static final long PATIENCE_MILLIS = 300;
+
+    @Test
+    void waitersGetTheirPlaceInArrivalOrder() {
+        AdmissionQueue queue = new AdmissionQueue(1, 10, PATIENCE_MILLIS);
+        long enteredAt = queue.enter("first");
+        assertEquals(1, position(queue, "b"));
+        assertEquals(2, position(queue, "c"));
+        assertEquals(1, position(queue, "b"));
+        assertEquals(2, queue.getDepth());
+
+        queue.leave(enteredAt);
+        // b was let in and has a slot waiting; c moves up
+        queue.enter("b");
+        assertEquals(1, position(queue, "c"));
+        assertEquals(1, queue.getActive());
+    }
+
+    @Test
+    void waiterWhoStopsAskingLosesItsPlaceFromTheMiddleOfTheLine() throws InterruptedException {
+        AdmissionQueue queue = new AdmissionQueue(1, 10, PATIENCE_MILLIS);
+        queue.enter("first");
+        assertEquals(1, position(queue, "head"));
+        assertEquals(2, position(queue, "gone"));
+        assertEquals(3, position(queue, "tail"));
+
+        // head and tail keep asking; gone does not
+        long until = System.currentTimeMillis() + 2 * PATIENCE_MILLIS;
+        while (System.currentTimeMillis() < until) {
+            position(queue, "head");
+            position(queue, "tail");
+            Thread.sleep(20);
+        }
+        assertEquals(1, position(queue, "head"));
+        assertEquals(2, position(queue, "tail"));
+        assertEquals(2, queue.getDepth());
+        assertEquals(1, queue.getAbandoned());
+        // Coming back after that is joining at the back
+        assertEquals(3, position(queue, "gone"));
+    }
+
+    @Test
+    void fullLineTurnsNewcomersAway() {
+        AdmissionQueue queue = new AdmissionQueue(1, 2, PATIENCE_MILLIS);
+        queue.enter("first");
+        position(queue, "b");
+        position(queue, "c");
+        AdmissionQueue.WaitException wait = assertThrows(AdmissionQueue.WaitException.class, () -> queue.enter("d"));
+        assertTrue(wait.isRejected());
+        assertEquals(1, queue.getRejected());
+    }
+
+    // Slots are renumbered once they run out; positions must survive it
+    @Test
+    void positionsSurviveManyWaitersComingAndGoing() {
+        AdmissionQueue queue = new AdmissionQueue(1, 8, PATIENCE_MILLIS);
+        long enteredAt = queue.enter("first");
+        position(queue, "w0");
+        position(queue, "w1");
+        for (int i = 2; i < 200; i++) {
+            position(queue, "w" + i);
+            queue.leave(enteredAt);
+            enteredAt = queue.enter("w" + (i - 2));
+            assertEquals(1, position(queue, "w" + (i - 1)));
+            assertEquals(2, position(queue, "w" + i));
+        }
+    }
+
+    private static int position(AdmissionQueue queue, String client) {
+        return assertThrows(AdmissionQueue.WaitException.class, () -> queue.enter(client)).getPosition();
+    }
+}
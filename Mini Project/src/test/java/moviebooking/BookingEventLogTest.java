@@ -0,0 +1,84 @@
+package moviebooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Events appended, a checkpoint taken, more events appended, then the log reopened as after a
+// restart: recovery must give the same sold seats whether they came from the snapshot or from
+// the events after it. Holds and releases never sell a seat.
+class BookingEventLogTest {
+    private static final long WAIT_MILLIS = 5_000;
+
+    @Test
+    void recoverAfterReopenCombinesSnapshotAndLaterEvents(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("events.log");
+        try (BookingEventLog log = new BookingEventLog(file, BookingEventLog.SyncMode.NONE, 1, 1000)) {
+            book(log, 1, 0);
+            book(log, 1, 1);
+            book(log, 2, 5);
+            log.append(BookingEventLog.HOLD, 2, 6);
+            log.append(BookingEventLog.RELEASE, 2, 6);
+            log.append(BookingEventLog.CANCEL, 1, 1);
+            assertEquals(9, log.checkpoint());
+            assertTrue(Files.exists(dir.resolve("events.log.snapshot")));
+
+            book(log, 1, 1);
+            book(log, 3, 9);
+            log.append(BookingEventLog.CANCEL, 2, 5);
+            log.append(BookingEventLog.HOLD, 3, 10);
+        }
+
+        try (BookingEventLog log = new BookingEventLog(file, BookingEventLog.SyncMode.NONE, 1, 1000)) {
+            assertEquals(15, log.getLastSequence());
+            Map<Integer, BitSet> booked = log.recover();
+            assertEquals(seats(0, 1), booked.get(1));
+            assertEquals(seats(), booked.get(2));
+            assertEquals(seats(9), booked.get(3));
+
+            // New events continue the sequence and are part of the next recovery
+            assertEquals(16, log.append(BookingEventLog.HOLD, 3, 11));
+            assertEquals(17, log.append(BookingEventLog.CONFIRM, 3, 11));
+            assertEquals(seats(9, 11), log.recover().get(3));
+        }
+    }
+
+    @Test
+    void closeStopsTheCheckpointThread(@TempDir Path dir) throws Exception {
+        BookingEventLog log = new BookingEventLog(dir.resolve("events.log"), BookingEventLog.SyncMode.NONE, 1, 1000);
+        log.startCheckpoints(1);
+        assertTrue(checkpointThreadAlive());
+        log.close();
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (checkpointThreadAlive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(checkpointThreadAlive());
+    }
+
+    private static void book(BookingEventLog log, int movieId, int seat) {
+        log.append(BookingEventLog.HOLD, movieId, seat);
+        log.append(BookingEventLog.CONFIRM, movieId, seat);
+    }
+
+    private static BitSet seats(int... numbers) {
+        BitSet seats = new BitSet();
+        for (int seat : numbers) {
+            seats.set(seat);
+        }
+        return seats;
+    }
+
+    private static boolean checkpointThreadAlive() {
+        return Thread.getAllStackTraces().keySet().stream()
+                     .anyMatch(thread -> thread.getName().equals("event-log-checkpoint") && thread.isAlive());
+    }
+}
@@ -0,0 +1,63 @@
+package moviebooking;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The HTTP server in front of an in-memory BookingService: a show that does not exist is 404,
+// an id that is not a whole number is 400, and HttpBookingClient turns both back into the
+// exceptions BookingService throws.
+class BookingHttpServerTest {
+    private static final int MOVIE = 1;
+    private static final int SEATS = 20;
+
+    @Test
+    void unknownShowIsNotFoundAndBadIdsAreRejected() throws Exception {
+        SeatReservationEngine engine = new SeatReservationEngine();
+        Movie movie = new Movie(MOVIE, "Matinee", SEATS);
+        engine.register(movie);
+        try (BookingService service = new BookingService(engine, List.of(movie));
+             BookingHttpServer server = new BookingHttpServer(service, 0, 2)) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+            HttpClient http = HttpClient.newHttpClient();
+
+            assertEquals(200, send(http, "GET", base + "/shows/" + MOVIE + "/seats", null).statusCode());
+            HttpResponse<String> unknown = send(http, "GET", base + "/shows/99/seats", null);
+            assertEquals(404, unknown.statusCode());
+            assertTrue(unknown.body().contains("\"movieId\":99"), unknown.body());
+            assertEquals(400, send(http, "GET", base + "/shows/1.5/seats", null).statusCode());
+
+            assertEquals(404, send(http, "POST", base + "/holds",
+                                   "{\"movieId\":99,\"user\":\"ana\",\"seats\":[\"A1\"]}").statusCode());
+            assertEquals(400, send(http, "POST", base + "/holds",
+                                   "{\"movieId\":1.5,\"user\":\"ana\",\"seats\":[\"A1\"]}").statusCode());
+            assertEquals(400, send(http, "POST", base + "/holds",
+                                   "{\"movieId\":\"1\",\"user\":\"ana\",\"seats\":[\"A1\"]}").statusCode());
+            assertEquals(201, send(http, "POST", base + "/holds",
+                                   "{\"movieId\":1.0,\"user\":\"ana\",\"seats\":[\"A1\"]}").statusCode());
+
+            HttpBookingClient client = new HttpBookingClient(base);
+            BookingApi.UnknownShowException e =
+                assertThrows(BookingApi.UnknownShowException.class, () -> client.getAvailability(99));
+            assertEquals(99, e.getMovieId());
+            assertThrows(BookingApi.UnknownShowException.class, () -> client.hold(99, "bo", List.of("A2")));
+            assertEquals(SEATS, client.getAvailability(MOVIE).getTotalSeats());
+        }
+    }
+
+    private static HttpResponse<String> send(HttpClient http, String method, String uri, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+            .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
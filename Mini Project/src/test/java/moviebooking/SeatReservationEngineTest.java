@@ -0,0 +1,280 @@
+package moviebooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Many threads holding, confirming, releasing and cancelling seats of one small show at once.
+// Every confirmed seat is claimed in `owners`, so a seat sold twice fails the claim; at the end
+// the seat map's bitset and counters must agree with the claims seat by seat.
+class SeatReservationEngineTest {
+    private static final int THREADS = 16;
+    private static final int SEATS = 64;
+    private static final int MOVIE = 1;
+
+    @Test
+    void holdConfirmCancelFromManyThreadsNeverSellsASeatTwice() throws Exception {
+        SeatReservationEngine engine = new SeatReservationEngine();
+        engine.register(new Movie(MOVIE, "Stress", SEATS));
+        AtomicReferenceArray<String> owners = new AtomicReferenceArray<>(SEATS);
+
+        runThreads(worker -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String user = "user-" + worker;
+            List<Integer> mine = new ArrayList<>();
+            for (int i = 0; i < 5_000; i++) {
+                int[] wanted = random.ints(0, SEATS).distinct().limit(1 + random.nextInt(3)).toArray();
+                SeatReservationEngine.Hold hold = engine.hold(MOVIE, user, wanted);
+                if (hold != null) {
+                    // Some users close the window instead of paying
+                    if (random.nextInt(4) == 0) {
+                        engine.release(hold);
+                    } else {
+                        List<Booking> bookings = engine.confirm(hold);
+                        assertNotNull(bookings, "a live hold could not be confirmed");
+                        for (Booking booking : bookings) {
+                            int seat = Seat.indexOf(booking.getSeatNumber());
+                            assertNull(owners.getAndSet(seat, user), "seat " + seat + " sold twice");
+                            mine.add(seat);
+                        }
+                    }
+                }
+                if (!mine.isEmpty() && random.nextBoolean()) {
+                    int seat = mine.remove(random.nextInt(mine.size()));
+                    // Unclaimed first: nobody else can confirm the seat until cancel() frees it
+                    owners.set(seat, null);
+                    assertTrue(engine.cancel(MOVIE, seat), "own booking of seat " + seat + " was not booked");
+                }
+            }
+        });
+
+        assertSeatsMatch(engine.getSeatMap(MOVIE), owners);
+        assertEquals(engine.remainingSeats(MOVIE), engine.availableSeats(MOVIE), "a hold was left behind");
+    }
+
+    @Test
+    void soldOutShowHasEverySeatSoldExactlyOnce() throws Exception {
+        SeatReservationEngine engine = new SeatReservationEngine();
+        engine.register(new Movie(MOVIE, "Sold out", SEATS));
+        SeatMap map = engine.getSeatMap(MOVIE);
+        AtomicReferenceArray<String> owners = new AtomicReferenceArray<>(SEATS);
+
+        runThreads(worker -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String user = "user-" + worker;
+            while (map.unsoldCount() > 0) {
+                int[] wanted = random.ints(0, SEATS).distinct().limit(1 + random.nextInt(4)).toArray();
+                SeatReservationEngine.Hold hold = engine.hold(MOVIE, user, wanted);
+                if (hold == null) {
+                    continue;
+                }
+                for (Booking booking : engine.confirm(hold)) {
+                    int seat = Seat.indexOf(booking.getSeatNumber());
+                    assertNull(owners.getAndSet(seat, user), "seat " + seat + " sold twice");
+                }
+            }
+        });
+
+        assertEquals(SEATS, map.bookedCount());
+        assertSeatsMatch(map, owners);
+    }
+
+    // A hold that is never confirmed frees its seats once the hold time is up; confirming it
+    // after that fails, since the seat may have gone to someone else.
+    @Test
+    void expiredHoldGivesItsSeatsBack() throws Exception {
+        SeatReservationEngine engine = new SeatReservationEngine(50);
+        engine.register(new Movie(MOVIE, "Expiry", 10));
+        SeatReservationEngine.Hold first = engine.hold(MOVIE, "first", 0, 1);
+        assertNotNull(first);
+        assertNull(engine.hold(MOVIE, "second", 1), "held seat offered to someone else");
+
+        Thread.sleep(100);
+        SeatReservationEngine.Hold second = engine.hold(MOVIE, "second", 1);
+        assertNotNull(second, "expired hold still blocks its seat");
+        assertNotNull(engine.confirm(second));
+        assertNull(engine.confirm(first), "expired hold was confirmed");
+        assertEquals(9, engine.availableSeats(MOVIE));
+    }
+
+    // Through AvailabilityCache every confirm and cancel is also written to SQLite. Threads keep
+    // booking and cancelling the same few seats, so a booking often follows a cancellation of its
+    // seat right away: it must never reach the database ahead of that cancellation's delete.
+    @Test
+    void cancelAndRebookThroughCacheKeepsTheDatabaseInStep(@TempDir Path dir) throws Exception {
+        int seats = 8;
+        try (BookingStore store = openStore(dir, seats)) {
+            AvailabilityCache cache = new AvailabilityCache(store, 4);
+            SeatReservationEngine engine = cache.getEngine();
+            AtomicReferenceArray<String> owners = new AtomicReferenceArray<>(seats);
+
+            runThreads(worker -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                String user = "user-" + worker;
+                for (int i = 0; i < 200; i++) {
+                    int seat = random.nextInt(seats);
+                    SeatReservationEngine.Hold hold = engine.hold(MOVIE, user, seat);
+                    if (hold == null) {
+                        continue;
+                    }
+                    List<Booking> bookings = engine.book(hold).join();
+                    assertNotNull(bookings, "a live hold could not be confirmed");
+                    assertNull(owners.getAndSet(seat, user), "seat " + seat + " sold twice");
+                    if (random.nextInt(4) != 0) {
+                        owners.set(seat, null);
+                        assertTrue(engine.cancelBooking(MOVIE, seat).join(), "own booking of seat " + seat + " was not booked");
+                    }
+                }
+            });
+
+            SeatMap map = engine.getSeatMap(MOVIE);
+            assertSeatsMatch(map, owners);
+            assertEquals(0, cache.getWriteFailures());
+            assertEquals(0, store.getBookingsRejected());
+            int[] inMemory = new int[map.bookedCount()];
+            for (int seat = 0, i = 0; seat < seats; seat++) {
+                if (map.isBooked(seat)) {
+                    inMemory[i++] = seat;
+                }
+            }
+            assertArrayEquals(inMemory, store.getBookedSeats(MOVIE),
+                              "database has " + Arrays.toString(store.getBookedSeats(MOVIE)));
+        }
+    }
+
+    // Another connection holds SQLite's write lock, so the cancellation's delete cannot commit
+    // until it is let go; meanwhile the seat must not be offered to anyone else.
+    @Test
+    void cancelledSeatStaysTakenUntilItsDeleteCommits(@TempDir Path dir) throws Exception {
+        try (BookingStore store = openStore(dir, 4)) {
+            AvailabilityCache cache = new AvailabilityCache(store, 4);
+            SeatReservationEngine engine = cache.getEngine();
+            assertNotNull(engine.book(engine.hold(MOVIE, "alice", 0)).join());
+
+            CompletableFuture<Boolean> cancelled;
+            try (Connection blocker = Database.openConnection()) {
+                blocker.setAutoCommit(false);
+                try (Statement stmt = blocker.createStatement()) {
+                    stmt.executeUpdate("UPDATE movies SET name = name WHERE id = " + MOVIE);
+                }
+                cancelled = engine.cancelBooking(MOVIE, 0);
+                assertFalse(engine.isAvailable(MOVIE, 0));
+                assertNull(engine.hold(MOVIE, "bob", 0), "seat offered before its booking was deleted");
+                assertEquals(3, engine.availableSeats(MOVIE));
+                assertEquals(3, engine.remainingSeats(MOVIE));
+                blocker.rollback();
+            }
+            assertTrue(cancelled.join());
+            assertTrue(engine.isAvailable(MOVIE, 0));
+            assertEquals(4, engine.remainingSeats(MOVIE));
+
+            assertNotNull(engine.book(engine.hold(MOVIE, "bob", 0)).join());
+            assertArrayEquals(new int[]{0}, store.getBookedSeats(MOVIE));
+            assertEquals(0, cache.getWriteFailures());
+        }
+    }
+
+    // The booking's row is already gone when the cancellation runs, so its delete fails; the
+    // seat goes back to BOOKED rather than being offered while the cancellation is unconfirmed.
+    @Test
+    void failedCancellationPutsTheSeatBack(@TempDir Path dir) throws Exception {
+        try (BookingStore store = openStore(dir, 4)) {
+            AvailabilityCache cache = new AvailabilityCache(store, 4);
+            SeatReservationEngine engine = cache.getEngine();
+            assertNotNull(engine.book(engine.hold(MOVIE, "alice", 1)).join());
+            try (Connection other = Database.openConnection();
+                 Statement stmt = other.createStatement()) {
+                stmt.executeUpdate("DELETE FROM bookings WHERE movie_id = " + MOVIE);
+            }
+
+            assertThrows(CompletionException.class, () -> engine.cancelBooking(MOVIE, 1).join());
+            SeatMap map = engine.getSeatMap(MOVIE);
+            assertEquals(SeatMap.BOOKED, map.state(1));
+            assertTrue(map.isBooked(1));
+            assertEquals(3, map.unsoldCount());
+            assertEquals(1, cache.getWriteFailures());
+        }
+    }
+
+    private static BookingStore openStore(Path dir, int seats) throws SQLException {
+        Database.connect("jdbc:sqlite:" + dir.resolve("movies.db"));
+        Database.createTables();
+        Database.addMovie(new Movie(MOVIE, "Cached", seats));
+        return new BookingStore();
+    }
+
+    private static void assertSeatsMatch(SeatMap map, AtomicReferenceArray<String> owners) {
+        int owned = 0;
+        for (int seat = 0; seat < owners.length(); seat++) {
+            boolean sold = owners.get(seat) != null;
+            assertEquals(sold, map.isBooked(seat), "seat " + seat);
+            assertEquals(sold ? SeatMap.BOOKED : SeatMap.FREE, map.state(seat), "state of seat " + seat);
+            if (sold) {
+                owned++;
+            }
+        }
+        assertEquals(owned, map.bookedCount());
+        assertEquals(owners.length() - owned, map.unsoldCount());
+    }
+
+    interface Worker {
+        void run(int worker) throws Exception;
+    }
+
+    // Starts THREADS workers together and rethrows the first failure.
+    private static void runThreads(Worker body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int worker = i;
+                Callable<Void> task = () -> {
+                    start.await();
+                    body.run(worker);
+                    return null;
+                };
+                futures.add(pool.submit(task));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                try {
+                    future.get(60, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
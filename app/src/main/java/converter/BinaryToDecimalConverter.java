@@ -0,0 +1,767 @@
+package converter;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BinaryToDecimalConverter {
+    private JFrame frame;
+    private JTextField binaryInput;
+    private JLabel resultLabel;
+    private ConversionHistoryWriter history;
+    private final ConversionCache cache = new ConversionCache(ConversionCache.DEFAULT_CAPACITY);
+
+    public BinaryToDecimalConverter() {
+        initializeUI();
+        initializeDatabase();
+    }
+
+    private void initializeUI() {
+        frame = new JFrame("Binary to Decimal Converter");
+        frame.setSize(400, 200);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setLayout(new FlowLayout());
+
+        JLabel label = new JLabel("Enter Binary Number:");
+        binaryInput = new JTextField(20);
+        JButton convertButton = new JButton("Convert");
+        JButton topButton = new JButton("Most Converted");
+        resultLabel = new JLabel("Result: ");
+
+        convertButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                convertBinaryToDecimal();
+            }
+        });
+        topButton.addActionListener(e -> showTopConversions());
+
+        frame.add(label);
+        frame.add(binaryInput);
+        frame.add(convertButton);
+        frame.add(topButton);
+        frame.add(resultLabel);
+        frame.setVisible(true);
+    }
+
+    private void convertBinaryToDecimal() {
+        String binaryString = binaryInput.getText().trim();
+        if (!Codec.isBinary(binaryString)) {
+            JOptionPane.showMessageDialog(frame, "Invalid binary number! Enter only 0s and 1s.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        // "0101" and "101" are the same value, so they share a cache entry and a history row
+        String binary = Codec.stripLeadingZeros(binaryString);
+        Number decimalValue = cache.get(binary);
+        if (decimalValue == null) {
+            decimalValue = Codec.toNumber(binary);
+            cache.put(binary, decimalValue);
+        }
+        resultLabel.setText("Result: " + decimalValue);
+        saveConversion(binary, decimalValue);
+    }
+
+    private void showTopConversions() {
+        if (history == null) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        try {
+            for (ConversionHistoryWriter.HistoryEntry entry : history.topConversions(10)) {
+                text.append(entry.hits).append(" x  ").append(entry.binary).append(" = ").append(entry.decimal).append('\n');
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return;
+        }
+        JOptionPane.showMessageDialog(frame, text.length() == 0 ? "No conversions yet." : text.toString(),
+                                      "Most Converted", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private void initializeDatabase() {
+        try {
+            history = new ConversionHistoryWriter("jdbc:sqlite:conversions.db");
+            // Whatever is still queued is written before the JVM exits
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                history.close();
+                System.out.println("Conversion history: " + history.describeMetrics());
+                System.out.println("Conversion cache: " + cache.describeMetrics());
+            }));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Only queues the row: the write happens on the history thread, never on the EDT
+    private void saveConversion(String binary, Number decimal) {
+        if (history != null) {
+            history.record(binary, decimal);
+        }
+    }
+
+    // Usage: BinaryToDecimalConverter                                    the Swing converter
+    //        BinaryToDecimalConverter --batch in out [--to-binary] [--threads n]
+    //                                 convert a file with one number per line ("-" for stdin/stdout)
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && args[0].equals("--batch")) {
+            runBatch(args);
+        } else {
+            SwingUtilities.invokeLater(BinaryToDecimalConverter::new);
+        }
+    }
+
+    private static void runBatch(String[] args) throws Exception {
+        boolean toBinary = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("--to-binary")) {
+                toBinary = true;
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            }
+        }
+        InputStream in = args[1].equals("-") ? System.in : new FileInputStream(args[1]);
+        OutputStream out = args[2].equals("-") ? System.out : new FileOutputStream(args[2]);
+        long start = System.nanoTime();
+        BatchConverter.Result result;
+        try (BatchConverter converter = new BatchConverter(toBinary, threads)) {
+            result = converter.convert(in, out);
+        } finally {
+            in.close();
+            out.flush();
+            if (out != System.out) {
+                out.close();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        // Summary on stderr, so it never mixes with converted output on stdout
+        System.err.printf("Converted %,d lines (%,d invalid) in %.2f s = %,.0f lines/s%n",
+                          result.lines, result.invalid, seconds, result.lines / seconds);
+    }
+
+    /* Write-behind store for the conversion history. record() only puts the row in a bounded
+     * queue; a background thread takes whatever has queued up, up to MAX_BATCH rows, and writes
+     * it in one transaction through a single reused statement. If the queue is full the row is
+     * dropped and counted, so recording never slows a conversion down. close() writes out what
+     * is still queued.
+     *
+     * The history keeps one row per distinct value with a hit count (upserted, so repeats cost
+     * no new rows), indexed by hits for the top-N query. Past MAX_ROWS the least converted,
+     * least recently used values are pruned. The old append-only `conversions` table is folded
+     * into it on first open. */
+    static final class ConversionHistoryWriter implements AutoCloseable {
+        static final int QUEUE_CAPACITY = 10_000;
+        static final int MAX_BATCH = 1_000;
+        static final int MAX_ROWS = 100_000;
+        private static final int PRUNE_EVERY_FLUSHES = 50;
+
+        static final class HistoryEntry {
+            final String binary;
+            final String decimal;
+            final long hits;
+
+            HistoryEntry(String binary, String decimal, long hits) {
+                this.binary = binary;
+                this.decimal = decimal;
+                this.hits = hits;
+            }
+        }
+
+        private static final class Row {
+            final String binary;
+            final Number decimal;
+
+            Row(String binary, Number decimal) {
+                this.binary = binary;
+                this.decimal = decimal;
+            }
+        }
+
+        private static final Row STOP = new Row(null, null);
+
+        private final Connection connection;
+        private final PreparedStatement upsert;
+        // Top-N queries run here, so they never wait for the writer thread's connection
+        private final Connection reader;
+        private final int maxRows;
+        private int flushesSincePrune;
+        private final BlockingQueue<Row> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final Thread writer;
+        private volatile boolean closed;
+
+        private final LongAdder recorded = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder written = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder flushes = new LongAdder();
+        private final LongAdder flushNanos = new LongAdder();
+        private final AtomicLong maxFlushNanos = new AtomicLong();
+        private final LongAdder pruned = new LongAdder();
+
+        ConversionHistoryWriter(String url) throws SQLException {
+            this(url, MAX_ROWS);
+        }
+
+        ConversionHistoryWriter(String url, int maxRows) throws SQLException {
+            this.maxRows = maxRows;
+            connection = DriverManager.getConnection(url);
+            try (Statement stmt = connection.createStatement()) {
+                // WAL lets the top-N query read while a batch is being written
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute("CREATE TABLE IF NOT EXISTS conversion_history (binary TEXT PRIMARY KEY, decimal, "
+                             + "hits INTEGER NOT NULL, last_used INTEGER NOT NULL) WITHOUT ROWID");
+                // Serves both the top-N query (read backwards) and pruning (read forwards)
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_conversion_history_hits ON conversion_history (hits, last_used)");
+            }
+            connection.setAutoCommit(false);
+            migrateConversionsTable();
+            upsert = connection.prepareStatement("INSERT INTO conversion_history (binary, decimal, hits, last_used) "
+                                                 + "VALUES (?, ?, ?, ?) ON CONFLICT (binary) DO UPDATE SET "
+                                                 + "hits = hits + excluded.hits, last_used = excluded.last_used");
+            reader = DriverManager.getConnection(url);
+            writer = new Thread(this::writeLoop, "conversion-history");
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        // Queues the row and returns at once; false if it was dropped.
+        boolean record(String binary, Number decimal) {
+            if (closed || !queue.offer(new Row(binary, decimal))) {
+                dropped.increment();
+                return false;
+            }
+            recorded.increment();
+            return true;
+        }
+
+        // Folds rows of the old one-row-per-conversion table into the history, then drops it.
+        private void migrateConversionsTable() throws SQLException {
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'conversions'")) {
+                if (!rs.next()) {
+                    return;
+                }
+                stmt.executeUpdate("INSERT INTO conversion_history (binary, decimal, hits, last_used) "
+                                   + "SELECT CASE WHEN ltrim(binary, '0') = '' THEN '0' ELSE ltrim(binary, '0') END, "
+                                   + "MAX(decimal), COUNT(*), 0 FROM conversions WHERE binary IS NOT NULL "
+                                   + "GROUP BY 1 ON CONFLICT (binary) DO UPDATE SET hits = hits + excluded.hits");
+                stmt.executeUpdate("DROP TABLE conversions");
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+
+        private void writeLoop() {
+            List<Row> batch = new ArrayList<>(MAX_BATCH);
+            boolean stopping = false;
+            while (!stopping) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    stopping = true;
+                }
+                queue.drainTo(batch, MAX_BATCH - batch.size());
+                if (batch.remove(STOP)) {
+                    stopping = true;
+                }
+                if (stopping) {
+                    // Rows recorded just before close() may still be behind the marker
+                    queue.drainTo(batch);
+                    batch.remove(STOP);
+                }
+                for (int from = 0; from < batch.size(); from += MAX_BATCH) {
+                    flush(batch.subList(from, Math.min(batch.size(), from + MAX_BATCH)));
+                }
+                batch.clear();
+            }
+        }
+
+        private void flush(List<Row> rows) {
+            long start = System.nanoTime();
+            // Repeats within the batch become one upsert with their combined count
+            Map<String, Row> distinct = new LinkedHashMap<>();
+            Map<String, Integer> counts = new HashMap<>();
+            for (Row row : rows) {
+                distinct.putIfAbsent(row.binary, row);
+                counts.merge(row.binary, 1, Integer::sum);
+            }
+            long now = System.currentTimeMillis();
+            try {
+                for (Row row : distinct.values()) {
+                    upsert.setString(1, row.binary);
+                    if (row.decimal instanceof Long) {
+                        upsert.setLong(2, row.decimal.longValue());
+                    } else {
+                        // Too wide for an SQLite integer: kept as its decimal text
+                        upsert.setString(2, row.decimal.toString());
+                    }
+                    upsert.setInt(3, counts.get(row.binary));
+                    upsert.setLong(4, now);
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+                if (++flushesSincePrune >= PRUNE_EVERY_FLUSHES) {
+                    flushesSincePrune = 0;
+                    prune();
+                }
+                connection.commit();
+                written.add(rows.size());
+            } catch (SQLException e) {
+                failed.add(rows.size());
+                e.printStackTrace();
+                try {
+                    upsert.clearBatch();
+                    connection.rollback();
+                } catch (SQLException rollbackError) {
+                    rollbackError.printStackTrace();
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            flushes.increment();
+            flushNanos.add(nanos);
+            maxFlushNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        // Deletes the least converted (then least recently used) values beyond maxRows.
+        private void prune() throws SQLException {
+            long rows;
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM conversion_history")) {
+                rows = rs.next() ? rs.getLong(1) : 0;
+            }
+            if (rows <= maxRows) {
+                return;
+            }
+            try (PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM conversion_history WHERE binary IN (SELECT binary FROM conversion_history "
+                     + "ORDER BY hits, last_used LIMIT ?)")) {
+                delete.setLong(1, rows - maxRows);
+                pruned.add(delete.executeUpdate());
+            }
+        }
+
+        // The n values converted most often, as of the last flush.
+        synchronized List<HistoryEntry> topConversions(int n) throws SQLException {
+            List<HistoryEntry> top = new ArrayList<>(n);
+            try (PreparedStatement pstmt = reader.prepareStatement(
+                     "SELECT binary, decimal, hits FROM conversion_history ORDER BY hits DESC, last_used DESC LIMIT ?")) {
+                pstmt.setInt(1, n);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        top.add(new HistoryEntry(rs.getString(1), rs.getString(2), rs.getLong(3)));
+                    }
+                }
+            }
+            return top;
+        }
+
+        int getQueueDepth() { return queue.size(); }
+        long getRecorded() { return recorded.sum(); }
+        long getDropped() { return dropped.sum(); }
+        long getWritten() { return written.sum(); }
+        long getFailed() { return failed.sum(); }
+        long getFlushes() { return flushes.sum(); }
+        long getPruned() { return pruned.sum(); }
+
+        double getAverageFlushMillis() {
+            long count = flushes.sum();
+            return count == 0 ? 0 : flushNanos.sum() / 1e6 / count;
+        }
+
+        double getMaxFlushMillis() { return maxFlushNanos.get() / 1e6; }
+
+        String describeMetrics() {
+            return String.format("queued %d, recorded %,d, dropped %,d, written %,d, failed %,d, pruned %,d, "
+                                 + "%,d flushes (avg %.2f ms, max %.2f ms)",
+                                 getQueueDepth(), getRecorded(), getDropped(), getWritten(), getFailed(),
+                                 getPruned(), getFlushes(), getAverageFlushMillis(), getMaxFlushMillis());
+        }
+
+        // Writes out everything still queued, then closes the connection. Safe to call twice.
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                queue.put(STOP);
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                upsert.close();
+                connection.close();
+                synchronized (this) {
+                    reader.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /* Bounded LRU map of recent conversions, so values users convert again and again are not
+     * recomputed. Keys are binary text without leading zeros. */
+    static final class ConversionCache {
+        static final int DEFAULT_CAPACITY = 10_000;
+
+        private final int capacity;
+        private final LinkedHashMap<String, Number> entries;
+        // Guarded by this
+        private long hits;
+        private long misses;
+
+        ConversionCache(int capacity) {
+            this.capacity = capacity;
+            this.entries = new LinkedHashMap<String, Number>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Number> eldest) {
+                    return size() > ConversionCache.this.capacity;
+                }
+            };
+        }
+
+        synchronized Number get(String binary) {
+            Number decimal = entries.get(binary);
+            if (decimal == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return decimal;
+        }
+
+        synchronized void put(String binary, Number decimal) {
+            entries.put(binary, decimal);
+        }
+
+        synchronized String describeMetrics() {
+            long lookups = hits + misses;
+            return String.format("%,d / %,d entries, %,d hits, %,d misses, hit rate %.1f%%", entries.size(), capacity,
+                                 hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups);
+        }
+    }
+
+    /* Byte-level conversions between binary and decimal text. A number per line, optionally
+     * signed; up to 63 bits (18 decimal digits) is parsed into a long without allocating,
+     * wider values fall back to BigInteger. */
+    static final class Codec {
+        private static final byte[] INVALID = "invalid".getBytes(StandardCharsets.US_ASCII);
+
+        private Codec() {
+        }
+
+        static boolean isBinary(String s) {
+            if (s.isEmpty()) {
+                return false;
+            }
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c != '0' && c != '1') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // "00101" -> "101"; all zeros -> "0"
+        static String stripLeadingZeros(String binary) {
+            int first = 0;
+            while (first < binary.length() - 1 && binary.charAt(first) == '0') {
+                first++;
+            }
+            return binary.substring(first);
+        }
+
+        // Up to 63 bits fit in a long; anything wider goes through BigInteger
+        static Number toNumber(String binary) {
+            return stripLeadingZeros(binary).length() <= 63 ? (Number) Long.parseLong(binary, 2) : new BigInteger(binary, 2);
+        }
+
+        // Converts the line in[from, to) and appends it plus '\n' to out. Invalid lines are
+        // written as "invalid" so output lines still match input lines; returns false for them.
+        static boolean convertLine(byte[] in, int from, int to, boolean toBinary, OutputBuffer out) {
+            if (to > from && in[to - 1] == '\r') {
+                to--;
+            }
+            boolean negative = to > from && in[from] == '-';
+            int start = negative ? from + 1 : from;
+            while (start < to - 1 && in[start] == '0') {
+                start++;
+            }
+            int mark = out.size;
+            if (negative) {
+                out.put((byte) '-');
+            }
+            boolean ok = toBinary ? decimalToBinary(in, start, to, out) : binaryToDecimal(in, start, to, out);
+            if (!ok) {
+                out.size = mark;
+                out.put(INVALID, 0, INVALID.length);
+            }
+            out.put((byte) '\n');
+            return ok;
+        }
+
+        private static boolean binaryToDecimal(byte[] in, int start, int end, OutputBuffer out) {
+            if (start >= end) {
+                return false;
+            }
+            if (end - start > 63) {
+                for (int i = start; i < end; i++) {
+                    if (in[i] != '0' && in[i] != '1') {
+                        return false;
+                    }
+                }
+                byte[] text = new BigInteger(new String(in, start, end - start, StandardCharsets.US_ASCII), 2)
+                    .toString().getBytes(StandardCharsets.US_ASCII);
+                out.put(text, 0, text.length);
+                return true;
+            }
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                int bit = in[i] - '0';
+                if ((bit & ~1) != 0) {
+                    return false;
+                }
+                value = value << 1 | bit;
+            }
+            out.putDecimal(value);
+            return true;
+        }
+
+        private static boolean decimalToBinary(byte[] in, int start, int end, OutputBuffer out) {
+            if (start >= end) {
+                return false;
+            }
+            if (end - start > 18) {
+                for (int i = start; i < end; i++) {
+                    if (in[i] < '0' || in[i] > '9') {
+                        return false;
+                    }
+                }
+                byte[] text = new BigInteger(new String(in, start, end - start, StandardCharsets.US_ASCII))
+                    .toString(2).getBytes(StandardCharsets.US_ASCII);
+                out.put(text, 0, text.length);
+                return true;
+            }
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = in[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return false;
+                }
+                value = value * 10 + digit;
+            }
+            out.putBinary(value);
+            return true;
+        }
+    }
+
+    /* Growable byte buffer the converted lines are written into, one per chunk. */
+    static final class OutputBuffer {
+        byte[] bytes;
+        int size;
+
+        OutputBuffer(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        void put(byte b) {
+            ensure(1);
+            bytes[size++] = b;
+        }
+
+        void put(byte[] src, int offset, int length) {
+            ensure(length);
+            System.arraycopy(src, offset, bytes, size, length);
+            size += length;
+        }
+
+        // Non-negative value as decimal digits
+        void putDecimal(long value) {
+            int digits = 1;
+            for (long v = value; v >= 10; v /= 10) {
+                digits++;
+            }
+            ensure(digits);
+            int pos = size + digits;
+            do {
+                bytes[--pos] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            size += digits;
+        }
+
+        // Non-negative value as binary digits
+        void putBinary(long value) {
+            int digits = Math.max(1, 64 - Long.numberOfLeadingZeros(value));
+            ensure(digits);
+            for (int bit = digits - 1; bit >= 0; bit--) {
+                bytes[size++] = (byte) ('0' + (int) (value >>> bit & 1));
+            }
+        }
+    }
+
+    /* Streams a file through the Codec: the input is cut into chunks at line boundaries, chunks
+     * are converted on a thread pool, and their output is written in input order, one write per
+     * chunk. At most two chunks per thread are in flight, so memory stays bounded. */
+    static final class BatchConverter implements AutoCloseable {
+        static final int CHUNK_SIZE = 1 << 20;
+
+        static final class Result {
+            long lines;
+            long invalid;
+        }
+
+        private static final class Chunk {
+            final byte[] input;
+            final OutputBuffer output;
+            long lines;
+            long invalid;
+
+            Chunk(byte[] input, OutputBuffer output) {
+                this.input = input;
+                this.output = output;
+            }
+        }
+
+        private final boolean toBinary;
+        private final int threads;
+        private final ExecutorService workers;
+        // Buffers of chunks already written, reused by the next ones
+        private final ArrayDeque<Chunk> spare = new ArrayDeque<>();
+
+        BatchConverter(boolean toBinary, int threads) {
+            this.toBinary = toBinary;
+            this.threads = Math.max(1, threads);
+            this.workers = Executors.newFixedThreadPool(this.threads, r -> {
+                Thread thread = new Thread(r, "binary-batch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        Result convert(InputStream in, OutputStream out) throws IOException, InterruptedException {
+            Result result = new Result();
+            ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+            byte[] carry = new byte[0];
+            int carried = 0;
+            while (true) {
+                Chunk chunk = spare.isEmpty() ? new Chunk(new byte[CHUNK_SIZE], new OutputBuffer(CHUNK_SIZE * 2))
+                                              : spare.poll();
+                byte[] buffer = chunk.input;
+                if (buffer.length < carried + 1) {
+                    buffer = new byte[carried * 2];
+                }
+                System.arraycopy(carry, 0, buffer, 0, carried);
+                int filled = carried;
+                int read = 0;
+                while (filled < buffer.length && (read = in.read(buffer, filled, buffer.length - filled)) > 0) {
+                    filled += read;
+                }
+                boolean eof = read < 0;
+                // Cut after the last complete line; the rest moves to the next chunk. A line longer
+                // than the whole buffer is carried over entirely and gets a bigger buffer next time.
+                int cut = filled;
+                if (!eof) {
+                    while (cut > 0 && buffer[cut - 1] != '\n') {
+                        cut--;
+                    }
+                }
+                carried = filled - cut;
+                if (carry.length < carried) {
+                    carry = new byte[Math.max(carried, CHUNK_SIZE)];
+                }
+                System.arraycopy(buffer, cut, carry, 0, carried);
+                Chunk work = buffer == chunk.input ? chunk : new Chunk(buffer, chunk.output);
+                int length = cut;
+                if (length > 0) {
+                    inFlight.add(workers.submit(() -> convertChunk(work, length)));
+                    if (inFlight.size() >= threads * 2) {
+                        write(inFlight.poll(), out, result);
+                    }
+                } else {
+                    spare.add(work);
+                }
+                if (eof) {
+                    break;
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll(), out, result);
+            }
+            return result;
+        }
+
+        private Chunk convertChunk(Chunk chunk, int length) {
+            chunk.output.size = 0;
+            chunk.lines = 0;
+            chunk.invalid = 0;
+            byte[] in = chunk.input;
+            int lineStart = 0;
+            for (int i = 0; i <= length; i++) {
+                if (i == length ? i > lineStart : in[i] == '\n') {
+                    chunk.lines++;
+                    if (!Codec.convertLine(in, lineStart, i, toBinary, chunk.output)) {
+                        chunk.invalid++;
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            return chunk;
+        }
+
+        private void write(Future<Chunk> pending, OutputStream out, Result result)
+                throws IOException, InterruptedException {
+            Chunk chunk;
+            try {
+                chunk = pending.get();
+            } catch (ExecutionException e) {
+                throw new IOException("Conversion failed", e.getCause());
+            }
+            out.write(chunk.output.bytes, 0, chunk.output.size);
+            result.lines += chunk.lines;
+            result.invalid += chunk.invalid;
+            spare.add(chunk);
+        }
+
+        @Override
+        public void close() {
+            workers.shutdownNow();
+        }
+    }
+}
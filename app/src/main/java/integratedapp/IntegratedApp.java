@@ -0,0 +1,3937 @@
+/*
+ * IntegratedApp.java
+ *
+ * This single-file Java program demonstrates an integrated application that:
+ *   - Offers a Math Quiz (both CLI and GUI versions)
+ *   - Manages expenses with SQLite persistence (GUI version)
+ *   - Generates Excel reports using Apache POI
+ *   - Exports/Imports expense data in JSON format using Jackson
+ *
+ * Required Libraries (versions are managed in the root pom.xml):
+ *   - SQLite JDBC (org.xerial:sqlite-jdbc)
+ *   - Apache POI (org.apache.poi:poi-ooxml)
+ *   - Jackson Databind (com.fasterxml.jackson.core:jackson-databind)
+ *
+ * Build with "mvn package" from the repository root, then run:
+ * java -jar app/target/app.jar
+ * (the dependencies are copied to app/target/lib and referenced from the jar's manifest)
+ */
+
+ package integratedapp;
+
+ import javax.swing.*;
+ import javax.swing.table.AbstractTableModel;
+ import javax.swing.table.DefaultTableModel;
+ import java.awt.*;
+ import java.awt.event.*;
+ import java.io.BufferedReader;
+ import java.io.BufferedWriter;
+ import java.io.Closeable;
+ import java.io.File;
+ import java.io.FileOutputStream;
+ import java.io.IOException;
+ import java.io.InputStreamReader;
+ import java.io.OutputStream;
+ import java.net.InetSocketAddress;
+ import java.nio.charset.StandardCharsets;
+ import java.nio.file.Files;
+ import java.nio.file.Path;
+ import java.nio.file.Paths;
+ import java.nio.file.StandardCopyOption;
+ import java.lang.management.ManagementFactory;
+ import java.sql.*;
+ import javax.management.Attribute;
+ import javax.management.AttributeList;
+ import javax.management.AttributeNotFoundException;
+ import javax.management.DynamicMBean;
+ import javax.management.JMException;
+ import javax.management.MBeanAttributeInfo;
+ import javax.management.MBeanInfo;
+ import javax.management.MBeanOperationInfo;
+ import javax.management.ObjectName;
+ import javax.management.ReflectionException;
+ import java.time.LocalDate;
+ import java.time.LocalTime;
+ import java.time.YearMonth;
+ import java.time.format.DateTimeParseException;
+ import java.util.*;
+ import java.util.List;
+ import java.util.concurrent.*;
+ import java.util.concurrent.atomic.AtomicInteger;
+ import java.util.concurrent.atomic.AtomicLong;
+ import java.util.concurrent.atomic.AtomicLongArray;
+ import java.util.concurrent.atomic.LongAdder;
+ import java.util.function.Consumer;
+ import java.util.function.Function;
+ import java.util.function.IntConsumer;
+ import java.util.function.LongConsumer;
+ import java.util.function.LongSupplier;
+ import org.apache.poi.ss.SpreadsheetVersion;
+ import org.apache.poi.ss.usermodel.*;
+ import org.apache.poi.xssf.streaming.SXSSFSheet;
+ import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+ import com.fasterxml.jackson.core.JsonEncoding;
+ import com.fasterxml.jackson.core.JsonFactory;
+ import com.fasterxml.jackson.core.JsonGenerator;
+ import com.fasterxml.jackson.core.JsonParser;
+ import com.fasterxml.jackson.core.JsonToken;
+ import com.fasterxml.jackson.databind.ObjectMapper;
+ import com.fasterxml.jackson.core.type.TypeReference;
+ import com.sun.net.httpserver.HttpExchange;
+ import com.sun.net.httpserver.HttpServer;
+ 
+ public class IntegratedApp {
+ 
+     /* =================== MAIN METHOD =================== */
+     public static void main(String[] args) {
+         // -Dmetrics.log=<seconds> prints every counter and latency histogram that often
+         Metrics.startLogging(Long.getLong("metrics.log", 0));
+ 
+         // --quiz-server [port] hosts the math quiz over HTTP for many players instead of opening the GUI
+         if (args.length > 0 && args[0].equals("--quiz-server")) {
+             ExpenseManagerDB.initializeDatabase();
+             try {
+                 QuizServer server = new QuizServer(QuizEngine.STANDARD, QuizResults.shared());
+                 server.start(args.length > 1 ? Integer.parseInt(args[1]) : QuizServer.DEFAULT_PORT,
+                              Math.max(8, Runtime.getRuntime().availableProcessors() * 2));
+             } catch (IOException e) {
+                 e.printStackTrace();
+             }
+             return;
+         }
+ 
+         // Create the SQLite database and necessary table (if not exists)
+         ExpenseManagerDB.initializeDatabase();
+ 
+         // --batch <file> (or - for stdin) runs a command file instead of the menus; see CommandBatch
+         if (args.length > 1 && args[0].equals("--batch")) {
+             boolean ok = CommandBatch.runFile(args[1]);
+             ExpenseManagerDB.shutdown();
+             System.exit(ok ? 0 : 1);
+         }
+ 
+         // Uncomment one of the following to run CLI or GUI mode:
+         // runCLI();
+         runGUI();
+     }
+ 
+     /* =================== CLI MODE =================== */
+     public static void runCLI() {
+         Scanner scanner = new Scanner(System.in);
+         while (true) {
+             System.out.println("\n===== Integrated Application (CLI Mode) =====");
+             System.out.println("1. Take a Math Quiz");
+             System.out.println("2. Manage Expenses");
+             System.out.println("3. Generate Expense Excel Report");
+             System.out.println("4. Export Expenses to JSON");
+             System.out.println("5. Import Expenses from JSON");
+             System.out.println("6. Export Expenses to All Formats (JSON, Excel, CSV)");
+             System.out.println("7. Exit");
+             System.out.print("Enter your choice: ");
+ 
+             int choice = Integer.parseInt(scanner.nextLine());
+             switch (choice) {
+                 case 1:
+                     MathQuizCLI.startQuiz(scanner);
+                     break;
+                 case 2:
+                     ExpenseManagerCLI.manageExpenses(scanner);
+                     break;
+                 case 3:
+                     System.out.print("Enter Excel file path to generate report: ");
+                     String excelPath = scanner.nextLine();
+                     ExcelReportGenerator.generateExpenseReportStreaming(excelPath);
+                     break;
+                 case 4:
+                     System.out.print("Enter JSON file path to export expenses: ");
+                     String jsonExportPath = scanner.nextLine();
+                     JSONExportImport.exportExpensesToJSON(jsonExportPath);
+                     break;
+                 case 5:
+                     System.out.print("Enter JSON file path to import expenses: ");
+                     String jsonImportPath = scanner.nextLine();
+                     try {
+                         long saved = JSONExportImport.importExpensesFromJSONStreaming(jsonImportPath);
+                         System.out.println("Imported " + saved + " expenses.");
+                     } catch (IOException | SQLException e) {
+                         System.out.println("Import failed: " + e.getMessage());
+                     }
+                     break;
+                 case 6:
+                     System.out.print("Enter file path prefix for the exports: ");
+                     String prefix = scanner.nextLine();
+                     ExportPipeline.exportAll(prefix + ".json", prefix + ".xlsx", prefix + ".csv");
+                     break;
+                 case 7:
+                     System.out.println("Exiting application.");
+                     scanner.close();
+                     System.exit(0);
+                 default:
+                     System.out.println("Invalid option. Try again.");
+             }
+         }
+     }
+ 
+     /* =================== GUI MODE =================== */
+     public static void runGUI() {
+         // Loads the leaderboard while the window opens, so the quiz screens find it ready
+         BackgroundTasks.submit(progress -> QuizResults.shared(), results -> {}, Throwable::printStackTrace);
+         SwingUtilities.invokeLater(() -> new MainGUI().setVisible(true));
+     }
+ 
+     /* =================== QUIZ ENGINE =================== */
+     // Question generation and grading shared by the quiz CLI, the quiz GUI and the quiz server.
+     // A session is a small object with its own SplittableRandom split off the engine's, so any
+     // number of sessions can run side by side without sharing (or locking) one Random. A single
+     // session is not thread-safe: whoever drives it makes sure one answer is graded at a time.
+     public static class QuizEngine {
+         private static final char[] OPERATIONS = {'+', '-', '*'};
+         // The quiz the CLI, GUI and server give: 5 questions on numbers from 1 to 10
+         public static final QuizEngine STANDARD = new QuizEngine(5, 1, 10);
+ 
+         private final int questionsPerQuiz;
+         private final int minOperand;
+         private final int maxOperand;
+         private final SplittableRandom seeds; // split() is not thread-safe, guarded by this
+ 
+         public QuizEngine(int questionsPerQuiz, int minOperand, int maxOperand) {
+             this(questionsPerQuiz, minOperand, maxOperand, new SplittableRandom());
+         }
+ 
+         public QuizEngine(int questionsPerQuiz, int minOperand, int maxOperand, SplittableRandom seeds) {
+             this.questionsPerQuiz = questionsPerQuiz;
+             this.minOperand = minOperand;
+             this.maxOperand = maxOperand;
+             this.seeds = seeds;
+         }
+ 
+         public Session newSession() {
+             SplittableRandom random;
+             synchronized (this) {
+                 random = seeds.split();
+             }
+             return new Session(random);
+         }
+ 
+         public int getQuestionsPerQuiz() {
+             return questionsPerQuiz;
+         }
+ 
+         public static final class Question {
+             private final int left;
+             private final int right;
+             private final char operation;
+ 
+             Question(int left, int right, char operation) {
+                 this.left = left;
+                 this.right = right;
+                 this.operation = operation;
+             }
+ 
+             public int getLeft() { return left; }
+             public int getRight() { return right; }
+             public char getOperation() { return operation; }
+ 
+             public int answer() {
+                 return switch (operation) {
+                     case '+' -> left + right;
+                     case '-' -> left - right;
+                     case '*' -> left * right;
+                     default -> 0;
+                 };
+             }
+ 
+             public String text() {
+                 return left + " " + operation + " " + right;
+             }
+         }
+ 
+         public class Session {
+             private final SplittableRandom random;
+             private Question current;
+             private int number = 1;
+             private int score;
+ 
+             Session(SplittableRandom random) {
+                 this.random = random;
+                 this.current = nextQuestion();
+             }
+ 
+             private Question nextQuestion() {
+                 return new Question(random.nextInt(minOperand, maxOperand + 1), random.nextInt(minOperand, maxOperand + 1),
+                                     OPERATIONS[random.nextInt(OPERATIONS.length)]);
+             }
+ 
+             // The question to answer now, or null once the quiz is over
+             public Question currentQuestion() {
+                 return isFinished() ? null : current;
+             }
+ 
+             // Grades the answer to the current question and moves on to the next one.
+             public boolean submit(int answer) {
+                 if (isFinished()) {
+                     throw new IllegalStateException("The quiz is already over");
+                 }
+                 boolean correct = answer == current.answer();
+                 if (correct) {
+                     score++;
+                 }
+                 number++;
+                 if (!isFinished()) {
+                     current = nextQuestion();
+                 }
+                 return correct;
+             }
+ 
+             // 1-based number of the current question
+             public int getQuestionNumber() { return Math.min(number, questionsPerQuiz); }
+             public int getScore() { return score; }
+             public int getTotalQuestions() { return questionsPerQuiz; }
+             public boolean isFinished() { return number > questionsPerQuiz; }
+         }
+     }
+ 
+     /* =================== QUIZ SERVER (HTTP) =================== */
+     // Hosts quiz sessions for many players at once. A session is only an entry in a map, and each
+     // request is one event handled on a small worker pool, so an idle session holds no thread and
+     // tens of thousands of them fit in one JVM:
+     //   POST /quiz               start a session -> {"id":1,"score":0,"total":5,"number":1,"question":"3 + 4"};
+     //                            the body, if any, is the player's name for the leaderboard
+     //   GET  /quiz/{id}          the same for the question the session is on
+     //   GET  /quiz/leaderboard   the top 10 -> [{"player":"ana","score":5,"total":5},...]
+     //   POST /quiz/{id}/answer   body is the answer -> {"id":1,"correct":true,"answer":7,"score":1,"total":5,
+     //                            then the next question, or "finished":true once the last one is graded}
+     // Sessions left idle for SESSION_TIMEOUT_MILLIS are dropped.
+     public static class QuizServer implements AutoCloseable {
+         public static final int DEFAULT_PORT = 8090;
+         static final long SESSION_TIMEOUT_MILLIS = 10 * 60 * 1000;
+ 
+         static {
+             // Same as the booking server: without TCP_NODELAY each response waits out the
+             // client's delayed ACK. Must be set before the JDK server classes load.
+             if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+                 System.setProperty("sun.net.httpserver.nodelay", "true");
+             }
+         }
+ 
+         private static final class Entry {
+             final QuizEngine.Session session;
+             final String player;
+             volatile long lastActive = System.currentTimeMillis();
+ 
+             Entry(QuizEngine.Session session, String player) {
+                 this.session = session;
+                 this.player = player;
+             }
+         }
+ 
+         private final QuizEngine engine;
+         private final QuizResults results; // null: finished quizzes are not kept
+         private final ConcurrentHashMap<Long, Entry> sessions = new ConcurrentHashMap<>();
+         private final AtomicLong nextId = new AtomicLong();
+         private final LongAdder started = new LongAdder();
+         private final LongAdder finished = new LongAdder();
+         private final LongAdder answers = new LongAdder();
+         private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+             Thread thread = new Thread(r, "quiz-session-sweeper");
+             thread.setDaemon(true);
+             return thread;
+         });
+         private HttpServer server;
+         private ExecutorService workers;
+ 
+         public QuizServer(QuizEngine engine) {
+             this(engine, null);
+         }
+ 
+         public QuizServer(QuizEngine engine, QuizResults results) {
+             this.engine = engine;
+             this.results = results;
+             sweeper.scheduleWithFixedDelay(this::sweepIdleSessions, 1, 1, TimeUnit.MINUTES);
+         }
+ 
+         // Serves the sessions over HTTP; until then they can still be driven in-process.
+         public void start(int port, int threads) throws IOException {
+             AtomicInteger count = new AtomicInteger();
+             workers = Executors.newFixedThreadPool(threads, r -> {
+                 Thread thread = new Thread(r, "quiz-http-" + count.incrementAndGet());
+                 thread.setDaemon(true);
+                 return thread;
+             });
+             server = HttpServer.create(new InetSocketAddress(port), 1024);
+             server.createContext("/quiz", this::handle);
+             server.setExecutor(workers);
+             server.start();
+             System.out.println("Quiz server listening on port " + getPort());
+         }
+ 
+         public int getPort() {
+             return server.getAddress().getPort();
+         }
+ 
+         /* ---- Events: one per request, callable from any thread ---- */
+ 
+         public String startSession() {
+             return startSession(null);
+         }
+ 
+         // A named player's final score goes to the leaderboard; anonymous ones are not kept.
+         public String startSession(String player) {
+             long id = nextId.incrementAndGet();
+             Entry entry = new Entry(engine.newSession(), player);
+             sessions.put(id, entry);
+             started.increment();
+             return stateJson(id, entry.session, "");
+         }
+ 
+         public String status(long id) {
+             Entry entry = entry(id);
+             synchronized (entry.session) {
+                 return stateJson(id, entry.session, "");
+             }
+         }
+ 
+         public String answer(long id, int answer) {
+             Entry entry = entry(id);
+             String reply;
+             boolean over;
+             int score;
+             int total;
+             synchronized (entry.session) {
+                 QuizEngine.Session session = entry.session;
+                 if (session.isFinished()) {
+                     throw new IllegalStateException("Quiz " + id + " is already over");
+                 }
+                 int expected = session.currentQuestion().answer();
+                 boolean correct = session.submit(answer);
+                 answers.increment();
+                 over = session.isFinished();
+                 if (over) {
+                     // Finished sessions are dropped right away; the reply carries the final score
+                     sessions.remove(id);
+                     finished.increment();
+                 }
+                 score = session.getScore();
+                 total = session.getTotalQuestions();
+                 reply = stateJson(id, session, ",\"correct\":" + correct + ",\"answer\":" + expected);
+             }
+             // Outside the session lock: record() waits when the writer's queue is full
+             if (over && results != null && entry.player != null) {
+                 results.record(entry.player, score, total);
+             }
+             return reply;
+         }
+ 
+         private Entry entry(long id) {
+             Entry entry = sessions.get(id);
+             if (entry == null) {
+                 throw new IllegalArgumentException("No such quiz: " + id);
+             }
+             entry.lastActive = System.currentTimeMillis();
+             return entry;
+         }
+ 
+         private static String stateJson(long id, QuizEngine.Session session, String graded) {
+             StringBuilder json = new StringBuilder("{\"id\":").append(id).append(graded)
+                 .append(",\"score\":").append(session.getScore())
+                 .append(",\"total\":").append(session.getTotalQuestions());
+             if (session.isFinished()) {
+                 json.append(",\"finished\":true");
+             } else {
+                 json.append(",\"number\":").append(session.getQuestionNumber())
+                     .append(",\"question\":\"").append(session.currentQuestion().text()).append('"');
+             }
+             return json.append('}').toString();
+         }
+ 
+         private void sweepIdleSessions() {
+             long cutoff = System.currentTimeMillis() - SESSION_TIMEOUT_MILLIS;
+             sessions.values().removeIf(entry -> entry.lastActive < cutoff);
+         }
+ 
+         public int getOpenSessions() { return sessions.size(); }
+         public long getStarted() { return started.sum(); }
+         public long getFinished() { return finished.sum(); }
+         public long getAnswers() { return answers.sum(); }
+ 
+         /* ---- HTTP ---- */
+ 
+         private void handle(HttpExchange exchange) throws IOException {
+             String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+             String method = exchange.getRequestMethod();
+             try {
+                 if (path.length == 1 && method.equals("POST")) {
+                     String player = readBody(exchange);
+                     send(exchange, 201, startSession(player.isEmpty() ? null : player));
+                 } else if (path.length == 2 && path[1].equals("leaderboard") && method.equals("GET")) {
+                     send(exchange, 200, leaderboardJson());
+                 } else if (path.length == 2 && method.equals("GET")) {
+                     send(exchange, 200, status(Long.parseLong(path[1])));
+                 } else if (path.length == 3 && path[2].equals("answer") && method.equals("POST")) {
+                     send(exchange, 200, answer(Long.parseLong(path[1]), Integer.parseInt(readBody(exchange))));
+                 } else {
+                     send(exchange, 404, "{\"error\":\"No such endpoint\"}");
+                 }
+             } catch (NumberFormatException e) {
+                 send(exchange, 400, "{\"error\":\"Expected a number\"}");
+             } catch (IllegalArgumentException e) {
+                 send(exchange, 404, "{\"error\":\"" + e.getMessage() + "\"}");
+             } catch (IllegalStateException e) {
+                 send(exchange, 409, "{\"error\":\"" + e.getMessage() + "\"}");
+             }
+         }
+ 
+         private String leaderboardJson() {
+             StringBuilder json = new StringBuilder("[");
+             if (results != null) {
+                 for (Leaderboard.Entry entry : results.leaderboard().top(10)) {
+                     if (json.length() > 1) {
+                         json.append(',');
+                     }
+                     json.append("{\"player\":\"").append(entry.getPlayer().replace("\\", "\\\\").replace("\"", "\\\""))
+                         .append("\",\"score\":").append(entry.getScore())
+                         .append(",\"total\":").append(entry.getTotal()).append('}');
+                 }
+             }
+             return json.append(']').toString();
+         }
+ 
+         private static String readBody(HttpExchange exchange) throws IOException {
+             try (java.io.InputStream in = exchange.getRequestBody()) {
+                 return new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+             }
+         }
+ 
+         private static void send(HttpExchange exchange, int status, String json) throws IOException {
+             byte[] body = json.getBytes(StandardCharsets.UTF_8);
+             exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+             exchange.sendResponseHeaders(status, body.length);
+             try (java.io.OutputStream out = exchange.getResponseBody()) {
+                 out.write(body);
+             }
+         }
+ 
+         @Override
+         public void close() {
+             sweeper.shutdownNow();
+             if (server != null) {
+                 server.stop(0);
+                 workers.shutdown();
+             }
+         }
+     }
+ 
+     /* =================== QUIZ RESULTS & LEADERBOARD =================== */
+     // Best result per player, ranked. Results are compared by the share of questions answered
+     // right (score / total), so 5/5 beats 5/10 when quizzes differ in length. Entries sit in a
+     // ConcurrentSkipListSet ordered by that share, then by who got there first, so an update is
+     // an O(log n) insert plus remove and top(k) walks the first k nodes. A skip list cannot count
+     // the nodes ahead of a given one without walking them, so rank() comes from a count of players
+     // per share instead: with a handful of quiz lengths that map stays a handful of entries.
+     // Readers never lock.
+     public static class Leaderboard {
+         public static final class Entry {
+             private final String player;
+             private final int score;
+             private final int total;
+             // score / total; equal fractions divide to the same double, so 1/2 and 2/4 tie
+             private final double ratio;
+             private final long sequence; // when the score was reached; earlier ranks first
+ 
+             Entry(String player, int score, int total, long sequence) {
+                 this.player = player;
+                 this.score = score;
+                 this.total = total;
+                 this.ratio = (double) score / total;
+                 this.sequence = sequence;
+             }
+ 
+             public String getPlayer() { return player; }
+             public int getScore() { return score; }
+             public int getTotal() { return total; }
+         }
+ 
+         private static final Comparator<Entry> ORDER =
+             Comparator.comparingDouble((Entry entry) -> -entry.ratio).thenComparingLong(entry -> entry.sequence);
+ 
+         private final ConcurrentHashMap<String, Entry> best = new ConcurrentHashMap<>();
+         private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+         private final ConcurrentSkipListMap<Double, LongAdder> playersByRatio =
+             new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+         private final AtomicLong sequence = new AtomicLong();
+ 
+         // Keeps the result if it beats the player's best share so far; returns whether it did.
+         public boolean update(String player, int score, int total) {
+             if (total <= 0 || score < 0 || score > total) {
+                 throw new IllegalArgumentException("Not a quiz result: " + score + "/" + total);
+             }
+             double ratio = (double) score / total;
+             boolean[] improved = new boolean[1];
+             // compute() serializes updates for one player; different players never wait on each other
+             best.compute(player, (name, old) -> {
+                 if (old != null && old.ratio >= ratio) {
+                     return old;
+                 }
+                 Entry entry = new Entry(name, score, total, sequence.incrementAndGet());
+                 // Added before the old entry goes, so a concurrent reader never misses the player
+                 ranking.add(entry);
+                 playersByRatio.computeIfAbsent(ratio, r -> new LongAdder()).increment();
+                 if (old != null) {
+                     ranking.remove(old);
+                     playersByRatio.get(old.ratio).decrement();
+                 }
+                 improved[0] = true;
+                 return entry;
+             });
+             return improved[0];
+         }
+ 
+         // While update() swaps a player's entries both may be in the ranking; the first one met is
+         // the better result, and the other is skipped.
+         public List<Entry> top(int k) {
+             List<Entry> top = new ArrayList<>(k);
+             Set<String> seen = new HashSet<>();
+             for (Entry entry : ranking) {
+                 if (top.size() == k) {
+                     break;
+                 }
+                 if (seen.add(entry.player)) {
+                     top.add(entry);
+                 }
+             }
+             return top;
+         }
+ 
+         // 1 + the number of players with a better share (ties share a rank), or 0 if the
+         // player has no result yet.
+         public int rank(String player) {
+             Entry entry = best.get(player);
+             if (entry == null) {
+                 return 0;
+             }
+             long above = 0;
+             for (LongAdder count : playersByRatio.headMap(entry.ratio).values()) {
+                 above += count.sum();
+             }
+             return (int) above + 1;
+         }
+ 
+         public Entry best(String player) {
+             return best.get(player);
+         }
+ 
+         public int size() {
+             return best.size();
+         }
+     }
+ 
+     // Every finished quiz is kept in the quiz_results table of the expenses database. record()
+     // updates the leaderboard and queues the row; a writer thread stores queued rows in batched
+     // transactions, so a burst of results costs one commit per batch instead of one per quiz.
+     // The queue is bounded and record() waits when it is full: results are never dropped.
+     public static class QuizResults implements AutoCloseable {
+         static final String[] SCHEMA_SQL = {
+             "CREATE TABLE IF NOT EXISTS quiz_results (id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                 "player TEXT NOT NULL, score INTEGER NOT NULL, total INTEGER NOT NULL, finished_at INTEGER NOT NULL)",
+             "CREATE INDEX IF NOT EXISTS idx_quiz_results_player ON quiz_results(player, score)"
+         };
+         private static final String INSERT_SQL =
+             "INSERT INTO quiz_results (player, score, total, finished_at) VALUES (?, ?, ?, ?)";
+         private static final int QUEUE_CAPACITY = 100_000;
+         static final int BATCH_SIZE = 1000;
+ 
+         private static final class Result {
+             final String player;
+             final int score;
+             final int total;
+             final long finishedAt;
+ 
+             Result(String player, int score, int total, long finishedAt) {
+                 this.player = player;
+                 this.score = score;
+                 this.total = total;
+                 this.finishedAt = finishedAt;
+             }
+         }
+ 
+         private static final Result STOP = new Result("", 0, 0, 0);
+         private static QuizResults shared;
+ 
+         // Results for the app's own database, opened on first use.
+         public static QuizResults shared() {
+             // The pool is fetched first: shutdown() holds the database lock when it calls closeShared()
+             ConnectionPool pool = ExpenseManagerDB.pool();
+             synchronized (QuizResults.class) {
+                 if (shared == null) {
+                     shared = new QuizResults(pool);
+                 }
+                 return shared;
+             }
+         }
+ 
+         // Called before the connection pool closes so queued results still reach the database.
+         static void closeShared() {
+             QuizResults results;
+             synchronized (QuizResults.class) {
+                 results = shared;
+                 shared = null;
+             }
+             if (results != null) {
+                 results.close();
+             }
+         }
+ 
+         private final ConnectionPool pool;
+         private final Leaderboard leaderboard = new Leaderboard();
+         private final BlockingQueue<Result> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+         private static final Metrics.Histogram LOAD = Metrics.histogram("db.quizResults.load");
+         private static final Metrics.Histogram WRITE = Metrics.histogram("db.quizResults.write");
+         private final AtomicLong queued = new AtomicLong();
+         private final AtomicLong written = new AtomicLong(); // includes rows lost to a failed batch
+         private final Thread writer;
+ 
+         public QuizResults(ConnectionPool pool) {
+             this.pool = pool;
+             loadLeaderboard();
+             writer = new Thread(this::writeLoop, "quiz-results-writer");
+             writer.setDaemon(true);
+             writer.start();
+         }
+ 
+         // Rebuilds the leaderboard from the best stored result of each player. Players are replayed
+         // in the order they first reached their best share, so ties rank as they did before.
+         private void loadLeaderboard() {
+             String sql = "SELECT player, score, total, MIN(id) AS reached FROM quiz_results r " +
+                          "WHERE total > 0 AND score BETWEEN 0 AND total AND score * 1.0 / total = " +
+                          "(SELECT MAX(score * 1.0 / total) FROM quiz_results WHERE player = r.player) " +
+                          "GROUP BY player ORDER BY reached";
+             try (PooledConnection pc = pool.acquire(LOAD);
+                  ResultSet rs = pc.prepare(sql).executeQuery()) {
+                 while (rs.next()) {
+                     leaderboard.update(rs.getString(1), rs.getInt(2), rs.getInt(3));
+                 }
+             } catch (SQLException e) {
+                 e.printStackTrace();
+             }
+         }
+ 
+         // Ranks the result right away and queues it to be stored. A score outside 0..total is
+         // rejected with an IllegalArgumentException and not stored.
+         public void record(String player, int score, int total) {
+             leaderboard.update(player, score, total);
+             try {
+                 queue.put(new Result(player, score, total, System.currentTimeMillis()));
+                 queued.incrementAndGet();
+             } catch (InterruptedException e) {
+                 Thread.currentThread().interrupt();
+             }
+         }
+ 
+         public Leaderboard leaderboard() {
+             return leaderboard;
+         }
+ 
+         private void writeLoop() {
+             List<Result> batch = new ArrayList<>(BATCH_SIZE);
+             boolean running = true;
+             while (running) {
+                 try {
+                     batch.add(queue.take());
+                 } catch (InterruptedException e) {
+                     break;
+                 }
+                 queue.drainTo(batch, BATCH_SIZE - 1);
+                 if (batch.remove(STOP)) {
+                     running = false;
+                 }
+                 if (!batch.isEmpty()) {
+                     writeBatch(batch);
+                 }
+                 synchronized (this) {
+                     written.addAndGet(batch.size());
+                     notifyAll();
+                 }
+                 batch.clear();
+             }
+         }
+ 
+         private void writeBatch(List<Result> batch) {
+             try (PooledConnection pc = pool.acquire(WRITE)) {
+                 Connection conn = pc.connection();
+                 PreparedStatement pstmt = pc.prepare(INSERT_SQL);
+                 conn.setAutoCommit(false);
+                 try {
+                     for (Result result : batch) {
+                         pstmt.setString(1, result.player);
+                         pstmt.setInt(2, result.score);
+                         pstmt.setInt(3, result.total);
+                         pstmt.setLong(4, result.finishedAt);
+                         pstmt.addBatch();
+                     }
+                     pstmt.executeBatch();
+                     conn.commit();
+                 } catch (SQLException e) {
+                     pstmt.clearBatch();
+                     conn.rollback();
+                     throw e;
+                 } finally {
+                     conn.setAutoCommit(true);
+                 }
+             } catch (SQLException e) {
+                 e.printStackTrace();
+             }
+         }
+ 
+         // Waits until everything recorded so far has been written.
+         public void flush() {
+             long target = queued.get();
+             synchronized (this) {
+                 while (written.get() < target && writer.isAlive()) {
+                     try {
+                         wait(100);
+                     } catch (InterruptedException e) {
+                         Thread.currentThread().interrupt();
+                         return;
+                     }
+                 }
+             }
+         }
+ 
+         public long getQueued() { return queued.get(); }
+         public long getWritten() { return written.get(); }
+ 
+         @Override
+         public void close() {
+             if (!writer.isAlive()) {
+                 return;
+             }
+             try {
+                 queue.put(STOP);
+                 writer.join();
+             } catch (InterruptedException e) {
+                 Thread.currentThread().interrupt();
+             }
+         }
+     }
+ 
+     /* =================== MATH QUIZ (CLI) =================== */
+     public static class MathQuizCLI {
+         public static void startQuiz(Scanner scanner) {
+             System.out.print("Enter your name for the leaderboard: ");
+             String player = scanner.nextLine().trim();
+             if (player.isEmpty()) {
+                 player = System.getProperty("user.name");
+             }
+             QuizEngine.Session quiz = QuizEngine.STANDARD.newSession();
+             while (!quiz.isFinished()) {
+                 QuizEngine.Question question = quiz.currentQuestion();
+                 System.out.printf("Question %d: %s = ?%n", quiz.getQuestionNumber(), question.text());
+                 int userAnswer = Integer.parseInt(scanner.nextLine());
+                 if (quiz.submit(userAnswer)) {
+                     System.out.println("Correct!");
+                 } else {
+                     System.out.println("Wrong! The correct answer is " + question.answer());
+                 }
+             }
+             System.out.println("Quiz Over! Your Score: " + quiz.getScore() + "/" + quiz.getTotalQuestions());
+ 
+             QuizResults results = QuizResults.shared();
+             results.record(player, quiz.getScore(), quiz.getTotalQuestions());
+             Leaderboard leaderboard = results.leaderboard();
+             System.out.println("Your leaderboard rank: #" + leaderboard.rank(player) + " of " + leaderboard.size());
+             System.out.println("===== Top 5 =====");
+             int place = 1;
+             for (Leaderboard.Entry entry : leaderboard.top(5)) {
+                 System.out.printf("%d. %s %d/%d%n", place++, entry.getPlayer(), entry.getScore(), entry.getTotal());
+             }
+         }
+     }
+ 
+     /* =================== EXPENSE MANAGER (CLI) =================== */
+     public static class ExpenseManagerCLI {
+         public static void manageExpenses(Scanner scanner) {
+             while (true) {
+                 System.out.println("\n===== Expense Manager (CLI) =====");
+                 System.out.println("1. Add Expense");
+                 System.out.println("2. View Expenses");
+                 System.out.println("3. Delete Expense");
+                 System.out.println("4. View Expenses by Date Range");
+                 System.out.println("5. View Expenses by Category");
+                 System.out.println("6. View Totals");
+                 System.out.println("7. Go Back");
+                 System.out.print("Enter your choice: ");
+ 
+                 int choice = Integer.parseInt(scanner.nextLine());
+                 switch (choice) {
+                     case 1:
+                         System.out.print("Enter category: ");
+                         String category = scanner.nextLine();
+                         System.out.print("Enter amount: ");
+                         double amount = Double.parseDouble(scanner.nextLine());
+                         System.out.print("Enter date (YYYY-MM-DD): ");
+                         String date = scanner.nextLine();
+                         ExpenseManagerDB.addExpense(category, amount, date);
+                         break;
+                     case 2:
+                         ExpenseManagerDB.viewExpenses();
+                         break;
+                     case 3:
+                         System.out.print("Enter expense ID to delete: ");
+                         int id = Integer.parseInt(scanner.nextLine());
+                         ExpenseManagerDB.deleteExpense(id);
+                         break;
+                     case 4:
+                         try {
+                             LocalDate from = readDate(scanner, "Enter start date (YYYY-MM-DD): ");
+                             LocalDate to = readDate(scanner, "Enter end date (YYYY-MM-DD): ");
+                             printExpenses(ExpenseManagerDB.getExpensesBetween(from, to));
+                         } catch (DateTimeParseException e) {
+                             System.out.println("Invalid date.");
+                         }
+                         break;
+                     case 5:
+                         System.out.print("Enter category: ");
+                         String searchCategory = scanner.nextLine();
+                         try {
+                             LocalDate from = readDate(scanner, "Enter start date (YYYY-MM-DD, blank for any): ");
+                             LocalDate to = readDate(scanner, "Enter end date (YYYY-MM-DD, blank for any): ");
+                             printExpenses(ExpenseManagerDB.getExpensesByCategory(searchCategory, from, to));
+                         } catch (DateTimeParseException e) {
+                             System.out.println("Invalid date.");
+                         }
+                         break;
+                     case 6:
+                         printTotals();
+                         break;
+                     case 7:
+                         return;
+                     default:
+                         System.out.println("Invalid choice.");
+                 }
+             }
+         }
+ 
+         private static void printTotals() {
+             System.out.println("\n===== Totals by Category =====");
+             for (Map.Entry<String, Double> entry : ExpenseSummary.totalsByCategory().entrySet()) {
+                 System.out.printf("%s: ₹%.2f%n", entry.getKey(), entry.getValue());
+             }
+             System.out.println("\n===== Totals by Month =====");
+             for (Map.Entry<YearMonth, Double> entry : ExpenseSummary.totalsByMonth().entrySet()) {
+                 System.out.printf("%s: ₹%.2f%n", entry.getKey(), entry.getValue());
+             }
+             System.out.printf("%nGrand total: ₹%.2f across %d expense(s)%n",
+                               ExpenseSummary.grandTotal(), ExpenseSummary.expenseCount());
+         }
+ 
+         // Blank input means "no bound".
+         private static LocalDate readDate(Scanner scanner, String prompt) {
+             System.out.print(prompt);
+             String text = scanner.nextLine().trim();
+             return text.isEmpty() ? null : LocalDate.parse(text);
+         }
+ 
+         private static void printExpenses(List<Expense> expenses) {
+             System.out.println("\n===== Expense List =====");
+             for (Expense exp : expenses) {
+                 System.out.printf("%d. %s | ₹%.2f | %s%n",
+                                   exp.getId(), exp.getCategory(), exp.getAmount(), exp.getDate());
+             }
+             System.out.println(expenses.size() + " expense(s) found.");
+         }
+     }
+ 
+     /* =================== CLI BATCH MODE =================== */
+     // Runs a command file (or stdin) without the menus, for scripted maintenance:
+     //   java -jar app.jar --batch commands.txt      (or "-" for stdin)
+     // One command per line, fields separated by commas; blank lines and # comments are skipped.
+     //   add,<amount>,<date>,<category>     category last, so it may itself contain commas
+     //   delete,<id>
+     //   export,json|xlsx|csv,<path>
+     //   export,all,<path prefix>           .json, .xlsx and .csv in one pass
+     //   import,<json path>
+     // Adds and deletes share one transaction on one connection, committed every batchSize
+     // mutations and before each export or import so those see every earlier line. A line that
+     // cannot be parsed is reported and skipped; a database error, or an export or import that
+     // fails, rolls back the open transaction and stops the run.
+     public static class CommandBatch {
+         private static final String INSERT_SQL =
+             "INSERT INTO expenses (category, amount, date, date_epoch) VALUES (?, ?, ?, ?)";
+         private static final String DELETE_SQL = "DELETE FROM expenses WHERE id = ?";
+         private static final Metrics.Histogram CONNECTION = Metrics.histogram("db.commandBatch");
+ 
+         private final int batchSize;
+         private long lines, added, deleted, notFound, exported, imported, skipped, transactions;
+         private long pending;      // mutations in the open transaction
+         private int pendingAdds;   // rows in the insert statement's JDBC batch
+         private int pendingDeletes;
+         private PooledConnection pc;
+ 
+         public CommandBatch() {
+             this(ExpenseManagerDB.DEFAULT_BATCH_SIZE);
+         }
+ 
+         public CommandBatch(int batchSize) {
+             if (batchSize < 1) {
+                 throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+             }
+             this.batchSize = batchSize;
+         }
+ 
+         // "-" reads stdin. Returns false if the run was stopped by an error.
+         public static boolean runFile(String path) {
+             try (BufferedReader in = path.equals("-")
+                     ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                     : Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+                 return new CommandBatch().run(in);
+             } catch (IOException e) {
+                 e.printStackTrace();
+                 return false;
+             }
+         }
+ 
+         public boolean run(BufferedReader in) throws IOException {
+             long start = System.nanoTime();
+             boolean ok = true;
+             try {
+                 String line;
+                 while ((line = in.readLine()) != null) {
+                     lines++;
+                     try {
+                         execute(line);
+                     } catch (IllegalArgumentException e) {
+                         skipped++;
+                         System.out.println("Line " + lines + " skipped: " + e.getMessage());
+                     }
+                 }
+                 commit();
+             } catch (SQLException e) {
+                 ok = false;
+                 System.out.println("Line " + lines + " failed, " + pending + " uncommitted change(s) rolled back: "
+                                    + e.getMessage());
+                 rollback();
+             } finally {
+                 if (pc != null) {
+                     pc.close();
+                     pc = null;
+                 }
+             }
+             printSummary(System.nanoTime() - start);
+             return ok;
+         }
+ 
+         private void execute(String line) throws SQLException {
+             int end = line.length();
+             int from = 0;
+             while (from < end && line.charAt(from) <= ' ') {
+                 from++;
+             }
+             if (from == end || line.charAt(from) == '#') {
+                 return;
+             }
+             int comma = line.indexOf(',', from);
+             String command = line.substring(from, comma < 0 ? end : comma).trim();
+             switch (command) {
+                 case "add": {
+                     int amountEnd = field(line, comma);
+                     int dateEnd = field(line, amountEnd);
+                     double amount = parseAmount(line.substring(comma + 1, amountEnd).trim());
+                     String date = line.substring(amountEnd + 1, dateEnd).trim();
+                     String category = line.substring(dateEnd + 1).trim();
+                     add(category, amount, date);
+                     break;
+                 }
+                 case "delete":
+                     delete(parseId(rest(line, comma)));
+                     break;
+                 case "export": {
+                     int formatEnd = field(line, comma);
+                     export(line.substring(comma + 1, formatEnd).trim(), line.substring(formatEnd + 1).trim());
+                     break;
+                 }
+                 case "import":
+                     importJson(rest(line, comma));
+                     break;
+                 default:
+                     throw new IllegalArgumentException("unknown command \"" + command + "\"");
+             }
+         }
+ 
+         // End of the field that starts after the comma at `comma`; the next comma must exist.
+         private static int field(String line, int comma) {
+             int next = comma < 0 ? -1 : line.indexOf(',', comma + 1);
+             if (next < 0) {
+                 throw new IllegalArgumentException("missing field");
+             }
+             return next;
+         }
+ 
+         private static String rest(String line, int comma) {
+             if (comma < 0) {
+                 throw new IllegalArgumentException("missing field");
+             }
+             return line.substring(comma + 1).trim();
+         }
+ 
+         private static double parseAmount(String text) {
+             try {
+                 return Double.parseDouble(text);
+             } catch (NumberFormatException e) {
+                 throw new IllegalArgumentException("bad amount \"" + text + "\"");
+             }
+         }
+ 
+         private static int parseId(String text) {
+             int id = 0;
+             if (text.isEmpty() || text.length() > 9) {
+                 throw new IllegalArgumentException("bad id \"" + text + "\"");
+             }
+             for (int i = 0; i < text.length(); i++) {
+                 char c = text.charAt(i);
+                 if (c < '0' || c > '9') {
+                     throw new IllegalArgumentException("bad id \"" + text + "\"");
+                 }
+                 id = id * 10 + (c - '0');
+             }
+             return id;
+         }
+ 
+         private PooledConnection connection() throws SQLException {
+             if (pc == null) {
+                 pc = ExpenseManagerDB.pool().acquire(CONNECTION);
+             }
+             if (pending == 0) {
+                 pc.connection().setAutoCommit(false);
+             }
+             return pc;
+         }
+ 
+         private void add(String category, double amount, String date) throws SQLException {
+             PooledConnection conn = connection();
+             // Deletes queued earlier must run first, or a delete of the row added here could miss it
+             flushDeletes();
+             PreparedStatement pstmt = conn.prepare(INSERT_SQL);
+             pstmt.setString(1, category);
+             pstmt.setDouble(2, amount);
+             ExpenseManagerDB.setDateParams(pstmt, 3, date);
+             pstmt.addBatch();
+             pendingAdds++;
+             mutated();
+         }
+ 
+         private void delete(int id) throws SQLException {
+             PooledConnection conn = connection();
+             flushAdds();
+             PreparedStatement pstmt = conn.prepare(DELETE_SQL);
+             pstmt.setInt(1, id);
+             pstmt.addBatch();
+             pendingDeletes++;
+             mutated();
+         }
+ 
+         private void mutated() throws SQLException {
+             if (++pending >= batchSize) {
+                 commit();
+             }
+         }
+ 
+         private void flushAdds() throws SQLException {
+             if (pendingAdds > 0) {
+                 pc.prepare(INSERT_SQL).executeBatch();
+                 added += pendingAdds;
+                 pendingAdds = 0;
+             }
+         }
+ 
+         private void flushDeletes() throws SQLException {
+             if (pendingDeletes > 0) {
+                 for (int count : pc.prepare(DELETE_SQL).executeBatch()) {
+                     if (count > 0) {
+                         deleted++;
+                     } else {
+                         notFound++;
+                     }
+                 }
+                 pendingDeletes = 0;
+             }
+         }
+ 
+         private void commit() throws SQLException {
+             if (pending == 0) {
+                 return;
+             }
+             flushAdds();
+             flushDeletes();
+             pc.connection().commit();
+             pc.connection().setAutoCommit(true);
+             pending = 0;
+             transactions++;
+         }
+ 
+         private void rollback() {
+             if (pc == null || pending == 0) {
+                 return;
+             }
+             try {
+                 pc.prepare(INSERT_SQL).clearBatch();
+                 pc.prepare(DELETE_SQL).clearBatch();
+                 pc.connection().rollback();
+                 pc.connection().setAutoCommit(true);
+             } catch (SQLException e) {
+                 e.printStackTrace();
+             }
+             pending = 0;
+             pendingAdds = 0;
+             pendingDeletes = 0;
+         }
+ 
+         private void export(String format, String path) throws SQLException {
+             commit();
+             long rows;
+             switch (format) {
+                 case "json":
+                     rows = JSONExportImport.exportExpensesToJSON(path, false);
+                     break;
+                 case "xlsx":
+                     rows = ExcelReportGenerator.generateExpenseReportStreaming(path);
+                     break;
+                 case "csv":
+                     try (CsvExpenseWriter writer = new CsvExpenseWriter(path)) {
+                         rows = ExpenseManagerDB.streamExpenses(writer);
+                         writer.finish();
+                     } catch (IOException e) {
+                         throw new SQLException("Export to " + path + " failed", e);
+                     }
+                     break;
+                 case "all":
+                     rows = ExportPipeline.exportAll(path + ".json", path + ".xlsx", path + ".csv");
+                     break;
+                 default:
+                     throw new IllegalArgumentException("unknown export format \"" + format + "\"");
+             }
+             if (rows < 0) {
+                 throw new SQLException("Export to " + path + " failed");
+             }
+             exported += rows;
+         }
+ 
+         // A file that cannot be read or a failed insert stops the run like any database error;
+         // the batches the importer committed before it stay, and are counted.
+         private void importJson(String path) throws SQLException {
+             commit();
+             long[] saved = new long[1];
+             try {
+                 JSONExportImport.importExpensesFromJSONStreaming(path, batchSize, ProgressListener.NONE,
+                                                                  rows -> saved[0] = rows);
+             } catch (IOException e) {
+                 throw new SQLException("Import of " + path + " failed", e);
+             } finally {
+                 imported += saved[0];
+             }
+         }
+ 
+         private void printSummary(long nanos) {
+             double seconds = nanos / 1e9;
+             System.out.println("\n===== Batch Summary =====");
+             System.out.printf("%,d line(s) in %.2f s (%,.0f lines/sec), %,d skipped%n",
+                               lines, seconds, lines / seconds, skipped);
+             System.out.printf("added %,d, deleted %,d (%,d not found) in %,d transaction(s): %,.0f changes/sec%n",
+                               added, deleted, notFound, transactions, (added + deleted + notFound) / seconds);
+             System.out.printf("exported %,d row(s), imported %,d row(s)%n", exported, imported);
+         }
+     }
+ 
+     /* =================== METRICS (counters, gauges, latency histograms; JMX + periodic log) =================== */
+     // Process-wide metrics by name ("db.addExpense"). Callers look a metric up once and keep it in
+     // a static field, so recording is a few atomic adds with no allocation. Everything is published
+     // as one JMX MBean, IntegratedApp:type=Metrics (jconsole shows each histogram as count / mean /
+     // p50 / p99 / p999 / max in microseconds), and -Dmetrics.log=<seconds> prints it periodically.
+     public static class Metrics {
+         public static final String OBJECT_NAME = "IntegratedApp:type=Metrics";
+ 
+         // Log-linear buckets: every power of two split into 16, so any value is reported within
+         // about 6% while 1 ns to hours fits in about a thousand counters (HdrHistogram's layout).
+         public static final class Histogram {
+             private static final int SUB_BUCKET_BITS = 4;
+             private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+ 
+             private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+             private final LongAdder total = new LongAdder();
+             private final LongAdder sum = new LongAdder();
+             private final AtomicLong max = new AtomicLong();
+ 
+             public void record(long nanos) {
+                 long value = Math.max(0, nanos);
+                 counts.incrementAndGet(bucketOf(value));
+                 total.increment();
+                 sum.add(value);
+                 long currentMax;
+                 while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+                     // Retry until the max is at least this value
+                 }
+             }
+ 
+             // Records the time since startNanos, a System.nanoTime() reading.
+             public void recordSince(long startNanos) {
+                 record(System.nanoTime() - startNanos);
+             }
+ 
+             static int bucketOf(long value) {
+                 if (value < SUB_BUCKETS) {
+                     return (int) value;
+                 }
+                 int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+                 return (shift + 1) * SUB_BUCKETS + ((int) (value >>> shift) & (SUB_BUCKETS - 1));
+             }
+ 
+             static long highestValueIn(int bucket) {
+                 if (bucket < SUB_BUCKETS) {
+                     return bucket;
+                 }
+                 int shift = bucket / SUB_BUCKETS - 1;
+                 return ((SUB_BUCKETS + (long) (bucket % SUB_BUCKETS) + 1) << shift) - 1;
+             }
+ 
+             public long getCount() {
+                 return total.sum();
+             }
+ 
+             public long getMaxNanos() {
+                 return max.get();
+             }
+ 
+             public double getMeanNanos() {
+                 long count = total.sum();
+                 return count == 0 ? 0 : (double) sum.sum() / count;
+             }
+ 
+             // Value at the given percentile (0-100), e.g. 99.9 for p999.
+             public long percentileNanos(double percentile) {
+                 long count = total.sum();
+                 if (count == 0) {
+                     return 0;
+                 }
+                 long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+                 long seen = 0;
+                 for (int bucket = 0; bucket < counts.length(); bucket++) {
+                     seen += counts.get(bucket);
+                     if (seen >= rank) {
+                         return Math.min(highestValueIn(bucket), max.get());
+                     }
+                 }
+                 return max.get();
+             }
+ 
+             public String summary() {
+                 return String.format("n=%,d  mean=%s  p50=%s  p99=%s  p999=%s  max=%s", getCount(),
+                                      format((long) getMeanNanos()), format(percentileNanos(50)),
+                                      format(percentileNanos(99)), format(percentileNanos(99.9)), format(getMaxNanos()));
+             }
+ 
+             static String format(long nanos) {
+                 if (nanos < 10_000) {
+                     return nanos + "ns";
+                 }
+                 if (nanos < 10_000_000) {
+                     return String.format("%.1fus", nanos / 1e3);
+                 }
+                 return String.format("%.1fms", nanos / 1e6);
+             }
+         }
+ 
+         private static final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+         private static final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+         private static final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+         private static ScheduledExecutorService logger;
+ 
+         static {
+             try {
+                 ManagementFactory.getPlatformMBeanServer().registerMBean(new MBean(), new ObjectName(OBJECT_NAME));
+             } catch (JMException e) {
+                 System.err.println("Metrics are not available over JMX: " + e.getMessage());
+             }
+         }
+ 
+         public static LongAdder counter(String name) {
+             return counters.computeIfAbsent(name, n -> new LongAdder());
+         }
+ 
+         public static Histogram histogram(String name) {
+             return histograms.computeIfAbsent(name, n -> new Histogram());
+         }
+ 
+         // Read whenever the metrics are published; a later registration under the same name wins.
+         public static void gauge(String name, LongSupplier value) {
+             gauges.put(name, value);
+         }
+ 
+         public static List<String> describe() {
+             List<String> lines = new ArrayList<>();
+             for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+                 lines.add(String.format("%-28s %,d", entry.getKey(), entry.getValue().sum()));
+             }
+             for (Map.Entry<String, LongSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+                 lines.add(String.format("%-28s %,d", entry.getKey(), entry.getValue().getAsLong()));
+             }
+             for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+                 if (entry.getValue().getCount() > 0) {
+                     lines.add(String.format("%-28s %s", entry.getKey(), entry.getValue().summary()));
+                 }
+             }
+             return lines;
+         }
+ 
+         // Prints describe() every periodSeconds on a daemon thread; a second call changes nothing.
+         public static synchronized void startLogging(long periodSeconds) {
+             if (logger != null || periodSeconds <= 0) {
+                 return;
+             }
+             logger = Executors.newSingleThreadScheduledExecutor(r -> {
+                 Thread thread = new Thread(r, "metrics-log");
+                 thread.setDaemon(true);
+                 return thread;
+             });
+             logger.scheduleAtFixedRate(() -> {
+                 StringBuilder dump = new StringBuilder("===== Metrics at " + LocalTime.now().withNano(0) + " =====\n");
+                 for (String line : describe()) {
+                     dump.append(line).append('\n');
+                 }
+                 System.out.print(dump);
+             }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+         }
+ 
+         // One read-only attribute per counter and gauge, six per histogram ("<name>.p99Micros" etc.).
+         // The attribute list is rebuilt on every getMBeanInfo(), so metrics created later show up.
+         private static final class MBean implements DynamicMBean {
+             private static final String[] HISTOGRAM_FIELDS = {"count", "meanMicros", "p50Micros", "p99Micros",
+                                                               "p999Micros", "maxMicros"};
+ 
+             @Override
+             public Object getAttribute(String attribute) throws AttributeNotFoundException {
+                 LongAdder counter = counters.get(attribute);
+                 if (counter != null) {
+                     return counter.sum();
+                 }
+                 LongSupplier gauge = gauges.get(attribute);
+                 if (gauge != null) {
+                     return gauge.getAsLong();
+                 }
+                 int dot = attribute.lastIndexOf('.');
+                 Histogram histogram = dot < 0 ? null : histograms.get(attribute.substring(0, dot));
+                 if (histogram != null) {
+                     switch (attribute.substring(dot + 1)) {
+                         case "count": return histogram.getCount();
+                         case "meanMicros": return histogram.getMeanNanos() / 1e3;
+                         case "p50Micros": return histogram.percentileNanos(50) / 1e3;
+                         case "p99Micros": return histogram.percentileNanos(99) / 1e3;
+                         case "p999Micros": return histogram.percentileNanos(99.9) / 1e3;
+                         case "maxMicros": return histogram.getMaxNanos() / 1e3;
+                         default: break;
+                     }
+                 }
+                 throw new AttributeNotFoundException(attribute);
+             }
+ 
+             @Override
+             public AttributeList getAttributes(String[] attributes) {
+                 AttributeList list = new AttributeList();
+                 for (String attribute : attributes) {
+                     try {
+                         list.add(new Attribute(attribute, getAttribute(attribute)));
+                     } catch (AttributeNotFoundException e) {
+                         // Left out, as the DynamicMBean contract allows
+                     }
+                 }
+                 return list;
+             }
+ 
+             @Override
+             public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+                 throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+             }
+ 
+             @Override
+             public AttributeList setAttributes(AttributeList attributes) {
+                 return new AttributeList();
+             }
+ 
+             // There are no operations, so any name is unknown
+             @Override
+             public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+                 throw new ReflectionException(new NoSuchMethodException(actionName));
+             }
+ 
+             @Override
+             public MBeanInfo getMBeanInfo() {
+                 List<MBeanAttributeInfo> attributes = new ArrayList<>();
+                 for (String name : new TreeMap<>(counters).keySet()) {
+                     attributes.add(new MBeanAttributeInfo(name, "long", "Counter", true, false, false));
+                 }
+                 for (String name : new TreeMap<>(gauges).keySet()) {
+                     attributes.add(new MBeanAttributeInfo(name, "long", "Gauge", true, false, false));
+                 }
+                 for (String name : new TreeMap<>(histograms).keySet()) {
+                     for (String field : HISTOGRAM_FIELDS) {
+                         attributes.add(new MBeanAttributeInfo(name + "." + field, field.equals("count") ? "long" : "double",
+                                                               "Latency histogram", true, false, false));
+                     }
+                 }
+                 return new MBeanInfo(Metrics.class.getName(), "IntegratedApp metrics",
+                                      attributes.toArray(new MBeanAttributeInfo[0]), null,
+                                      new MBeanOperationInfo[0], null);
+             }
+         }
+     }
+ 
+     /* =================== CONNECTION POOL (Shared by all DB paths) =================== */
+     // A small bounded pool of long-lived SQLite connections. Each pooled connection keeps
+     // its own prepared statement cache, so hot queries are parsed once per connection.
+     public static class ConnectionPool implements AutoCloseable {
+         private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+         private static final long MMAP_SIZE = 256L * 1024 * 1024;
+         // Page cache per connection; large enough to keep the secondary indexes' hot pages.
+         private static final long CACHE_SIZE_KB = 64L * 1024;
+ 
+         private final String url;
+         private final int maxSize;
+         private final BlockingQueue<PooledConnection> idle;
+         private final AtomicInteger created = new AtomicInteger();
+         private volatile boolean closed;
+         private static final Metrics.Histogram ACQUIRE_WAIT = Metrics.histogram("db.pool.acquire");
+         private static final Metrics.Histogram OTHER_OPERATION = Metrics.histogram("db.other");
+ 
+         public ConnectionPool(String url, int maxSize) {
+             this.url = url;
+             this.maxSize = maxSize;
+             this.idle = new ArrayBlockingQueue<>(maxSize);
+             Metrics.gauge("db.pool.idle", idle::size);
+             Metrics.gauge("db.pool.connections", created::get);
+             // Open the first connection eagerly so WAL mode is switched on once at startup.
+             try (PooledConnection first = acquire();
+                  Statement stmt = first.connection().createStatement()) {
+                 stmt.execute("PRAGMA journal_mode=WAL");
+             } catch (SQLException e) {
+                 e.printStackTrace();
+             }
+         }
+ 
+         public PooledConnection acquire() throws SQLException {
+             return acquire(OTHER_OPERATION);
+         }
+ 
+         // The time from here until the connection is closed (given back) is recorded in operation.
+         public PooledConnection acquire(Metrics.Histogram operation) throws SQLException {
+             long start = System.nanoTime();
+             PooledConnection pc = take();
+             ACQUIRE_WAIT.recordSince(start);
+             pc.startOperation(operation, start);
+             return pc;
+         }
+ 
+         private PooledConnection take() throws SQLException {
+             if (closed) {
+                 throw new SQLException("Connection pool is closed");
+             }
+             PooledConnection pc = idle.poll();
+             if (pc != null) {
+                 return pc;
+             }
+             while (true) {
+                 int count = created.get();
+                 if (count >= maxSize) {
+                     break;
+                 }
+                 if (created.compareAndSet(count, count + 1)) {
+                     try {
+                         return new PooledConnection(this, openConnection());
+                     } catch (SQLException e) {
+                         created.decrementAndGet();
+                         throw e;
+                     }
+                 }
+             }
+             try {
+                 pc = idle.poll(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+             } catch (InterruptedException e) {
+                 Thread.currentThread().interrupt();
+                 throw new SQLException("Interrupted while waiting for a database connection", e);
+             }
+             if (pc == null) {
+                 throw new SQLException("Timed out waiting for a database connection");
+             }
+             return pc;
+         }
+ 
+         // Per-connection pragmas are applied once, when the physical connection is opened.
+         private Connection openConnection() throws SQLException {
+             Connection conn = DriverManager.getConnection(url);
+             try (Statement stmt = conn.createStatement()) {
+                 stmt.execute("PRAGMA synchronous=NORMAL");
+                 stmt.execute("PRAGMA mmap_size=" + MMAP_SIZE);
+                 stmt.execute("PRAGMA cache_size=-" + CACHE_SIZE_KB);
+                 stmt.execute("PRAGMA busy_timeout=5000");
+             }
+             return conn;
+         }
+ 
+         void release(PooledConnection pc) {
+             boolean reusable = false;
+             try {
+                 Connection conn = pc.connection();
+                 if (!conn.isClosed()) {
+                     if (!conn.getAutoCommit()) {
+                         conn.rollback();
+                         conn.setAutoCommit(true);
+                     }
+                     reusable = true;
+                 }
+             } catch (SQLException e) {
+                 e.printStackTrace();
+             }
+             if (reusable && !closed && idle.offer(pc)) {
+                 return;
+             }
+             created.decrementAndGet();
+             pc.closePhysical();
+         }
+ 
+         public int size() {
+             return created.get();
+         }
+ 
+         @Override
+         public void close() {
+             closed = true;
+             PooledConnection pc;
+             while ((pc = idle.poll()) != null) {
+                 created.decrementAndGet();
+                 pc.closePhysical();
+             }
+         }
+     }
+ 
+     // A connection on loan from the pool. close() hands it back instead of closing it, and
+     // statements returned by prepare() are owned by the cache and must not be closed by callers.
+     public static class PooledConnection implements AutoCloseable {
+         private static final int MAX_CACHED_STATEMENTS = 32;
+ 
+         private final ConnectionPool pool;
+         private final Connection connection;
+         private final Map<String, PreparedStatement> statements =
+             new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                 @Override
+                 protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                     if (size() > MAX_CACHED_STATEMENTS) {
+                         closeQuietly(eldest.getValue());
+                         return true;
+                     }
+                     return false;
+                 }
+             };
+ 
+         private Metrics.Histogram operation;
+         private long operationStart;
+ 
+         PooledConnection(ConnectionPool pool, Connection connection) {
+             this.pool = pool;
+             this.connection = connection;
+         }
+ 
+         void startOperation(Metrics.Histogram operation, long startNanos) {
+             this.operation = operation;
+             this.operationStart = startNanos;
+         }
+ 
+         public Connection connection() {
+             return connection;
+         }
+ 
+         public PreparedStatement prepare(String sql) throws SQLException {
+             PreparedStatement pstmt = statements.get(sql);
+             if (pstmt == null) {
+                 pstmt = connection.prepareStatement(sql);
+                 statements.put(sql, pstmt);
+             } else {
+                 pstmt.clearParameters();
+             }
+             return pstmt;
+         }
+ 
+         void closePhysical() {
+             for (PreparedStatement pstmt : statements.values()) {
+                 closeQuietly(pstmt);
+             }
+             statements.clear();
+             try {
+                 connection.close();
+             } catch (SQLException e) {
+                 e.printStackTrace();
+             }
+         }
+ 
+         private static void closeQuietly(Statement stmt) {
+             try {
+                 stmt.close();
+             } catch (SQLException ignored) {
+             }
+         }
+ 
+         @Override
+         public void close() {
+             if (operation != null) {
+                 operation.recordSince(operationStart);
+                 operation = null;
+             }
+             pool.release(this);
+         }
+     }
+ 
+     /* =================== DATABASE & EXPENSE MANAGER (Shared by CLI & GUI) =================== */
+     public static class ExpenseManagerDB {
+         private static final String DB_URL = "jdbc:sqlite:database.db";
+         private static final int POOL_SIZE = 4;
+         public static final int DEFAULT_BATCH_SIZE = 10_000;
+         private static final int STREAM_FETCH_SIZE = 1000;
+         private static ConnectionPool pool;
+         private static boolean shutdownHookInstalled;
+ 
+         // How long each call holds its pooled connection, by operation
+         private static final Metrics.Histogram INITIALIZE = Metrics.histogram("db.initialize");
+         private static final Metrics.Histogram ADD_EXPENSE = Metrics.histogram("db.addExpense");
+         private static final Metrics.Histogram ADD_EXPENSES = Metrics.histogram("db.addExpenses");
+         private static final Metrics.Histogram VIEW_EXPENSES = Metrics.histogram("db.viewExpenses");
+         private static final Metrics.Histogram DELETE_EXPENSE = Metrics.histogram("db.deleteExpense");
+         private static final Metrics.Histogram COUNT_EXPENSES = Metrics.histogram("db.countExpenses");
+         private static final Metrics.Histogram STREAM_EXPENSES = Metrics.histogram("db.streamExpenses");
+         private static final Metrics.Histogram QUERY_EXPENSES = Metrics.histogram("db.queryExpenses");
+         private static final Metrics.Histogram EXPENSE_PAGE = Metrics.histogram("db.expensePage");
+         static final Metrics.Histogram GET_EXPENSES = Metrics.histogram("db.getExpenses");
+         private static final LongAdder ROWS_INSERTED = Metrics.counter("db.rows.inserted");
+         static final LongAdder ERRORS = Metrics.counter("db.errors");
+ 
+         // The shared connection pool, opened on first use and closed on JVM exit.
+         public static synchronized ConnectionPool pool() {
+             if (pool == null) {
+                 pool = new ConnectionPool(DB_URL, POOL_SIZE);
+                 if (!shutdownHookInstalled) {
+                     Runtime.getRuntime().addShutdownHook(new Thread(ExpenseManagerDB::shutdown));
+                     shutdownHookInstalled = true;
+                 }
+             }
+             return pool;
+         }
+ 
+         // Point every DB path at another database file (used by benchmarks).
+         public static synchronized void useDatabase(String url) {
+             shutdown();
+             pool = new ConnectionPool(url, POOL_SIZE);
+         }
+ 
+         public static synchronized void shutdown() {
+             QuizResults.closeShared();
+             if (pool != null) {
+                 pool.close();
+                 pool = null;
+             }
+         }
+ 
+         // Schema changes applied in order after the base table exists; PRAGMA user_version
+         // records how many have already run on this database file.
+         private static final String[][] MIGRATIONS = {
+             // 1: sortable epoch-day copy of the TEXT date (NULL when the text is not a valid
+             //    YYYY-MM-DD date) with indexes for date-range and category queries
+             {
+                 "ALTER TABLE expenses ADD COLUMN date_epoch INTEGER",
+                 "UPDATE expenses SET date_epoch = CAST(julianday(date) - 2440587.5 AS INTEGER) " +
+                     "WHERE date(date) = date",
+                 "CREATE INDEX IF NOT EXISTS idx_expenses_date ON expenses(date_epoch)",
+                 "CREATE INDEX IF NOT EXISTS idx_expenses_category_date ON expenses(category, date_epoch)"
+             },
+             // 2: running totals per category and per month, kept current by triggers
+             ExpenseSummary.SCHEMA_SQL,
+             // 3: one row per finished math quiz, for the leaderboard
+             QuizResults.SCHEMA_SQL
+         };
+ 
+         // Initialize the database and create table if not exists.
+         public static void initializeDatabase() {
+             try (PooledConnection pc = pool().acquire(INITIALIZE);
+                  Statement stmt = pc.connection().createStatement()) {
+                 String sql = "CREATE TABLE IF NOT EXISTS expenses (" +
+                              "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                              "category TEXT, " +
+                              "amount REAL, " +
+                              "date TEXT)";
+                 stmt.execute(sql);
+                 migrate(pc.connection());
+             } catch (SQLException e) {
+                 ERRORS.increment();
+                 e.printStackTrace();
+             }
+         }
+ 
+         private static void migrate(Connection conn) throws SQLException {
+             int version;
+             try (Statement stmt = conn.createStatement();
+                  ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+                 version = rs.next() ? rs.getInt(1) : 0;
+             }
+             if (version >= MIGRATIONS.length) {
+                 return;
+             }
+             conn.setAutoCommit(false);
+             try (Statement stmt = conn.createStatement()) {
+                 for (int v = version; v < MIGRATIONS.length; v++) {
+                     for (String sql : MIGRATIONS[v]) {
+                         stmt.execute(sql);
+                     }
+                     stmt.execute("PRAGMA user_version = " + (v + 1));
+                 }
+                 conn.commit();
+                 System.out.println("Database schema migrated to version " + MIGRATIONS.length + ".");
+             } catch (SQLException e) {
+                 conn.rollback();
+                 throw e;
+             } finally {
+                 conn.setAutoCommit(true);
+             }
+         }
+ 
+         // date_epoch mirrors the TEXT date; invalid or missing dates are stored as NULL.
+         static void setDateParams(PreparedStatement pstmt, int index, String date) throws SQLException {
+             pstmt.setString(index, date);
+             int epochDay = ExpenseDates.parseEpochDay(date);
+             if (epochDay == ExpenseDates.NO_DATE) {
+                 pstmt.setNull(index + 1, Types.INTEGER);
+             } else {
+                 pstmt.setInt(index + 1, epochDay);
+             }
+         }
+ 
+         // Console version of insertExpense: prints the outcome and returns whether the row was saved.
+         public static boolean addExpense(String category, double amount, String date) {
+             try {
+                 insertExpense(category, amount, date);
+                 System.out.println("Expense added successfully.");
+                 return true;
+             } catch (SQLException e) {
+                 e.printStackTrace();
+                 return false;
+             }
+         }
+ 
+         // Inserts one expense and returns its id; a failed insert throws and saves nothing.
+         public static int insertExpense(String category, double amount, String date) throws SQLException {
+             String sql = "INSERT INTO expenses (category, amount, date, date_epoch) VALUES (?, ?, ?, ?)";
+             try (PooledConnection pc = pool().acquire(ADD_EXPENSE)) {
+                 PreparedStatement pstmt = pc.prepare(sql);
+                 pstmt.setString(1, category);
+                 pstmt.setDouble(2, amount);
+                 setDateParams(pstmt, 3, date);
+                 pstmt.executeUpdate();
+                 ROWS_INSERTED.increment();
+                 // Same connection, so this is the row just inserted
+                 try (ResultSet rs = pc.prepare("SELECT last_insert_rowid()").executeQuery()) {
+                     return rs.next() ? rs.getInt(1) : 0;
+                 }
+             } catch (SQLException e) {
+                 ERRORS.increment();
+                 throw e;
+             }
+         }
+ 
+         // Insert many expenses at once (e.g. a JSON import). Rows are sent with addBatch and
+         // committed every batchSize rows, so the journal is synced once per batch, not per row.
+         public static int addExpenses(Collection<Expense> expenses) {
+             return addExpenses(expenses, DEFAULT_BATCH_SIZE);
+         }
+ 
+         // Console version of insertExpenses: prints a failure and returns the rows saved before it.
+         public static int addExpenses(Collection<Expense> expenses, int batchSize) {
+             int[] written = new int[1];
+             try {
+                 insertExpenses(expenses, batchSize, rows -> written[0] = rows, ProgressListener.NONE);
+             } catch (SQLException e) {
+                 e.printStackTrace();
+             }
+             return written[0];
+         }
+ 
+         // Inserts in batches of batchSize, each its own transaction. A failed batch is rolled back
+         // and throws; the batches committed before it stay, and `committed` has been told their
+         // running total after each one. Rows go to SQLite every REPORT_EVERY_ROWS rows, with a
+         // progress report each time, so a cancel (thrown by the listener) is noticed long before
+         // a large batch commits; it rolls back the open batch like a failure would.
+         public static int insertExpenses(Collection<Expense> expenses, int batchSize, IntConsumer committed,
+                                          ProgressListener progress) throws SQLException {
+             if (batchSize < 1) {
+                 throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+             }
+             String sql = "INSERT INTO expenses (category, amount, date, date_epoch) VALUES (?, ?, ?, ?)";
+             int written = 0;
+             try (PooledConnection pc = pool().acquire(ADD_EXPENSES)) {
+                 Connection conn = pc.connection();
+                 PreparedStatement pstmt = pc.prepare(sql);
+                 conn.setAutoCommit(false);
+                 try {
+                     int pending = 0;
+                     int sent = 0;
+                     for (Expense exp : expenses) {
+                         pstmt.setString(1, exp.getCategory());
+                         pstmt.setDouble(2, exp.getAmount());
+                         setDateParams(pstmt, 3, exp.getDate());
+                         pstmt.addBatch();
+                         if (++pending == batchSize) {
+                             pstmt.executeBatch();
+                             conn.commit();
+                             written += pending;
+                             committed.accept(written);
+                             pending = 0;
+                         }
+                         if (++sent % ProgressListener.REPORT_EVERY_ROWS == 0) {
+                             pstmt.executeBatch();
+                             progress.onProgress(sent, expenses.size());
+                         }
+                     }
+                     if (pending > 0) {
+                         pstmt.executeBatch();
+                         conn.commit();
+                         written += pending;
+                         committed.accept(written);
+                     }
+                 } catch (SQLException | RuntimeException e) {
+                     // Before setAutoCommit(true) below, which would commit the open batch
+                     pstmt.clearBatch();
+                     conn.rollback();
+                     throw e;
+                 } finally {
+                     conn.setAutoCommit(true);
+                 }
+             } catch (SQLException e) {
+                 ERRORS.increment();
+                 throw e;
+             } finally {
+                 ROWS_INSERTED.add(written);
+             }
+             return written;
+         }
+ 
+         public static void viewExpenses() {
+             String sql = "SELECT * FROM expenses";
+             try (PooledConnection pc = pool().acquire(VIEW_EXPENSES);
+                  ResultSet rs = pc.prepare(sql).executeQuery()) {
+                 System.out.println("\n===== Expense List =====");
+                 while (rs.next()) {
+                     System.out.printf("%d. %s | ₹%.2f | %s%n",
+                                       rs.getInt("id"),
+                                       rs.getString("category"),
+                                       rs.getDouble("amount"),
+                                       rs.getString("date"));
+                 }
+             } catch (SQLException e) {
+                 ERRORS.increment();
+                 e.printStackTrace();
+             }
+         }
+ 
+         public static boolean deleteExpense(int id) {
+             String sql = "DELETE FROM expenses WHERE id = ?";
+             try (PooledConnection pc = pool().acquire(DELETE_EXPENSE)) {
+                 PreparedStatement pstmt = pc.prepare(sql);
+                 pstmt.setInt(1, id);
+                 int rowsAffected = pstmt.executeUpdate();
+                 if (rowsAffected > 0) {
+                     System.out.println("Expense deleted successfully.");
+                     return true;
+                 } else {
+                     System.out.println("Expense not found.");
+                 }
+             } catch (SQLException e) {
+                 ERRORS.increment();
+                 e.printStackTrace();
+             }
+             return false;
+         }
+ 
+         public static long countExpenses() {
+             String sql = "SELECT COUNT(*) FROM expenses";
+             try (PooledConnection pc = pool().acquire(COUNT_EXPENSES);
+                  ResultSet rs = pc.prepare(sql).executeQuery()) {
+                 return rs.next() ? rs.getLong(1) : 0;
+             } catch (SQLException e) {
+                 ERRORS.increment();
+                 e.printStackTrace();
+                 return 0;
+             }
+         }
+ 
+         // Walk every expense in id order on a single forward-only cursor. Rows are handed over
+         // as plain values, so memory use does not grow with the size of the table.
+         public static long streamExpenses(ExpenseRowHandler handler) throws SQLException, IOException {
+             String sql = "SELECT id, category, amount, date FROM expenses ORDER BY id";
+             long count = 0;
+             try (PooledConnection pc = pool().acquire(STREAM_EXPENSES)) {
+                 PreparedStatement pstmt = pc.prepare(sql);
+                 pstmt.setFetchSize(STREAM_FETCH_SIZE);
+                 try (ResultSet rs = pstmt.executeQuery()) {
+                     while (rs.next()) {
+                         handler.onRow(rs.getInt(1), rs.getString(2), rs.getDouble(3), rs.getString(4));
+                         count++;
+                     }
+                 }
+             }
+             return count;
+         }
+ 
+         // Expenses dated from..to inclusive, oldest first. Either bound may be null for "open";
+         // rows without a valid date only match when both are null. Served from idx_expenses_date.
+         public static List<Expense> getExpensesBetween(LocalDate from, LocalDate to) {
+             return getExpensesByCategory(null, from, to);
+         }
+ 
+         // Expenses in one category (null for any), optionally limited to a date range.
+         public static List<Expense> getExpensesByCategory(String category, LocalDate from, LocalDate to) {
+             List<Expense> list = new ArrayList<>();
+             try {
+                 streamExpenses(category, from, to,
+                                (id, cat, amount, date) -> list.add(new Expense(id, cat, amount, date)));
+             } catch (SQLException | IOException e) {
+                 ERRORS.increment();
+                 e.printStackTrace();
+             }
+             return list;
+         }
+ 
+         public static long streamExpenses(String category, LocalDate from, LocalDate to,
+                                           ExpenseRowHandler handler) throws SQLException, IOException {
+             boolean byCategory = category != null;
+             boolean byDate = from != null || to != null;
+             String sql = "SELECT id, category, amount, date FROM expenses" +
+                          (byCategory || byDate ? " WHERE " : "") +
+                          (byCategory ? "category = ?" : "") +
+                          (byCategory && byDate ? " AND " : "") +
+                          (byDate ? "date_epoch BETWEEN ? AND ?" : "") +
+                          " ORDER BY date_epoch, id";
+             long count = 0;
+             try (PooledConnection pc = pool().acquire(QUERY_EXPENSES)) {
+                 PreparedStatement pstmt = pc.prepare(sql);
+                 pstmt.setFetchSize(STREAM_FETCH_SIZE);
+                 int index = 1;
+                 if (byCategory) {
+                     pstmt.setString(index++, category);
+                 }
+                 if (byDate) {
+                     pstmt.setLong(index++, from != null ? from.toEpochDay() : Integer.MIN_VALUE);
+                     pstmt.setLong(index, to != null ? to.toEpochDay() : Integer.MAX_VALUE);
+                 }
+                 try (ResultSet rs = pstmt.executeQuery()) {
+                     while (rs.next()) {
+                         handler.onRow(rs.getInt(1), rs.getString(2), rs.getDouble(3), rs.getString(4));
+                         count++;
+                     }
+                 }
+             }
+             return count;
+         }
+ 
+         // Keyset page: up to limit expenses with id >= firstId, in id order. Uses the primary key,
+         // so the cost does not depend on how deep into the table the page is.
+         public static List<Expense> getExpensePage(int firstId, int limit) throws SQLException {
+             String sql = "SELECT id, category, amount, date FROM expenses WHERE id >= ? ORDER BY id LIMIT ?";
+             return queryPage(sql, firstId, limit);
+         }
+ 
+         // Offset page, for jumping to a position whose first id is not known yet.
+         public static List<Expense> getExpensePageAt(long offset, int limit) throws SQLException {
+             String sql = "SELECT id, category, amount, date FROM expenses ORDER BY id LIMIT ? OFFSET ?";
+             return queryPage(sql, limit, offset);
+         }
+ 
+         // A failed query throws rather than returning an empty page, which would pass for the end of the table.
+         private static List<Expense> queryPage(String sql, long first, long second) throws SQLException {
+             List<Expense> page = new ArrayList<>();
+             try (PooledConnection pc = pool().acquire(EXPENSE_PAGE)) {
+                 PreparedStatement pstmt = pc.prepare(sql);
+                 pstmt.setLong(1, first);
+                 pstmt.setLong(2, second);
+                 try (ResultSet rs = pstmt.executeQuery()) {
+                     while (rs.next()) {
+                         page.add(new Expense(rs.getInt(1), rs.getString(2), rs.getDouble(3), rs.getString(4)));
+                     }
+                 }
+             } catch (SQLException e) {
+                 ERRORS.increment();
+                 throw e;
+             }
+             return page;
+         }
+ 
+         // Where an expense sits in id order: the number of expenses with a smaller id.
+         public static int rowOfExpense(int id) throws SQLException {
+             String sql = "SELECT COUNT(*) FROM expenses WHERE id < ?";
+             try (PooledConnection pc = pool().acquire(EXPENSE_PAGE)) {
+                 PreparedStatement pstmt = pc.prepare(sql);
+                 pstmt.setInt(1, id);
+                 try (ResultSet rs = pstmt.executeQuery()) {
+                     return rs.next() ? rs.getInt(1) : 0;
+                 }
+             } catch (SQLException e) {
+                 ERRORS.increment();
+                 throw e;
+             }
+         }
+ 
+         // Retrieve expenses as a list (used for JSON export/import)
+         public static List<Expense> getExpenses() {
+             List<Expense> list = new ArrayList<>();
+             String sql = "SELECT * FROM expenses";
+             try (PooledConnection pc = pool().acquire(GET_EXPENSES);
+                  ResultSet rs = pc.prepare(sql).executeQuery()) {
+                 while (rs.next()) {
+                     list.add(new Expense(
+                         rs.getInt("id"),
+                         rs.getString("category"),
+                         rs.getDouble("amount"),
+                         rs.getString("date")
+                     ));
+                 }
+             } catch (SQLException e) {
+                 ERRORS.increment();
+                 e.printStackTrace();
+             }
+             return list;
+         }
+     }
+ 
+     /* =================== EXPENSE SUMMARY (Running totals) =================== */
+     // Totals per category and per month live in two small tables that SQLite triggers update
+     // on every insert, update and delete of an expense, so reading them never scans the
+     // expenses table. Undated expenses count towards their category but not towards a month.
+     public static class ExpenseSummary {
+         private static final Metrics.Histogram REBUILD = Metrics.histogram("db.summary.rebuild");
+         private static final Metrics.Histogram READ_TOTALS = Metrics.histogram("db.summary.read");
+ 
+         static final String[] REBUILD_SQL = {
+             "DELETE FROM expense_totals_by_category",
+             "DELETE FROM expense_totals_by_month",
+             "INSERT INTO expense_totals_by_category (category, total, expense_count) " +
+                 "SELECT COALESCE(category, ''), SUM(amount), COUNT(*) FROM expenses GROUP BY COALESCE(category, '')",
+             "INSERT INTO expense_totals_by_month (month, total, expense_count) " +
+                 "SELECT strftime('%Y-%m', date_epoch * 86400, 'unixepoch'), SUM(amount), COUNT(*) FROM expenses " +
+                 "WHERE date_epoch IS NOT NULL GROUP BY 1"
+         };
+ 
+         private static final String ADD_TO_CATEGORY =
+             "INSERT INTO expense_totals_by_category (category, total, expense_count) " +
+             "VALUES (COALESCE(NEW.category, ''), COALESCE(NEW.amount, 0), 1) " +
+             "ON CONFLICT(category) DO UPDATE SET total = total + excluded.total, expense_count = expense_count + 1;";
+         private static final String ADD_TO_MONTH =
+             "INSERT INTO expense_totals_by_month (month, total, expense_count) " +
+             "VALUES (strftime('%Y-%m', NEW.date_epoch * 86400, 'unixepoch'), COALESCE(NEW.amount, 0), 1) " +
+             "ON CONFLICT(month) DO UPDATE SET total = total + excluded.total, expense_count = expense_count + 1;";
+         private static final String REMOVE_FROM_CATEGORY =
+             "UPDATE expense_totals_by_category SET total = total - COALESCE(OLD.amount, 0), " +
+             "expense_count = expense_count - 1 WHERE category = COALESCE(OLD.category, ''); " +
+             "DELETE FROM expense_totals_by_category WHERE category = COALESCE(OLD.category, '') AND expense_count <= 0;";
+         private static final String REMOVE_FROM_MONTH =
+             "UPDATE expense_totals_by_month SET total = total - COALESCE(OLD.amount, 0), " +
+             "expense_count = expense_count - 1 WHERE month = strftime('%Y-%m', OLD.date_epoch * 86400, 'unixepoch'); " +
+             "DELETE FROM expense_totals_by_month " +
+             "WHERE month = strftime('%Y-%m', OLD.date_epoch * 86400, 'unixepoch') AND expense_count <= 0;";
+ 
+         // Tables and triggers, followed by an initial rebuild from the rows already present.
+         static final String[] SCHEMA_SQL = concat(new String[]{
+             "CREATE TABLE IF NOT EXISTS expense_totals_by_category (" +
+                 "category TEXT PRIMARY KEY, total REAL NOT NULL, expense_count INTEGER NOT NULL)",
+             "CREATE TABLE IF NOT EXISTS expense_totals_by_month (" +
+                 "month TEXT PRIMARY KEY, total REAL NOT NULL, expense_count INTEGER NOT NULL)",
+             "CREATE TRIGGER IF NOT EXISTS expenses_totals_after_insert AFTER INSERT ON expenses BEGIN " +
+                 ADD_TO_CATEGORY + " END",
+             "CREATE TRIGGER IF NOT EXISTS expenses_month_totals_after_insert AFTER INSERT ON expenses " +
+                 "WHEN NEW.date_epoch IS NOT NULL BEGIN " + ADD_TO_MONTH + " END",
+             "CREATE TRIGGER IF NOT EXISTS expenses_totals_after_delete AFTER DELETE ON expenses BEGIN " +
+                 REMOVE_FROM_CATEGORY + " END",
+             "CREATE TRIGGER IF NOT EXISTS expenses_month_totals_after_delete AFTER DELETE ON expenses " +
+                 "WHEN OLD.date_epoch IS NOT NULL BEGIN " + REMOVE_FROM_MONTH + " END",
+             "CREATE TRIGGER IF NOT EXISTS expenses_totals_after_update AFTER UPDATE OF category, amount ON expenses BEGIN " +
+                 REMOVE_FROM_CATEGORY + " " + ADD_TO_CATEGORY + " END",
+             "CREATE TRIGGER IF NOT EXISTS expenses_month_totals_remove_after_update AFTER UPDATE OF amount, date_epoch " +
+                 "ON expenses WHEN OLD.date_epoch IS NOT NULL BEGIN " + REMOVE_FROM_MONTH + " END",
+             "CREATE TRIGGER IF NOT EXISTS expenses_month_totals_add_after_update AFTER UPDATE OF amount, date_epoch " +
+                 "ON expenses WHEN NEW.date_epoch IS NOT NULL BEGIN " + ADD_TO_MONTH + " END"
+         }, REBUILD_SQL);
+ 
+         private static String[] concat(String[] first, String[] second) {
+             String[] result = Arrays.copyOf(first, first.length + second.length);
+             System.arraycopy(second, 0, result, first.length, second.length);
+             return result;
+         }
+ 
+         // Recomputes both summary tables from the expenses table in one transaction, e.g. after
+         // rows were changed with triggers disabled or to clear floating-point drift.
+         public static void rebuild() {
+             try (PooledConnection pc = ExpenseManagerDB.pool().acquire(REBUILD);
+                  Statement stmt = pc.connection().createStatement()) {
+                 Connection conn = pc.connection();
+                 conn.setAutoCommit(false);
+                 try {
+                     for (String sql : REBUILD_SQL) {
+                         stmt.execute(sql);
+                     }
+                     conn.commit();
+                 } catch (SQLException e) {
+                     conn.rollback();
+                     throw e;
+                 } finally {
+                     conn.setAutoCommit(true);
+                 }
+             } catch (SQLException e) {
+                 ExpenseManagerDB.ERRORS.increment();
+                 e.printStackTrace();
+             }
+         }
+ 
+         // Category -> total, largest first. Uncategorized expenses are listed under "".
+         public static Map<String, Double> totalsByCategory() {
+             Map<String, Double> totals = new LinkedHashMap<>();
+             String sql = "SELECT category, total FROM expense_totals_by_category ORDER BY total DESC";
+             try (PooledConnection pc = ExpenseManagerDB.pool().acquire(READ_TOTALS);
+                  ResultSet rs = pc.prepare(sql).executeQuery()) {
+                 while (rs.next()) {
+                     totals.put(rs.getString(1), rs.getDouble(2));
+                 }
+             } catch (SQLException e) {
+                 ExpenseManagerDB.ERRORS.increment();
+                 e.printStackTrace();
+             }
+             return totals;
+         }
+ 
+         public static SortedMap<YearMonth, Double> totalsByMonth() {
+             SortedMap<YearMonth, Double> totals = new TreeMap<>();
+             String sql = "SELECT month, total FROM expense_totals_by_month";
+             try (PooledConnection pc = ExpenseManagerDB.pool().acquire(READ_TOTALS);
+                  ResultSet rs = pc.prepare(sql).executeQuery()) {
+                 while (rs.next()) {
+                     totals.put(YearMonth.parse(rs.getString(1)), rs.getDouble(2));
+                 }
+             } catch (SQLException e) {
+                 ExpenseManagerDB.ERRORS.increment();
+                 e.printStackTrace();
+             }
+             return totals;
+         }
+ 
+         public static double grandTotal() {
+             String sql = "SELECT COALESCE(SUM(total), 0) FROM expense_totals_by_category";
+             try (PooledConnection pc = ExpenseManagerDB.pool().acquire(READ_TOTALS);
+                  ResultSet rs = pc.prepare(sql).executeQuery()) {
+                 return rs.next() ? rs.getDouble(1) : 0;
+             } catch (SQLException e) {
+                 ExpenseManagerDB.ERRORS.increment();
+                 e.printStackTrace();
+                 return 0;
+             }
+         }
+ 
+         public static long expenseCount() {
+             String sql = "SELECT COALESCE(SUM(expense_count), 0) FROM expense_totals_by_category";
+             try (PooledConnection pc = ExpenseManagerDB.pool().acquire(READ_TOTALS);
+                  ResultSet rs = pc.prepare(sql).executeQuery()) {
+                 return rs.next() ? rs.getLong(1) : 0;
+             } catch (SQLException e) {
+                 ExpenseManagerDB.ERRORS.increment();
+                 e.printStackTrace();
+                 return 0;
+             }
+         }
+     }
+ 
+     /* =================== EXPENSE MODEL =================== */
+     // Receives one expense row at a time from a streaming read (see ExpenseManagerDB.streamExpenses).
+     public interface ExpenseRowHandler {
+         void onRow(int id, String category, double amount, String date) throws IOException;
+     }
+ 
+     // A row handler that writes a file. The file only appears once finish() succeeds; closing
+     // the writer without finishing (a failed or cancelled export) throws away what was written.
+     public interface ExpenseFileWriter extends ExpenseRowHandler, Closeable {
+         void finish() throws IOException;
+     }
+ 
+     // Output written under a temporary name next to the target and moved into place by
+     // commit(), so an existing file is never replaced by a truncated one.
+     public static class StagedFile {
+         private final Path target;
+         private final Path temp;
+         private boolean committed;
+ 
+         public StagedFile(String filePath) {
+             target = Paths.get(filePath).toAbsolutePath();
+             temp = target.resolveSibling(target.getFileName() + ".part");
+         }
+ 
+         public Path getTemp() { return temp; }
+ 
+         public void commit() throws IOException {
+             Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+             committed = true;
+         }
+ 
+         // Deletes the temporary file unless it was committed.
+         public void discard() {
+             if (committed) {
+                 return;
+             }
+             try {
+                 Files.deleteIfExists(temp);
+             } catch (IOException e) {
+                 e.printStackTrace();
+             }
+         }
+     }
+ 
+     // Progress callback for long exports/imports. Implementations may throw
+     // CancellationException to stop the operation at the next row.
+     public interface ProgressListener {
+         ProgressListener NONE = (done, total) -> {};
+         int REPORT_EVERY_ROWS = 1000;
+ 
+         void onProgress(long done, long total);
+ 
+         // Wraps a row handler so progress is reported every REPORT_EVERY_ROWS rows.
+         static ExpenseRowHandler track(ExpenseRowHandler handler, long total, ProgressListener progress) {
+             long[] done = new long[1];
+             return (id, category, amount, date) -> {
+                 handler.onRow(id, category, amount, date);
+                 if (++done[0] % REPORT_EVERY_ROWS == 0) {
+                     progress.onProgress(done[0], total);
+                 }
+             };
+         }
+     }
+ 
+     public static class Expense {
+         private int id;
+         private String category;
+         private double amount;
+         private String date;
+ 
+         // Default constructor (needed for Jackson)
+         public Expense() {}
+ 
+         public Expense(int id, String category, double amount, String date) {
+             this.id = id;
+             this.category = category;
+             this.amount = amount;
+             this.date = date;
+         }
+ 
+         // Getters and setters
+         public int getId() { return id; }
+         public void setId(int id) { this.id = id; }
+ 
+         public String getCategory() { return category; }
+         public void setCategory(String category) { this.category = category; }
+ 
+         public double getAmount() { return amount; }
+         public void setAmount(double amount) { this.amount = amount; }
+ 
+         public String getDate() { return date; }
+         public void setDate(String date) { this.date = date; }
+ 
+         @Override
+         public String toString() {
+             return id + ": " + category + " | ₹" + amount + " | " + date;
+         }
+     }
+ 
+     /* =================== EXCEL REPORT GENERATOR (Apache POI) =================== */
+     public static class ExcelReportGenerator {
+         private static final Metrics.Histogram EXPORT = Metrics.histogram("export.xlsx");
+         private static final LongAdder EXPORTED_ROWS = Metrics.counter("export.rows");
+         private static final LongAdder EXPORT_ERRORS = Metrics.counter("export.errors");
+ 
+         public static void generateExpenseReport(String filePath) {
+             String sql = "SELECT * FROM expenses";
+             long start = System.nanoTime();
+ 
+             try (PooledConnection pc = ExpenseManagerDB.pool().acquire(ExpenseManagerDB.GET_EXPENSES);
+                  ResultSet rs = pc.prepare(sql).executeQuery();
+                  Workbook workbook = new XSSFWorkbook()) {
+ 
+                 Sheet sheet = workbook.createSheet("Expenses Report");
+ 
+                 // Create header row
+                 Row headerRow = sheet.createRow(0);
+                 String[] headers = {"ID", "Category", "Amount", "Date"};
+                 for (int i = 0; i < headers.length; i++) {
+                     Cell cell = headerRow.createCell(i);
+                     cell.setCellValue(headers[i]);
+                 }
+ 
+                 // Write data rows
+                 int rowNum = 1;
+                 while (rs.next()) {
+                     Row row = sheet.createRow(rowNum++);
+                     row.createCell(0).setCellValue(rs.getInt("id"));
+                     row.createCell(1).setCellValue(rs.getString("category"));
+                     row.createCell(2).setCellValue(rs.getDouble("amount"));
+                     row.createCell(3).setCellValue(rs.getString("date"));
+                 }
+ 
+                 // Autosize columns for readability
+                 for (int i = 0; i < headers.length; i++) {
+                     sheet.autoSizeColumn(i);
+                 }
+ 
+                 try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
+                     workbook.write(fileOut);
+                 }
+ 
+                 System.out.println("Excel report generated successfully at: " + filePath);
+                 EXPORTED_ROWS.add(rowNum - 1);
+ 
+             } catch (SQLException | IOException e) {
+                 EXPORT_ERRORS.increment();
+                 e.printStackTrace();
+             } finally {
+                 EXPORT.recordSince(start);
+             }
+         }
+ 
+         // Streaming report for large tables: rows are flushed to compressed temp files as they
+         // are written, so memory stays flat. Returns the number of expense rows written.
+         public static long generateExpenseReportStreaming(String filePath) {
+             return generateExpenseReportStreaming(filePath, ProgressListener.NONE);
+         }
+ 
+         public static long generateExpenseReportStreaming(String filePath, ProgressListener progress) {
+             long start = System.nanoTime();
+             long total = ExpenseManagerDB.countExpenses();
+             try (ExcelExpenseWriter writer = new ExcelExpenseWriter(filePath)) {
+                 long count = ExpenseManagerDB.streamExpenses(ProgressListener.track(writer, total, progress));
+                 writer.finish();
+                 System.out.println("Excel report generated successfully at: " + filePath);
+                 EXPORTED_ROWS.add(count);
+                 return count;
+             } catch (SQLException | IOException e) {
+                 EXPORT_ERRORS.increment();
+                 e.printStackTrace();
+                 return -1;
+             } finally {
+                 EXPORT.recordSince(start);
+             }
+         }
+     }
+ 
+     // Writes expenses into an SXSSF workbook with a sliding window of rows in memory. Column
+     // widths come from a sample of the first rows instead of autoSizeColumn, and a new sheet
+     // is started whenever the current one reaches Excel's row limit.
+     public static class ExcelExpenseWriter implements ExpenseFileWriter {
+         private static final int ROW_WINDOW = 100;
+         private static final int SAMPLE_ROWS = 1000;
+         private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+         private static final String SHEET_NAME = "Expenses Report";
+         private static final String[] HEADERS = {"ID", "Category", "Amount", "Date"};
+ 
+         private final StagedFile file;
+         private final SXSSFWorkbook workbook;
+         private final int[] sampledWidths = new int[HEADERS.length];
+         private SXSSFSheet sheet;
+         private int rowNum;
+         private long rowsWritten;
+         private boolean widthsApplied;
+ 
+         public ExcelExpenseWriter(String filePath) {
+             this.file = new StagedFile(filePath);
+             this.workbook = new SXSSFWorkbook(ROW_WINDOW);
+             workbook.setCompressTempFiles(true);
+             for (int i = 0; i < HEADERS.length; i++) {
+                 sampledWidths[i] = HEADERS[i].length();
+             }
+             startSheet();
+         }
+ 
+         private void startSheet() {
+             int sheetCount = workbook.getNumberOfSheets();
+             sheet = workbook.createSheet(sheetCount == 0 ? SHEET_NAME : SHEET_NAME + " (" + (sheetCount + 1) + ")");
+             Row headerRow = sheet.createRow(0);
+             for (int i = 0; i < HEADERS.length; i++) {
+                 headerRow.createCell(i).setCellValue(HEADERS[i]);
+             }
+             rowNum = 1;
+             if (widthsApplied) {
+                 applyWidths();
+             }
+         }
+ 
+         @Override
+         public void onRow(int id, String category, double amount, String date) {
+             if (rowNum == MAX_ROWS_PER_SHEET) {
+                 startSheet();
+             }
+             Row row = sheet.createRow(rowNum++);
+             row.createCell(0).setCellValue(id);
+             row.createCell(1).setCellValue(category);
+             row.createCell(2).setCellValue(amount);
+             row.createCell(3).setCellValue(date);
+ 
+             if (!widthsApplied) {
+                 sample(0, Integer.toString(id));
+                 sample(1, category);
+                 sample(2, Double.toString(amount));
+                 sample(3, date);
+                 if (++rowsWritten == SAMPLE_ROWS) {
+                     applyWidths();
+                     widthsApplied = true;
+                 }
+             } else {
+                 rowsWritten++;
+             }
+         }
+ 
+         private void sample(int column, String value) {
+             if (value != null && value.length() > sampledWidths[column]) {
+                 sampledWidths[column] = value.length();
+             }
+         }
+ 
+         // Width is in 1/256ths of a character; two characters of padding, capped at Excel's maximum.
+         private void applyWidths() {
+             for (int i = 0; i < HEADERS.length; i++) {
+                 sheet.setColumnWidth(i, Math.min(sampledWidths[i] + 2, 255) * 256);
+             }
+         }
+ 
+         public int getSheetCount() {
+             return workbook.getNumberOfSheets();
+         }
+ 
+         @Override
+         public void finish() throws IOException {
+             if (!widthsApplied) {
+                 applyWidths();
+             }
+             try (OutputStream fileOut = Files.newOutputStream(file.getTemp())) {
+                 workbook.write(fileOut);
+             }
+             file.commit();
+         }
+ 
+         @Override
+         public void close() throws IOException {
+             try {
+                 workbook.dispose();
+                 workbook.close();
+             } finally {
+                 file.discard();
+             }
+         }
+     }
+ 
+     /* =================== JSON EXPORT/IMPORT (Jackson) =================== */
+     public static class JSONExportImport {
+         private static final ObjectMapper mapper = new ObjectMapper();
+         private static final JsonFactory factory = mapper.getFactory();
+         private static final Metrics.Histogram EXPORT = Metrics.histogram("export.json");
+         private static final Metrics.Histogram IMPORT = Metrics.histogram("import.json");
+         private static final LongAdder EXPORTED_ROWS = Metrics.counter("export.rows");
+         private static final LongAdder IMPORTED_ROWS = Metrics.counter("import.rows");
+         private static final LongAdder EXPORT_ERRORS = Metrics.counter("export.errors");
+         private static final LongAdder IMPORT_ERRORS = Metrics.counter("import.errors");
+ 
+         public static void exportExpensesToJSON(String filePath) {
+             exportExpensesToJSON(filePath, true);
+         }
+ 
+         // Streaming export: rows go from the ResultSet cursor straight into a JsonGenerator, so
+         // memory stays flat however large the table is. pretty=false writes compact JSON.
+         public static long exportExpensesToJSON(String filePath, boolean pretty) {
+             return exportExpensesToJSON(filePath, pretty, ProgressListener.NONE);
+         }
+ 
+         public static long exportExpensesToJSON(String filePath, boolean pretty, ProgressListener progress) {
+             long start = System.nanoTime();
+             long total = ExpenseManagerDB.countExpenses();
+             try (JsonExpenseWriter writer = new JsonExpenseWriter(filePath, pretty)) {
+                 long count = ExpenseManagerDB.streamExpenses(ProgressListener.track(writer, total, progress));
+                 writer.finish();
+                 System.out.println("Expenses exported to JSON file: " + filePath);
+                 EXPORTED_ROWS.add(count);
+                 return count;
+             } catch (SQLException | IOException e) {
+                 EXPORT_ERRORS.increment();
+                 e.printStackTrace();
+                 return -1;
+             } finally {
+                 EXPORT.recordSince(start);
+             }
+         }
+ 
+         // Streaming import: reads the array one object at a time and saves the rows through
+         // ExpenseManagerDB.insertExpenses in batches. Returns the number of rows saved. An
+         // unreadable file or a failed insert stops the import and throws.
+         public static long importExpensesFromJSONStreaming(String filePath) throws IOException, SQLException {
+             return importExpensesFromJSONStreaming(filePath, ExpenseManagerDB.DEFAULT_BATCH_SIZE);
+         }
+ 
+         public static long importExpensesFromJSONStreaming(String filePath, int batchSize)
+                 throws IOException, SQLException {
+             return importExpensesFromJSONStreaming(filePath, batchSize, ProgressListener.NONE);
+         }
+ 
+         public static long importExpensesFromJSONStreaming(String filePath, int batchSize, ProgressListener progress)
+                 throws IOException, SQLException {
+             return importExpensesFromJSONStreaming(filePath, batchSize, progress, saved -> {});
+         }
+ 
+         // Progress for imports is measured in bytes of the input file. Batches are committed as
+         // they fill, so a cancelled or failed import keeps what it saved; savedSoFar gets the
+         // running total after every batch, for callers that need to say how much of the file
+         // made it in.
+         public static long importExpensesFromJSONStreaming(String filePath, int batchSize, ProgressListener progress,
+                                                            LongConsumer savedSoFar) throws IOException, SQLException {
+             long start = System.nanoTime();
+             long saved = 0;
+             File file = new File(filePath);
+             try (JsonParser parser = factory.createParser(file)) {
+                 if (parser.nextToken() != JsonToken.START_ARRAY) {
+                     throw new IOException("Expected a JSON array of expenses in " + filePath);
+                 }
+                 List<Expense> batch = new ArrayList<>(batchSize);
+                 long length = file.length();
+                 long batchFrom = parser.getCurrentLocation().getByteOffset();
+                 JsonToken token;
+                 while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                     batch.add(readExpense(parser));
+                     if (batch.size() == batchSize) {
+                         long batchTo = parser.getCurrentLocation().getByteOffset();
+                         saved += saveBatch(batch, batchSize, progress, batchFrom, batchTo, length);
+                         savedSoFar.accept(saved);
+                         batch.clear();
+                         progress.onProgress(batchTo, length);
+                         batchFrom = batchTo;
+                     }
+                 }
+                 if (!batch.isEmpty()) {
+                     saved += saveBatch(batch, batchSize, progress, batchFrom, length, length);
+                     savedSoFar.accept(saved);
+                 }
+                 if (token != JsonToken.END_ARRAY) {
+                     throw new IOException("Expected an expense object but found " + token + " in " + filePath);
+                 }
+                 System.out.println("Expenses imported from JSON file: " + filePath);
+             } catch (IOException | SQLException e) {
+                 IMPORT_ERRORS.increment();
+                 System.out.println("Import of " + filePath + " failed; " + saved + " expenses were already saved.");
+                 throw e;
+             } catch (CancellationException e) {
+                 System.out.println("Import of " + filePath + " cancelled; " + saved + " expenses were already saved.");
+                 throw e;
+             } finally {
+                 IMPORTED_ROWS.add(saved);
+                 IMPORT.recordSince(start);
+             }
+             return saved;
+         }
+ 
+         // Saves one batch read from bytes [from, to) of the file. Its rows are reported as they
+         // reach SQLite, spread over that byte range, so progress (and a cancel) does not wait
+         // for the batch's commit.
+         private static int saveBatch(List<Expense> batch, int batchSize, ProgressListener progress,
+                                      long from, long to, long length) throws SQLException {
+             return ExpenseManagerDB.insertExpenses(batch, batchSize, rows -> {},
+                                                    (rows, total) -> progress.onProgress(from + (to - from) * rows / total,
+                                                                                         length));
+         }
+ 
+         // Reads the fields of one expense object; the parser is positioned on its START_OBJECT.
+         private static Expense readExpense(JsonParser parser) throws IOException {
+             Expense exp = new Expense();
+             while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                 String field = parser.getCurrentName();
+                 parser.nextToken();
+                 switch (field) {
+                     case "id" -> exp.setId(parser.getValueAsInt());
+                     case "category" -> exp.setCategory(parser.getValueAsString());
+                     case "amount" -> exp.setAmount(parser.getValueAsDouble());
+                     case "date" -> exp.setDate(parser.getValueAsString());
+                     default -> parser.skipChildren();
+                 }
+             }
+             return exp;
+         }
+ 
+         public static List<Expense> importExpensesFromJSON(String filePath) {
+             List<Expense> expenses = new ArrayList<>();
+             long start = System.nanoTime();
+             try {
+                 expenses = mapper.readValue(new File(filePath), new TypeReference<List<Expense>>() {});
+                 System.out.println("Expenses imported from JSON file: " + filePath);
+             } catch (IOException e) {
+                 IMPORT_ERRORS.increment();
+                 e.printStackTrace();
+             } finally {
+                 IMPORT.recordSince(start);
+             }
+             return expenses;
+         }
+     }
+ 
+     // Writes expenses as a JSON array, one row at a time, in the same shape Jackson uses for Expense.
+     public static class JsonExpenseWriter implements ExpenseFileWriter {
+         private final StagedFile file;
+         private final JsonGenerator generator;
+ 
+         public JsonExpenseWriter(String filePath, boolean pretty) throws IOException {
+             file = new StagedFile(filePath);
+             generator = new JsonFactory().createGenerator(file.getTemp().toFile(), JsonEncoding.UTF8);
+             if (pretty) {
+                 generator.useDefaultPrettyPrinter();
+             }
+             generator.writeStartArray();
+         }
+ 
+         @Override
+         public void onRow(int id, String category, double amount, String date) throws IOException {
+             generator.writeStartObject();
+             generator.writeNumberField("id", id);
+             generator.writeStringField("category", category);
+             generator.writeNumberField("amount", amount);
+             generator.writeStringField("date", date);
+             generator.writeEndObject();
+         }
+ 
+         @Override
+         public void finish() throws IOException {
+             generator.writeEndArray();
+             generator.close();
+             file.commit();
+         }
+ 
+         @Override
+         public void close() throws IOException {
+             try {
+                 generator.close();
+             } finally {
+                 file.discard();
+             }
+         }
+     }
+ 
+     /* =================== COLUMNAR EXPENSE STORE (Analytics) =================== */
+     // Date helpers for the analytics code: "YYYY-MM-DD" to epoch days and epoch days to a
+     // month bucket, using plain integer arithmetic so nothing is allocated per row.
+     public static class ExpenseDates {
+         public static final int NO_DATE = Integer.MIN_VALUE;
+ 
+         // Returns NO_DATE for null, malformed or impossible dates.
+         public static int parseEpochDay(String date) {
+             if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+                 return NO_DATE;
+             }
+             int year = digits(date, 0, 4);
+             int month = digits(date, 5, 7);
+             int day = digits(date, 8, 10);
+             if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+                 return NO_DATE;
+             }
+             return epochDay(year, month, day);
+         }
+ 
+         private static int digits(String s, int from, int to) {
+             int value = 0;
+             for (int i = from; i < to; i++) {
+                 int digit = s.charAt(i) - '0';
+                 if (digit < 0 || digit > 9) {
+                     return -1;
+                 }
+                 value = value * 10 + digit;
+             }
+             return value;
+         }
+ 
+         private static int lengthOfMonth(int year, int month) {
+             switch (month) {
+                 case 2:
+                     boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                     return leap ? 29 : 28;
+                 case 4: case 6: case 9: case 11:
+                     return 30;
+                 default:
+                     return 31;
+             }
+         }
+ 
+         // Days since 1970-01-01 for a proleptic Gregorian date (civil calendar algorithm).
+         public static int epochDay(int year, int month, int day) {
+             int y = month <= 2 ? year - 1 : year;
+             int era = (y >= 0 ? y : y - 399) / 400;
+             int yearOfEra = y - era * 400;
+             int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+             int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+             return era * 146097 + dayOfEra - 719468;
+         }
+ 
+         // Months since year 0 (year * 12 + month - 1) for an epoch day.
+         public static int monthIndex(int epochDay) {
+             int z = epochDay + 719468;
+             int era = (z >= 0 ? z : z - 146096) / 146097;
+             int dayOfEra = z - era * 146097;
+             int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+             int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+             int mp = (5 * dayOfYear + 2) / 153;
+             int month = mp < 10 ? mp + 3 : mp - 9;
+             int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+             return year * 12 + month - 1;
+         }
+ 
+         public static YearMonth toYearMonth(int monthIndex) {
+             return YearMonth.of(monthIndex / 12, monthIndex % 12 + 1);
+         }
+     }
+ 
+     // Expenses held as parallel primitive columns for analytics: ids, amounts, dictionary-encoded
+     // categories and epoch-day dates. Aggregations run as tight loops over the arrays without
+     // creating an object per row; only the (small) results are boxed.
+     public static class ExpenseColumnStore {
+         private int size;
+         private int[] ids;
+         private double[] amounts;
+         private int[] categoryCodes;
+         private int[] epochDays;
+         private final List<String> categories = new ArrayList<>();
+         private final Map<String, Integer> categoryCodesByName = new HashMap<>();
+         private int minEpochDay = Integer.MAX_VALUE;
+         private int maxEpochDay = Integer.MIN_VALUE;
+ 
+         public ExpenseColumnStore(int initialCapacity) {
+             int capacity = Math.max(16, initialCapacity);
+             ids = new int[capacity];
+             amounts = new double[capacity];
+             categoryCodes = new int[capacity];
+             epochDays = new int[capacity];
+         }
+ 
+         // Loads the whole expenses table with one streaming scan.
+         public static ExpenseColumnStore load() throws SQLException, IOException {
+             long count = ExpenseManagerDB.countExpenses();
+             ExpenseColumnStore store = new ExpenseColumnStore((int) Math.min(count, Integer.MAX_VALUE - 8));
+             ExpenseManagerDB.streamExpenses(store::add);
+             return store;
+         }
+ 
+         public static ExpenseColumnStore of(Collection<Expense> expenses) {
+             ExpenseColumnStore store = new ExpenseColumnStore(expenses.size());
+             for (Expense exp : expenses) {
+                 store.add(exp.getId(), exp.getCategory(), exp.getAmount(), exp.getDate());
+             }
+             return store;
+         }
+ 
+         public void add(int id, String category, double amount, String date) {
+             if (size == ids.length) {
+                 int capacity = ids.length + (ids.length >> 1);
+                 ids = Arrays.copyOf(ids, capacity);
+                 amounts = Arrays.copyOf(amounts, capacity);
+                 categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+                 epochDays = Arrays.copyOf(epochDays, capacity);
+             }
+             Integer code = categoryCodesByName.get(category);
+             if (code == null) {
+                 code = categories.size();
+                 categories.add(category);
+                 categoryCodesByName.put(category, code);
+             }
+             int epochDay = ExpenseDates.parseEpochDay(date);
+             if (epochDay != ExpenseDates.NO_DATE) {
+                 minEpochDay = Math.min(minEpochDay, epochDay);
+                 maxEpochDay = Math.max(maxEpochDay, epochDay);
+             }
+             ids[size] = id;
+             amounts[size] = amount;
+             categoryCodes[size] = code;
+             epochDays[size] = epochDay;
+             size++;
+         }
+ 
+         public int size() {
+             return size;
+         }
+ 
+         public double total() {
+             double total = 0;
+             for (int i = 0; i < size; i++) {
+                 total += amounts[i];
+             }
+             return total;
+         }
+ 
+         public Map<String, Double> totalsByCategory() {
+             double[] totals = new double[categories.size()];
+             for (int i = 0; i < size; i++) {
+                 totals[categoryCodes[i]] += amounts[i];
+             }
+             Map<String, Double> result = new LinkedHashMap<>();
+             for (int code = 0; code < totals.length; code++) {
+                 result.put(categories.get(code), totals[code]);
+             }
+             return result;
+         }
+ 
+         // Totals per calendar month, oldest first. Rows without a valid date are left out.
+         public SortedMap<YearMonth, Double> totalsByMonth() {
+             SortedMap<YearMonth, Double> result = new TreeMap<>();
+             if (minEpochDay > maxEpochDay) {
+                 return result;
+             }
+             int firstMonth = ExpenseDates.monthIndex(minEpochDay);
+             double[] totals = new double[ExpenseDates.monthIndex(maxEpochDay) - firstMonth + 1];
+             boolean[] seen = new boolean[totals.length];
+             for (int i = 0; i < size; i++) {
+                 int epochDay = epochDays[i];
+                 if (epochDay != ExpenseDates.NO_DATE) {
+                     int bucket = ExpenseDates.monthIndex(epochDay) - firstMonth;
+                     totals[bucket] += amounts[i];
+                     seen[bucket] = true;
+                 }
+             }
+             for (int bucket = 0; bucket < totals.length; bucket++) {
+                 if (seen[bucket]) {
+                     result.put(ExpenseDates.toYearMonth(firstMonth + bucket), totals[bucket]);
+                 }
+             }
+             return result;
+         }
+ 
+         // The n largest expenses by amount, largest first, using a size-n min-heap of row numbers.
+         // A negative n is treated as 0.
+         public List<Expense> topN(int n) {
+             int limit = Math.max(0, Math.min(n, size));
+             int[] heap = new int[limit];
+             int heapSize = 0;
+             for (int row = 0; row < size; row++) {
+                 if (heapSize < limit) {
+                     heap[heapSize] = row;
+                     siftUp(heap, heapSize++);
+                 } else if (limit > 0 && amounts[row] > amounts[heap[0]]) {
+                     heap[0] = row;
+                     siftDown(heap, heapSize);
+                 }
+             }
+             List<Expense> result = new ArrayList<>(heapSize);
+             while (heapSize > 0) {
+                 result.add(get(heap[0]));
+                 heap[0] = heap[--heapSize];
+                 siftDown(heap, heapSize);
+             }
+             Collections.reverse(result);
+             return result;
+         }
+ 
+         private void siftUp(int[] heap, int index) {
+             while (index > 0) {
+                 int parent = (index - 1) / 2;
+                 if (amounts[heap[parent]] <= amounts[heap[index]]) {
+                     return;
+                 }
+                 swap(heap, parent, index);
+                 index = parent;
+             }
+         }
+ 
+         private void siftDown(int[] heap, int heapSize) {
+             int index = 0;
+             while (true) {
+                 int smallest = index;
+                 int left = 2 * index + 1;
+                 int right = left + 1;
+                 if (left < heapSize && amounts[heap[left]] < amounts[heap[smallest]]) {
+                     smallest = left;
+                 }
+                 if (right < heapSize && amounts[heap[right]] < amounts[heap[smallest]]) {
+                     smallest = right;
+                 }
+                 if (smallest == index) {
+                     return;
+                 }
+                 swap(heap, smallest, index);
+                 index = smallest;
+             }
+         }
+ 
+         private static void swap(int[] heap, int a, int b) {
+             int tmp = heap[a];
+             heap[a] = heap[b];
+             heap[b] = tmp;
+         }
+ 
+         // Materializes one row; the date is rebuilt from its epoch day.
+         public Expense get(int row) {
+             int epochDay = epochDays[row];
+             String date = epochDay == ExpenseDates.NO_DATE ? null : LocalDate.ofEpochDay(epochDay).toString();
+             return new Expense(ids[row], categories.get(categoryCodes[row]), amounts[row], date);
+         }
+     }
+ 
+     /* =================== CSV EXPORT =================== */
+     // Writes expenses as RFC 4180 CSV with a header row.
+     public static class CsvExpenseWriter implements ExpenseFileWriter {
+         private final StagedFile file;
+         private final BufferedWriter out;
+ 
+         public CsvExpenseWriter(String filePath) throws IOException {
+             file = new StagedFile(filePath);
+             out = Files.newBufferedWriter(file.getTemp(), StandardCharsets.UTF_8);
+             out.write("id,category,amount,date\r\n");
+         }
+ 
+         @Override
+         public void onRow(int id, String category, double amount, String date) throws IOException {
+             out.write(Integer.toString(id));
+             out.write(',');
+             writeField(category);
+             out.write(',');
+             out.write(Double.toString(amount));
+             out.write(',');
+             writeField(date);
+             out.write("\r\n");
+         }
+ 
+         // Quotes a field only when it contains a delimiter, quote or line break.
+         private void writeField(String value) throws IOException {
+             if (value == null) {
+                 return;
+             }
+             boolean quote = false;
+             for (int i = 0; i < value.length() && !quote; i++) {
+                 char c = value.charAt(i);
+                 quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+             }
+             if (!quote) {
+                 out.write(value);
+                 return;
+             }
+             out.write('"');
+             out.write(value.replace("\"", "\"\""));
+             out.write('"');
+         }
+ 
+         @Override
+         public void finish() throws IOException {
+             out.close();
+             file.commit();
+         }
+ 
+         @Override
+         public void close() throws IOException {
+             try {
+                 out.close();
+             } finally {
+                 file.discard();
+             }
+         }
+     }
+ 
+     /* =================== EXPORT PIPELINE (One scan, many formats) =================== */
+     // Reads the expenses table once and fans batches of rows out to one writer thread per
+     // output format. Each stage has a bounded queue, so a slow writer holds back the scan
+     // (backpressure) instead of letting rows pile up in memory; the total time is roughly
+     // that of the slowest writer rather than the sum of all of them.
+     public static class ExportPipeline {
+         private static final Metrics.Histogram EXPORT_ALL = Metrics.histogram("export.all");
+         private static final LongAdder EXPORTED_ROWS = Metrics.counter("export.rows");
+         private static final LongAdder EXPORT_ERRORS = Metrics.counter("export.errors");
+         private static final int BATCH_ROWS = 512;
+         private static final int QUEUE_BATCHES = 32;
+ 
+         // Rows in columnar form. A batch is shared read-only by every stage once queued.
+         private static final class RowBatch {
+             final int[] ids = new int[BATCH_ROWS];
+             final String[] categories = new String[BATCH_ROWS];
+             final double[] amounts = new double[BATCH_ROWS];
+             final String[] dates = new String[BATCH_ROWS];
+             int size;
+         }
+ 
+         // END finishes every writer's file; ABORT, sent when the scan failed, discards them
+         private static final RowBatch END = new RowBatch();
+         private static final RowBatch ABORT = new RowBatch();
+ 
+         // Per-stage counters, readable once run() returns.
+         public static class StageMetrics {
+             public final String name;
+             long rows;
+             long busyNanos;
+             long blockedNanos;
+             long elapsedNanos;
+             Throwable failure;
+ 
+             StageMetrics(String name) {
+                 this.name = name;
+             }
+ 
+             public long getRows() { return rows; }
+             public long getBusyMillis() { return busyNanos / 1_000_000; }
+             // Time the table scan spent waiting for this stage's queue to drain.
+             public long getBackpressureMillis() { return blockedNanos / 1_000_000; }
+             public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+             public double getRowsPerSecond() { return busyNanos == 0 ? 0 : rows * 1e9 / busyNanos; }
+             public Throwable getFailure() { return failure; }
+ 
+             @Override
+             public String toString() {
+                 return String.format("%-6s %,10d rows  %,8.0f rows/s busy  busy %,6d ms  backpressure %,6d ms  elapsed %,6d ms%s",
+                                      name, rows, getRowsPerSecond(), getBusyMillis(), getBackpressureMillis(),
+                                      getElapsedMillis(), failure == null ? "" : "  FAILED: " + failure);
+             }
+         }
+ 
+         private static final class Stage {
+             final ExpenseFileWriter writer;
+             final BlockingQueue<RowBatch> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+             final StageMetrics metrics;
+             Thread thread;
+ 
+             Stage(String name, ExpenseFileWriter writer) {
+                 this.writer = writer;
+                 this.metrics = new StageMetrics(name);
+             }
+ 
+             // Writes every batch; after a failure it keeps draining so the scan is never stuck.
+             // The file is only finished if every row made it into it.
+             void run() {
+                 long started = System.nanoTime();
+                 try {
+                     while (true) {
+                         RowBatch batch = queue.take();
+                         if (batch == END || batch == ABORT) {
+                             if (batch == END && metrics.failure == null) {
+                                 long start = System.nanoTime();
+                                 try {
+                                     writer.finish();
+                                 } catch (IOException | RuntimeException e) {
+                                     metrics.failure = e;
+                                 }
+                                 metrics.busyNanos += System.nanoTime() - start;
+                             }
+                             break;
+                         }
+                         if (metrics.failure != null) {
+                             continue;
+                         }
+                         long start = System.nanoTime();
+                         try {
+                             for (int i = 0; i < batch.size; i++) {
+                                 writer.onRow(batch.ids[i], batch.categories[i], batch.amounts[i], batch.dates[i]);
+                             }
+                             metrics.rows += batch.size;
+                         } catch (IOException | RuntimeException e) {
+                             metrics.failure = e;
+                         }
+                         metrics.busyNanos += System.nanoTime() - start;
+                     }
+                 } catch (InterruptedException e) {
+                     Thread.currentThread().interrupt();
+                     metrics.failure = e;
+                 } finally {
+                     long start = System.nanoTime();
+                     try {
+                         writer.close();
+                     } catch (IOException | RuntimeException e) {
+                         if (metrics.failure == null) {
+                             metrics.failure = e;
+                         }
+                     }
+                     metrics.busyNanos += System.nanoTime() - start;
+                     metrics.elapsedNanos = System.nanoTime() - started;
+                 }
+             }
+         }
+ 
+         private final List<Stage> stages = new ArrayList<>();
+ 
+         public ExportPipeline addStage(String name, ExpenseFileWriter writer) {
+             stages.add(new Stage(name, writer));
+             return this;
+         }
+ 
+         // Scans the table once on the calling thread while the stages write concurrently.
+         // Stage failures are reported in the returned metrics; a failed or cancelled scan is
+         // rethrown after every stage has been shut down and its partial file deleted.
+         public List<StageMetrics> run(ProgressListener progress) throws SQLException, IOException {
+             for (Stage stage : stages) {
+                 stage.thread = new Thread(stage::run, "export-" + stage.metrics.name);
+                 stage.thread.start();
+             }
+             long total = ExpenseManagerDB.countExpenses();
+             RowBatch[] current = {new RowBatch()};
+             long[] done = new long[1];
+             boolean scanned = false;
+             try {
+                 ExpenseManagerDB.streamExpenses((id, category, amount, date) -> {
+                     RowBatch batch = current[0];
+                     batch.ids[batch.size] = id;
+                     batch.categories[batch.size] = category;
+                     batch.amounts[batch.size] = amount;
+                     batch.dates[batch.size] = date;
+                     if (++batch.size == BATCH_ROWS) {
+                         publish(batch);
+                         current[0] = new RowBatch();
+                         done[0] += BATCH_ROWS;
+                         progress.onProgress(done[0], total);
+                     }
+                 });
+                 if (current[0].size > 0) {
+                     publish(current[0]);
+                 }
+                 scanned = true;
+             } finally {
+                 for (Stage stage : stages) {
+                     putUninterruptibly(stage, scanned ? END : ABORT);
+                 }
+                 for (Stage stage : stages) {
+                     joinUninterruptibly(stage.thread);
+                 }
+             }
+             List<StageMetrics> metrics = new ArrayList<>();
+             for (Stage stage : stages) {
+                 metrics.add(stage.metrics);
+             }
+             return metrics;
+         }
+ 
+         private void publish(RowBatch batch) throws IOException {
+             for (Stage stage : stages) {
+                 long start = System.nanoTime();
+                 try {
+                     stage.queue.put(batch);
+                 } catch (InterruptedException e) {
+                     Thread.currentThread().interrupt();
+                     throw new IOException("Interrupted while exporting", e);
+                 }
+                 stage.metrics.blockedNanos += System.nanoTime() - start;
+             }
+         }
+ 
+         private static void putUninterruptibly(Stage stage, RowBatch batch) {
+             boolean interrupted = Thread.interrupted();
+             while (true) {
+                 try {
+                     stage.queue.put(batch);
+                     break;
+                 } catch (InterruptedException e) {
+                     interrupted = true;
+                 }
+             }
+             if (interrupted) {
+                 Thread.currentThread().interrupt();
+             }
+         }
+ 
+         private static void joinUninterruptibly(Thread thread) {
+             boolean interrupted = Thread.interrupted();
+             while (true) {
+                 try {
+                     thread.join();
+                     break;
+                 } catch (InterruptedException e) {
+                     interrupted = true;
+                 }
+             }
+             if (interrupted) {
+                 Thread.currentThread().interrupt();
+             }
+         }
+ 
+         // JSON (compact), XLSX and CSV from a single scan. Returns the rows exported, or -1 if
+         // the scan or any writer failed (details are printed to the console).
+         public static long exportAll(String jsonPath, String excelPath, String csvPath) {
+             return exportAll(jsonPath, excelPath, csvPath, ProgressListener.NONE);
+         }
+ 
+         public static long exportAll(String jsonPath, String excelPath, String csvPath, ProgressListener progress) {
+             ExportPipeline pipeline = new ExportPipeline();
+             try {
+                 pipeline.addStage("json", new JsonExpenseWriter(jsonPath, false));
+                 pipeline.addStage("xlsx", new ExcelExpenseWriter(excelPath));
+                 pipeline.addStage("csv", new CsvExpenseWriter(csvPath));
+             } catch (IOException e) {
+                 e.printStackTrace();
+                 pipeline.closeAll();
+                 return -1;
+             }
+             long start = System.nanoTime();
+             try {
+                 List<StageMetrics> metrics = pipeline.run(progress);
+                 long rows = -1;
+                 boolean failed = false;
+                 for (StageMetrics stage : metrics) {
+                     System.out.println(stage);
+                     rows = stage.getRows();
+                     if (stage.getFailure() != null) {
+                         stage.getFailure().printStackTrace();
+                         failed = true;
+                     }
+                 }
+                 System.out.printf("Exported %s, %s and %s in %,d ms%n", jsonPath, excelPath, csvPath,
+                                   (System.nanoTime() - start) / 1_000_000);
+                 if (failed) {
+                     EXPORT_ERRORS.increment();
+                     return -1;
+                 }
+                 EXPORTED_ROWS.add(rows);
+                 return rows;
+             } catch (SQLException | IOException e) {
+                 EXPORT_ERRORS.increment();
+                 e.printStackTrace();
+                 return -1;
+             } finally {
+                 EXPORT_ALL.recordSince(start);
+             }
+         }
+ 
+         private void closeAll() {
+             for (Stage stage : stages) {
+                 try {
+                     stage.writer.close();
+                 } catch (IOException e) {
+                     e.printStackTrace();
+                 }
+             }
+         }
+     }
+ 
+     /* =================== MATH QUIZ GUI (Swing) =================== */
+     public static class MathQuizGUI extends JFrame {
+         private JLabel questionLabel, scoreLabel;
+         private JTextField answerField;
+         private JButton submitButton;
+         private QuizEngine.Session quiz = QuizEngine.STANDARD.newSession();
+ 
+         public MathQuizGUI() {
+             setTitle("Math Quiz");
+             setSize(300, 200);
+             setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+             setLayout(new GridLayout(4, 1));
+ 
+             questionLabel = new JLabel("Question will appear here");
+             scoreLabel = new JLabel("Score: 0");
+             answerField = new JTextField();
+             submitButton = new JButton("Submit");
+ 
+             add(questionLabel);
+             add(answerField);
+             add(submitButton);
+             add(scoreLabel);
+ 
+             submitButton.addActionListener(e -> submitAnswer());
+             generateQuestion();
+         }
+ 
+         private void generateQuestion() {
+             questionLabel.setText("Solve: " + quiz.currentQuestion().text());
+             answerField.setText("");
+         }
+ 
+         private void submitAnswer() {
+             try {
+                 int userAnswer = Integer.parseInt(answerField.getText());
+                 quiz.submit(userAnswer);
+                 if (quiz.isFinished()) {
+                     String player = JOptionPane.showInputDialog(this, "Quiz Over! Your Score: " + quiz.getScore()
+                                                                 + "\nName for the leaderboard:", System.getProperty("user.name"));
+                     if (player == null || player.isBlank()) {
+                         player = System.getProperty("user.name");
+                     }
+                     // Recording can wait on the database (first use loads the leaderboard, a full
+                     // queue waits for the writer), so it runs in the background
+                     String name = player.trim();
+                     int score = quiz.getScore();
+                     int total = quiz.getTotalQuestions();
+                     BackgroundTasks.submit(progress -> {
+                         QuizResults results = QuizResults.shared();
+                         results.record(name, score, total);
+                         return "You are #" + results.leaderboard().rank(name)
+                                + " of " + results.leaderboard().size() + " players.";
+                     }, message -> JOptionPane.showMessageDialog(this, message),
+                        error -> JOptionPane.showMessageDialog(this, "Could not record the result: " + error.getMessage(),
+                                                               "Error", JOptionPane.ERROR_MESSAGE));
+                     // Reset quiz for next time:
+                     quiz = QuizEngine.STANDARD.newSession();
+                 }
+                 generateQuestion();
+                 scoreLabel.setText("Score: " + quiz.getScore());
+             } catch (NumberFormatException ex) {
+                 JOptionPane.showMessageDialog(this, "Please enter a valid number!");
+             }
+         }
+     }
+ 
+     /* =================== BACKGROUND TASKS (keeps DB and file work off the Swing EDT) =================== */
+     public static class BackgroundTasks {
+         private static final AtomicInteger threadCount = new AtomicInteger();
+         private static final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+             Thread thread = new Thread(r, "background-task-" + threadCount.incrementAndGet());
+             thread.setDaemon(true);
+             return thread;
+         });
+ 
+         public interface Work<T> {
+             T run(ProgressListener progress) throws Exception;
+         }
+ 
+         // Runs work on the background executor. Progress (0-100) is published through the
+         // SwingWorker's "progress" property; onDone/onError are called on the EDT. A cancelled
+         // task stops at its next progress report and calls neither.
+         public static <T> SwingWorker<T, Void> submit(Work<T> work, Consumer<T> onDone, Consumer<Throwable> onError) {
+             SwingWorker<T, Void> worker = new SwingWorker<T, Void>() {
+                 @Override
+                 protected T doInBackground() throws Exception {
+                     return work.run((done, total) -> {
+                         if (isCancelled()) {
+                             throw new CancellationException();
+                         }
+                         if (total > 0) {
+                             setProgress((int) Math.min(100, done * 100 / total));
+                         }
+                     });
+                 }
+ 
+                 @Override
+                 protected void done() {
+                     if (isCancelled()) {
+                         return;
+                     }
+                     try {
+                         onDone.accept(get());
+                     } catch (InterruptedException e) {
+                         Thread.currentThread().interrupt();
+                     } catch (ExecutionException e) {
+                         onError.accept(e.getCause());
+                     }
+                 }
+             };
+             executor.execute(worker);
+             return worker;
+         }
+     }
+ 
+     /* =================== PAGED EXPENSE TABLE MODEL =================== */
+     // Table model that only holds the pages the JTable is actually showing. Pages are loaded
+     // in the background (keyset by id once a page's first id is known, offset otherwise) and
+     // kept in a small LRU cache; rows read before their page arrives render blank until it does.
+     public static class ExpenseTableModel extends AbstractTableModel {
+         static final int PAGE_SIZE = 200;
+         private static final int MAX_CACHED_PAGES = 50;
+         private static final int MAX_LOADS_IN_FLIGHT = 2;
+         private static final int MAX_PENDING_LOADS = 8;
+         private static final int RETRY_DELAY_MILLIS = 1000;
+         private static final String[] COLUMNS = {"ID", "Category", "Amount", "Date"};
+         private static final Class<?>[] COLUMN_CLASSES = {Integer.class, String.class, Double.class, String.class};
+         // From the request to the rows reaching the table, waiting in line for a worker included
+         private static final Metrics.Histogram REFRESH = Metrics.histogram("gui.loadExpenses");
+         private static final Metrics.Histogram PAGE_LOAD = Metrics.histogram("gui.page.load");
+ 
+         private final Map<Integer, List<Expense>> pages =
+             new LinkedHashMap<Integer, List<Expense>>(16, 0.75f, true) {
+                 @Override
+                 protected boolean removeEldestEntry(Map.Entry<Integer, List<Expense>> eldest) {
+                     return size() > MAX_CACHED_PAGES;
+                 }
+             };
+         // Lower bound for the first id of each page; only valid for pages that have not shifted.
+         private final Map<Integer, Integer> pageFirstIds = new HashMap<>();
+         private final Set<Integer> loading = new HashSet<>();
+         private final Deque<Integer> pending = new ArrayDeque<>();
+         private int rowCount;
+         // Bumped whenever cached positions become invalid, so in-flight loads are discarded.
+         private int generation;
+ 
+         @Override
+         public int getRowCount() {
+             return rowCount;
+         }
+ 
+         @Override
+         public int getColumnCount() {
+             return COLUMNS.length;
+         }
+ 
+         @Override
+         public String getColumnName(int column) {
+             return COLUMNS[column];
+         }
+ 
+         @Override
+         public Class<?> getColumnClass(int column) {
+             return COLUMN_CLASSES[column];
+         }
+ 
+         @Override
+         public Object getValueAt(int row, int column) {
+             Expense exp = getExpenseAt(row);
+             if (exp == null) {
+                 return null;
+             }
+             return switch (column) {
+                 case 0 -> exp.getId();
+                 case 1 -> exp.getCategory();
+                 case 2 -> exp.getAmount();
+                 default -> exp.getDate();
+             };
+         }
+ 
+         // The expense at a row if its page is cached; otherwise schedules the page and returns null.
+         public Expense getExpenseAt(int row) {
+             int page = row / PAGE_SIZE;
+             List<Expense> data = pages.get(page);
+             if (data == null) {
+                 requestPage(page);
+                 return null;
+             }
+             int index = row % PAGE_SIZE;
+             return index < data.size() ? data.get(index) : null;
+         }
+ 
+         // Re-reads the row count and drops every cached page.
+         public void refresh() {
+             int expected = ++generation;
+             long start = System.nanoTime();
+             BackgroundTasks.submit(progress -> ExpenseManagerDB.countExpenses(), count -> {
+                 REFRESH.recordSince(start);
+                 if (expected != generation) {
+                     return;
+                 }
+                 clearPagesFrom(0);
+                 rowCount = (int) count.longValue();
+                 fireTableDataChanged();
+             }, Throwable::printStackTrace);
+         }
+ 
+         // Rows from the new expense's position on shift down by one, so their pages and page
+         // anchors are dropped. `row` is its place in id order (ExpenseManagerDB.rowOfExpense).
+         public void expenseAdded(int row) {
+             if (row < 0 || row > rowCount) {
+                 refresh();
+                 return;
+             }
+             int page = row / PAGE_SIZE;
+             generation++;
+             clearPagesFrom(page);
+             pageFirstIds.keySet().removeIf(p -> p > page);
+             rowCount++;
+             fireTableRowsInserted(row, row);
+         }
+ 
+         // Rows after the deleted one shift up by one, so their pages and page anchors are dropped.
+         public void expenseDeleted(int row, int id) {
+             Expense exp = row < rowCount ? getExpenseAt(row) : null;
+             if (exp == null || exp.getId() != id) {
+                 refresh();
+                 return;
+             }
+             int page = row / PAGE_SIZE;
+             generation++;
+             clearPagesFrom(page);
+             pageFirstIds.keySet().removeIf(p -> p > page);
+             rowCount--;
+             fireTableRowsDeleted(row, row);
+         }
+ 
+         private void clearPagesFrom(int firstPage) {
+             pages.keySet().removeIf(p -> p >= firstPage);
+             loading.clear();
+             pending.clear();
+             if (firstPage == 0) {
+                 pageFirstIds.clear();
+             }
+         }
+ 
+         // Only a couple of pages load at once; while scrolling fast, older pending pages
+         // (rows that have scrolled out of view) are dropped in favour of newer ones.
+         private void requestPage(int page) {
+             if (loading.contains(page) || pages.containsKey(page)) {
+                 return;
+             }
+             if (loading.size() >= MAX_LOADS_IN_FLIGHT) {
+                 pending.remove(page);
+                 pending.addLast(page);
+                 if (pending.size() > MAX_PENDING_LOADS) {
+                     pending.removeFirst();
+                 }
+                 return;
+             }
+             loading.add(page);
+             int expected = generation;
+             Integer firstId = pageFirstIds.get(page);
+             long start = System.nanoTime();
+             BackgroundTasks.submit(progress -> firstId != null
+                                        ? ExpenseManagerDB.getExpensePage(firstId, PAGE_SIZE)
+                                        : ExpenseManagerDB.getExpensePageAt((long) page * PAGE_SIZE, PAGE_SIZE),
+                                    data -> {
+                                        PAGE_LOAD.recordSince(start);
+                                        pageLoaded(page, data, expected);
+                                    },
+                                    error -> {
+                                        error.printStackTrace();
+                                        pageFailed(page, expected);
+                                    });
+         }
+ 
+         // The pages waiting behind a failed one still load. The failed page is asked for again
+         // after a pause, by redrawing its rows: only rows still on screen request it.
+         private void pageFailed(int page, int expected) {
+             if (expected != generation) {
+                 return;
+             }
+             loading.remove(page);
+             if (!pending.isEmpty()) {
+                 requestPage(pending.removeLast());
+             }
+             javax.swing.Timer retry = new javax.swing.Timer(RETRY_DELAY_MILLIS, e -> {
+                 int firstRow = page * PAGE_SIZE;
+                 int lastRow = Math.min(firstRow + PAGE_SIZE, rowCount) - 1;
+                 if (expected == generation && firstRow <= lastRow) {
+                     fireTableRowsUpdated(firstRow, lastRow);
+                 }
+             });
+             retry.setRepeats(false);
+             retry.start();
+         }
+ 
+         private void pageLoaded(int page, List<Expense> data, int expected) {
+             if (expected != generation) {
+                 return;
+             }
+             loading.remove(page);
+             pages.put(page, data);
+             if (!data.isEmpty()) {
+                 pageFirstIds.put(page, data.get(0).getId());
+                 pageFirstIds.put(page + 1, data.get(data.size() - 1).getId() + 1);
+             }
+             int firstRow = page * PAGE_SIZE;
+             int lastRow = Math.min(firstRow + PAGE_SIZE, rowCount) - 1;
+             if (firstRow <= lastRow) {
+                 fireTableRowsUpdated(firstRow, lastRow);
+             }
+             if (!pending.isEmpty()) {
+                 requestPage(pending.removeLast());
+             }
+         }
+     }
+ 
+     /* =================== EXPENSE MANAGER GUI (Swing) =================== */
+     public static class ExpenseManagerGUI extends JFrame {
+         private JTextField categoryField, amountField, dateField;
+         private JButton addButton, deleteButton;
+         private ExpenseTableModel tableModel;
+         private JTable expenseTable;
+         private JProgressBar progressBar;
+         private JButton cancelButton;
+         private JLabel totalsLabel;
+         private SwingWorker<?, ?> longTask;
+ 
+         public ExpenseManagerGUI() {
+             setTitle("Expense Manager");
+             setSize(600, 400);
+             setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+             setLayout(new BorderLayout());
+ 
+             // Panel for input fields
+             JPanel inputPanel = new JPanel(new GridLayout(3, 2));
+             inputPanel.add(new JLabel("Category:"));
+             categoryField = new JTextField();
+             inputPanel.add(categoryField);
+ 
+             inputPanel.add(new JLabel("Amount:"));
+             amountField = new JTextField();
+             inputPanel.add(amountField);
+ 
+             inputPanel.add(new JLabel("Date (YYYY-MM-DD):"));
+             dateField = new JTextField();
+             inputPanel.add(dateField);
+ 
+             // Panel for buttons
+             JPanel buttonPanel = new JPanel();
+             addButton = new JButton("Add Expense");
+             deleteButton = new JButton("Delete Expense");
+             // Additional buttons for JSON export/import and Excel report
+             JButton exportJsonButton = new JButton("Export JSON");
+             JButton importJsonButton = new JButton("Import JSON");
+             JButton exportExcelButton = new JButton("Export Excel");
+             JButton exportAllButton = new JButton("Export All");
+             JButton searchButton = new JButton("Search");
+ 
+             buttonPanel.add(addButton);
+             buttonPanel.add(deleteButton);
+             buttonPanel.add(searchButton);
+             buttonPanel.add(exportJsonButton);
+             buttonPanel.add(importJsonButton);
+             buttonPanel.add(exportExcelButton);
+             buttonPanel.add(exportAllButton);
+ 
+             // Progress of the running export/import, with a way to cancel it
+             JPanel statusPanel = new JPanel(new BorderLayout());
+             progressBar = new JProgressBar(0, 100);
+             progressBar.setStringPainted(true);
+             progressBar.setString("Idle");
+             cancelButton = new JButton("Cancel");
+             cancelButton.setEnabled(false);
+             statusPanel.add(progressBar, BorderLayout.CENTER);
+             statusPanel.add(cancelButton, BorderLayout.EAST);
+ 
+             // Live totals, read from the trigger-maintained summary tables
+             totalsLabel = new JLabel("Total: -", SwingConstants.CENTER);
+ 
+             JPanel controlPanel = new JPanel(new GridLayout(3, 1));
+             controlPanel.add(buttonPanel);
+             controlPanel.add(statusPanel);
+             controlPanel.add(totalsLabel);
+ 
+             // Table for displaying expenses; rows are paged in on demand
+             tableModel = new ExpenseTableModel();
+             expenseTable = new JTable(tableModel);
+             JScrollPane scrollPane = new JScrollPane(expenseTable);
+ 
+             add(inputPanel, BorderLayout.NORTH);
+             add(controlPanel, BorderLayout.CENTER);
+             add(scrollPane, BorderLayout.SOUTH);
+ 
+             // Button actions
+             addButton.addActionListener(e -> addExpense());
+             deleteButton.addActionListener(e -> deleteExpense());
+             searchButton.addActionListener(e -> searchExpenses());
+             exportJsonButton.addActionListener(e -> runLongTask("Exporting JSON",
+                 progress -> JSONExportImport.exportExpensesToJSON("expenses_export.json", true, progress),
+                 count -> "Exported " + count + " expenses to expenses_export.json"));
+             importJsonButton.addActionListener(e -> runLongTask("Importing JSON",
+                 progress -> importCancellable("expenses_export.json", progress),
+                 count -> {
+                     loadExpenses();
+                     return "Imported " + count + " expenses.";
+                 }));
+             exportExcelButton.addActionListener(e -> runLongTask("Generating Excel report",
+                 progress -> ExcelReportGenerator.generateExpenseReportStreaming("Expense_Report.xlsx", progress),
+                 count -> "Excel report generated: Expense_Report.xlsx"));
+             exportAllButton.addActionListener(e -> runLongTask("Exporting JSON, Excel and CSV",
+                 progress -> ExportPipeline.exportAll("expenses_export.json", "Expense_Report.xlsx",
+                                                      "expenses_export.csv", progress),
+                 count -> "Exported " + count + " expenses to expenses_export.json, Expense_Report.xlsx and expenses_export.csv"));
+             cancelButton.addActionListener(e -> {
+                 if (longTask != null) {
+                     longTask.cancel(true);
+                 }
+             });
+ 
+             loadExpenses();
+         }
+ 
+         // Runs one export/import at a time in the background, showing progress until it finishes.
+         // The work returns a row count, or -1 if it failed (the cause is printed to the console).
+         // A failed or cancelled export leaves no output file behind, and any earlier one untouched.
+         private void runLongTask(String label, BackgroundTasks.Work<Long> work,
+                                  Function<Long, String> successMessage) {
+             if (longTask != null && !longTask.isDone()) {
+                 JOptionPane.showMessageDialog(this, "Please wait for the current task to finish or cancel it.");
+                 return;
+             }
+             progressBar.setValue(0);
+             progressBar.setString(label + "...");
+             cancelButton.setEnabled(true);
+             SwingWorker<Long, Void> task = BackgroundTasks.submit(work, count -> {
+                 finishLongTask("Idle");
+                 JOptionPane.showMessageDialog(this, count < 0 ? label + " failed; no file was written." : successMessage.apply(count));
+             }, this::showError);
+             task.addPropertyChangeListener(evt -> {
+                 if ("progress".equals(evt.getPropertyName())) {
+                     progressBar.setValue((Integer) evt.getNewValue());
+                     progressBar.setString(label + "... " + evt.getNewValue() + "%");
+                 } else if ("state".equals(evt.getPropertyName()) && task.isCancelled()) {
+                     finishLongTask(label + " cancelled");
+                 }
+             });
+             longTask = task;
+         }
+ 
+         // Batches already committed stay in the table when an import is cancelled or fails, so the
+         // user is told how many, once the import has actually stopped.
+         private long importCancellable(String filePath, ProgressListener progress) throws IOException {
+             AtomicLong saved = new AtomicLong();
+             try {
+                 return JSONExportImport.importExpensesFromJSONStreaming(filePath, ExpenseManagerDB.DEFAULT_BATCH_SIZE,
+                                                                         progress, saved::set);
+             } catch (CancellationException e) {
+                 SwingUtilities.invokeLater(() -> {
+                     loadExpenses();
+                     JOptionPane.showMessageDialog(this, "Import cancelled. " + saved.get()
+                                                   + " expenses had already been saved and were kept.");
+                 });
+                 throw e;
+             } catch (IOException | SQLException e) {
+                 // showError reports the failure; the reload shows the batches that made it in
+                 SwingUtilities.invokeLater(this::loadExpenses);
+                 throw new IOException("Import stopped after " + saved.get() + " expenses were saved: "
+                                       + e.getMessage(), e);
+             }
+         }
+ 
+         private void finishLongTask(String status) {
+             progressBar.setValue(0);
+             progressBar.setString(status);
+             cancelButton.setEnabled(false);
+         }
+ 
+         private void showError(Throwable error) {
+             finishLongTask("Idle");
+             error.printStackTrace();
+             JOptionPane.showMessageDialog(this, "Operation failed: " + error.getMessage(),
+                                           "Error", JOptionPane.ERROR_MESSAGE);
+         }
+ 
+         private void addExpense() {
+             String category = categoryField.getText();
+             double amount = Double.parseDouble(amountField.getText());
+             String date = dateField.getText();
+ 
+             // A failed insert reaches showError and adds no row to the table
+             BackgroundTasks.submit(progress -> {
+                 int id = ExpenseManagerDB.insertExpense(category, amount, date);
+                 return ExpenseManagerDB.rowOfExpense(id);
+             }, row -> {
+                 tableModel.expenseAdded(row);
+                 refreshTotals();
+             }, this::showError);
+         }
+ 
+         private void loadExpenses() {
+             tableModel.refresh();
+             refreshTotals();
+         }
+ 
+         // Shows the grand total and the three largest categories.
+         private void refreshTotals() {
+             BackgroundTasks.submit(progress -> {
+                 StringBuilder text = new StringBuilder(String.format("Total: ₹%.2f (%d expenses)",
+                     ExpenseSummary.grandTotal(), ExpenseSummary.expenseCount()));
+                 int shown = 0;
+                 for (Map.Entry<String, Double> entry : ExpenseSummary.totalsByCategory().entrySet()) {
+                     if (shown++ == 3) {
+                         break;
+                     }
+                     text.append(String.format("  |  %s: ₹%.2f", entry.getKey(), entry.getValue()));
+                 }
+                 return text.toString();
+             }, totalsLabel::setText, this::showError);
+         }
+ 
+         // Category and/or date-range search, answered from the indexed date_epoch column.
+         private void searchExpenses() {
+             JTextField searchCategoryField = new JTextField();
+             JTextField fromField = new JTextField();
+             JTextField toField = new JTextField();
+             JPanel form = new JPanel(new GridLayout(3, 2));
+             form.add(new JLabel("Category (blank for any):"));
+             form.add(searchCategoryField);
+             form.add(new JLabel("From (YYYY-MM-DD):"));
+             form.add(fromField);
+             form.add(new JLabel("To (YYYY-MM-DD):"));
+             form.add(toField);
+             int option = JOptionPane.showConfirmDialog(this, form, "Search Expenses", JOptionPane.OK_CANCEL_OPTION);
+             if (option != JOptionPane.OK_OPTION) {
+                 return;
+             }
+ 
+             String category = searchCategoryField.getText().trim();
+             LocalDate from;
+             LocalDate to;
+             try {
+                 from = fromField.getText().isBlank() ? null : LocalDate.parse(fromField.getText().trim());
+                 to = toField.getText().isBlank() ? null : LocalDate.parse(toField.getText().trim());
+             } catch (DateTimeParseException e) {
+                 JOptionPane.showMessageDialog(this, "Please enter dates as YYYY-MM-DD.");
+                 return;
+             }
+             BackgroundTasks.submit(
+                 progress -> ExpenseManagerDB.getExpensesByCategory(category.isEmpty() ? null : category, from, to),
+                 this::showSearchResults, this::showError);
+         }
+ 
+         private void showSearchResults(List<Expense> results) {
+             DefaultTableModel resultModel = new DefaultTableModel(new String[]{"ID", "Category", "Amount", "Date"}, 0);
+             for (Expense exp : results) {
+                 resultModel.addRow(new Object[]{exp.getId(), exp.getCategory(), exp.getAmount(), exp.getDate()});
+             }
+             JDialog dialog = new JDialog(this, results.size() + " expense(s) found", false);
+             dialog.add(new JScrollPane(new JTable(resultModel)));
+             dialog.setSize(500, 300);
+             dialog.setLocationRelativeTo(this);
+             dialog.setVisible(true);
+         }
+ 
+         private void deleteExpense() {
+             int selectedRow = expenseTable.getSelectedRow();
+             if (selectedRow == -1) {
+                 JOptionPane.showMessageDialog(this, "Select an expense to delete.");
+                 return;
+             }
+             Expense selected = tableModel.getExpenseAt(selectedRow);
+             if (selected == null) {
+                 return;
+             }
+             int id = selected.getId();
+             BackgroundTasks.submit(progress -> ExpenseManagerDB.deleteExpense(id), deleted -> {
+                 if (deleted) {
+                     tableModel.expenseDeleted(selectedRow, id);
+                     refreshTotals();
+                 }
+             }, this::showError);
+         }
+     }
+ 
+     /* =================== MAIN GUI MENU (Swing) =================== */
+     public static class MainGUI extends JFrame {
+         public MainGUI() {
+             setTitle("Integrated Application - Main Menu");
+             setSize(350, 250);
+             setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+             setLayout(new GridLayout(5, 1, 10, 10));
+ 
+             JButton quizButton = new JButton("Start Math Quiz (GUI)");
+             JButton leaderboardButton = new JButton("Math Quiz Leaderboard");
+             JButton expenseButton = new JButton("Open Expense Manager (GUI)");
+             JButton cliButton = new JButton("Run CLI Mode (Console)");
+             JButton exitButton = new JButton("Exit");
+ 
+             quizButton.addActionListener(e -> new MathQuizGUI().setVisible(true));
+             leaderboardButton.addActionListener(e -> BackgroundTasks.submit(
+                 progress -> QuizResults.shared().leaderboard().top(10), top -> {
+                     StringBuilder text = new StringBuilder();
+                     int place = 1;
+                     for (Leaderboard.Entry entry : top) {
+                         text.append(place++).append(". ").append(entry.getPlayer()).append("  ")
+                             .append(entry.getScore()).append('/').append(entry.getTotal()).append('\n');
+                     }
+                     JOptionPane.showMessageDialog(this, text.length() == 0 ? "No quizzes taken yet." : text.toString(),
+                                                   "Top 10", JOptionPane.INFORMATION_MESSAGE);
+                 }, error -> JOptionPane.showMessageDialog(this, "Could not load the leaderboard: " + error.getMessage(),
+                                                           "Error", JOptionPane.ERROR_MESSAGE)));
+             expenseButton.addActionListener(e -> new ExpenseManagerGUI().setVisible(true));
+             cliButton.addActionListener(e -> {
+                 // Launch CLI mode in a separate thread; note that console output
+                 // will appear in the terminal from which you launched the application.
+                 new Thread(IntegratedApp::runCLI).start();
+             });
+             exitButton.addActionListener(e -> System.exit(0));
+ 
+             add(quizButton);
+             add(leaderboardButton);
+             add(expenseButton);
+             add(cliButton);
+             add(exitButton);
+         }
+     }
+ }
+ 
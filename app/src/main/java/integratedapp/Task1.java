@@ -0,0 +1,28 @@
+package integratedapp;
+
+import java.util.Scanner;
+
+public class Task1 {
+    public static void main(String[]args){
+        Scanner sc=new Scanner(System.in);
+        // 10 questions on numbers from 0 to 14, generated and graded by the shared quiz engine
+        IntegratedApp.QuizEngine.Session quiz = new IntegratedApp.QuizEngine(10, 0, 14).newSession();
+        System.out.println("Welcome to Quiz");
+
+        while(!quiz.isFinished()){
+           IntegratedApp.QuizEngine.Question question = quiz.currentQuestion();
+           System.out.printf("Example %d : %s = ? " , quiz.getQuestionNumber() , question.text());
+           int answer = sc.nextInt();
+
+           if(quiz.submit(answer)){
+            System.out.println("Your answer is CORRECT");
+           }
+           else{
+            System.out.println("Your answer is INCORRECT " + question.answer());
+           }
+        }
+        System.out.printf("Quiz Finished! Your Score is %d/%d%n " , quiz.getScore() , quiz.getTotalQuestions());
+        sc.close();
+    }
+    
+}
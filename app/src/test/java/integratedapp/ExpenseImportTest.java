@@ -0,0 +1,137 @@
+package integratedapp;
+
+import integratedapp.IntegratedApp.CommandBatch;
+import integratedapp.IntegratedApp.ExpenseManagerDB;
+import integratedapp.IntegratedApp.JSONExportImport;
+import integratedapp.IntegratedApp.PooledConnection;
+import integratedapp.IntegratedApp.ProgressListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// The streaming JSON import against a scratch database: a failed insert or an unreadable file
+// stops the import with an exception, and the batches committed before it stay. In batch mode
+// that stops the run. Also where a single added expense lands in the id-ordered table.
+class ExpenseImportTest {
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        ExpenseManagerDB.useDatabase("jdbc:sqlite:" + dir.resolve("expenses.db"));
+        ExpenseManagerDB.initializeDatabase();
+        // Any row in the "reject" category fails its insert, and with it that batch
+        try (PooledConnection pc = ExpenseManagerDB.pool().acquire();
+             Statement stmt = pc.connection().createStatement()) {
+            stmt.execute("CREATE TRIGGER reject_expense BEFORE INSERT ON expenses "
+                         + "WHEN NEW.category = 'reject' BEGIN SELECT RAISE(ABORT, 'rejected'); END");
+        }
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        ExpenseManagerDB.shutdown();
+    }
+
+    @Test
+    void addedExpenseIsFoundAtItsRowInIdOrder() throws Exception {
+        int first = ExpenseManagerDB.insertExpense("food", 10, "2026-01-02");
+        int second = ExpenseManagerDB.insertExpense("rent", 500, "2026-01-01");
+        assertEquals(0, ExpenseManagerDB.rowOfExpense(first));
+        assertEquals(1, ExpenseManagerDB.rowOfExpense(second));
+        assertEquals(second, ExpenseManagerDB.getExpensePageAt(1, 1).get(0).getId());
+        assertThrows(SQLException.class, () -> ExpenseManagerDB.insertExpense("reject", 1, "2026-01-03"));
+        assertEquals(2, ExpenseManagerDB.rowOfExpense(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void importSavesEveryRowInBatches() throws Exception {
+        Path file = writeJson("food", "rent", "food", "fuel", "books");
+        assertEquals(5, JSONExportImport.importExpensesFromJSONStreaming(file.toString(), 2));
+        assertEquals(5, ExpenseManagerDB.countExpenses());
+    }
+
+    @Test
+    void failedInsertStopsTheImportAndKeepsEarlierBatches() throws Exception {
+        Path file = writeJson("food", "rent", "fuel", "reject", "books", "food");
+        List<Long> saved = new ArrayList<>();
+        assertThrows(SQLException.class, () -> JSONExportImport.importExpensesFromJSONStreaming(
+            file.toString(), 2, ProgressListener.NONE, saved::add));
+        assertEquals(List.of(2L), saved);
+        assertEquals(2, ExpenseManagerDB.countExpenses());
+    }
+
+    // Progress comes every REPORT_EVERY_ROWS rows, not once per batch, and a cancel between two
+    // reports rolls back the batch that was still open.
+    @Test
+    void cancelInsideABatchKeepsOnlyCommittedBatches() throws Exception {
+        String[] categories = new String[5 * ProgressListener.REPORT_EVERY_ROWS];
+        Arrays.fill(categories, "food");
+        Path file = writeJson(categories);
+        int batchSize = 2 * ProgressListener.REPORT_EVERY_ROWS;
+        int[] reports = new int[1];
+        List<Long> saved = new ArrayList<>();
+        // Two reports while the first batch goes in, one after its commit, then one a thousand
+        // rows into the second batch, where the user cancels
+        assertThrows(CancellationException.class, () -> JSONExportImport.importExpensesFromJSONStreaming(
+            file.toString(), batchSize, (done, total) -> {
+                if (++reports[0] == 4) {
+                    throw new CancellationException();
+                }
+            }, saved::add));
+        assertEquals(List.of((long) batchSize), saved);
+        assertEquals(batchSize, ExpenseManagerDB.countExpenses());
+    }
+
+    @Test
+    void missingOrMalformedFileThrows() throws Exception {
+        assertThrows(IOException.class,
+                     () -> JSONExportImport.importExpensesFromJSONStreaming(dir.resolve("none.json").toString()));
+        Path notAnArray = Files.writeString(dir.resolve("object.json"), "{\"id\":1}", StandardCharsets.UTF_8);
+        assertThrows(IOException.class,
+                     () -> JSONExportImport.importExpensesFromJSONStreaming(notAnArray.toString()));
+        assertEquals(0, ExpenseManagerDB.countExpenses());
+    }
+
+    @Test
+    void failedImportStopsABatchRun() throws Exception {
+        Path rejected = writeJson("food", "rent", "reject");
+        String commands = "add,12.50,2024-02-01,food\n"
+                          + "import," + dir.resolve("none.json") + "\n"
+                          + "add,8,2024-02-02,fuel\n";
+        assertFalse(new CommandBatch(2).run(new BufferedReader(new StringReader(commands))));
+        assertEquals(1, ExpenseManagerDB.countExpenses());
+
+        commands = "import," + rejected + "\n" + "add,8,2024-02-02,fuel\n";
+        assertFalse(new CommandBatch(2).run(new BufferedReader(new StringReader(commands))));
+        assertEquals(3, ExpenseManagerDB.countExpenses());
+    }
+
+    private Path writeJson(String... categories) throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < categories.length; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i + 1).append(",\"category\":\"")
+                .append(categories[i]).append("\",\"amount\":").append(10 + i).append(",\"date\":\"2024-01-0")
+                .append(1 + i % 9).append("\"}");
+        }
+        return Files.writeString(dir.resolve("expenses.json"), json.append(']').toString(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,307 @@
+package integratedapp;
+
+import integratedapp.IntegratedApp.ConnectionPool;
+import integratedapp.IntegratedApp.Leaderboard;
+import integratedapp.IntegratedApp.PooledConnection;
+import integratedapp.IntegratedApp.QuizEngine;
+import integratedapp.IntegratedApp.QuizResults;
+import integratedapp.IntegratedApp.QuizServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// QuizEngine sessions and their grading, then QuizServer hosting many of them at once: in
+// process, from many threads, over HTTP, and with finished quizzes kept for the leaderboard.
+class QuizServerTest {
+    private static final int QUESTIONS = 5;
+    private static final int THREADS = 8;
+
+    @Test
+    void sessionGradesEachAnswerAndStopsAfterTheLastQuestion() {
+        QuizEngine.Session session = newEngine().newSession();
+        assertEquals(1, session.getQuestionNumber());
+        assertEquals(QUESTIONS, session.getTotalQuestions());
+
+        QuizEngine.Question first = session.currentQuestion();
+        assertFalse(session.submit(first.answer() + 1));
+        assertEquals(0, session.getScore());
+        assertEquals(2, session.getQuestionNumber());
+        while (!session.isFinished()) {
+            assertTrue(session.submit(session.currentQuestion().answer()));
+        }
+        assertEquals(QUESTIONS - 1, session.getScore());
+        assertEquals(QUESTIONS, session.getQuestionNumber());
+        assertNull(session.currentQuestion());
+        assertThrows(IllegalStateException.class, () -> session.submit(0));
+    }
+
+    @Test
+    void questionsStayWithinTheOperandRange() {
+        QuizEngine.Session session = new QuizEngine(1_000, 3, 7, new SplittableRandom(42)).newSession();
+        while (!session.isFinished()) {
+            QuizEngine.Question question = session.currentQuestion();
+            assertTrue(question.getLeft() >= 3 && question.getLeft() <= 7, question.text());
+            assertTrue(question.getRight() >= 3 && question.getRight() <= 7, question.text());
+            assertEquals(question.getLeft() + " " + question.getOperation() + " " + question.getRight(), question.text());
+            session.submit(question.answer());
+        }
+        assertEquals(1_000, session.getScore());
+    }
+
+    // Engines with the same seed hand out the same quizzes, session by session
+    @Test
+    void seededEnginesGiveTheSameQuizzes() {
+        QuizEngine.Session a = newEngine().newSession();
+        QuizEngine.Session b = newEngine().newSession();
+        while (!a.isFinished()) {
+            assertEquals(a.currentQuestion().text(), b.currentQuestion().text());
+            a.submit(0);
+            b.submit(0);
+        }
+    }
+
+    @Test
+    void serverRepliesWithTheGradeAndDropsAFinishedSession() {
+        try (QuizServer server = new QuizServer(newEngine())) {
+            String state = server.startSession();
+            long id = idOf(state);
+            assertTrue(state.startsWith("{\"id\":" + id + ",\"score\":0,\"total\":5,\"number\":1,\"question\":\""), state);
+            assertEquals(state, server.status(id));
+            assertEquals(1, server.getOpenSessions());
+
+            int expected = solve(state);
+            state = server.answer(id, expected + 1);
+            assertTrue(state.contains("\"correct\":false,\"answer\":" + expected + ",\"score\":0,"), state);
+            assertTrue(state.contains("\"number\":2"), state);
+            while (!state.contains("\"finished\":true")) {
+                state = server.answer(id, solve(state));
+                assertTrue(state.contains("\"correct\":true"), state);
+            }
+            assertTrue(state.contains("\"score\":4,\"total\":5,\"finished\":true"), state);
+
+            assertEquals(0, server.getOpenSessions());
+            assertThrows(IllegalArgumentException.class, () -> server.answer(id, 0));
+            assertThrows(IllegalArgumentException.class, () -> server.status(id));
+            assertEquals(1, server.getStarted());
+            assertEquals(1, server.getFinished());
+            assertEquals(QUESTIONS, server.getAnswers());
+        }
+    }
+
+    @Test
+    void unknownSessionIsRejected() {
+        try (QuizServer server = new QuizServer(newEngine())) {
+            assertThrows(IllegalArgumentException.class, () -> server.status(42));
+            assertThrows(IllegalArgumentException.class, () -> server.answer(42, 0));
+        }
+    }
+
+    // Each thread keeps several quizzes going at once and answers them in turn, so sessions of
+    // different threads are graded side by side; every right answer must be graded as right.
+    @Test
+    void manyPlayersAtOnceAreGradedIndependently() throws Exception {
+        int perThread = 200;
+        try (QuizServer server = new QuizServer(newEngine())) {
+            runThreads(worker -> {
+                long[] ids = new long[perThread];
+                String[] states = new String[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    states[i] = server.startSession();
+                    ids[i] = idOf(states[i]);
+                }
+                for (int question = 0; question < QUESTIONS; question++) {
+                    for (int i = 0; i < perThread; i++) {
+                        // Every other player misses the first question
+                        int answer = solve(states[i]) + (question == 0 && i % 2 == 1 ? 1 : 0);
+                        states[i] = server.answer(ids[i], answer);
+                    }
+                }
+                for (int i = 0; i < perThread; i++) {
+                    int score = i % 2 == 1 ? QUESTIONS - 1 : QUESTIONS;
+                    assertTrue(states[i].contains("\"score\":" + score + ",\"total\":5,\"finished\":true"), states[i]);
+                }
+            });
+
+            assertEquals(0, server.getOpenSessions());
+            assertEquals(THREADS * perThread, server.getStarted());
+            assertEquals(THREADS * perThread, server.getFinished());
+            assertEquals((long) THREADS * perThread * QUESTIONS, server.getAnswers());
+        }
+    }
+
+    @Test
+    void httpEndpointsDriveASession() throws Exception {
+        try (QuizServer server = new QuizServer(newEngine())) {
+            server.start(0, 2);
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://localhost:" + server.getPort() + "/quiz";
+
+            HttpResponse<String> started = post(client, base, "");
+            assertEquals(201, started.statusCode());
+            String state = started.body();
+            long id = idOf(state);
+            HttpResponse<String> status = client.send(HttpRequest.newBuilder(URI.create(base + "/" + id)).build(),
+                                                      HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, status.statusCode());
+            assertEquals(state, status.body());
+
+            while (!state.contains("\"finished\":true")) {
+                HttpResponse<String> graded = post(client, base + "/" + id + "/answer", String.valueOf(solve(state)));
+                assertEquals(200, graded.statusCode());
+                state = graded.body();
+            }
+            assertTrue(state.contains("\"score\":5,"), state);
+
+            assertEquals(404, post(client, base + "/" + id + "/answer", "1").statusCode());
+            assertEquals(400, post(client, base + "/" + idOf(post(client, base, "").body()) + "/answer", "seven").statusCode());
+            assertEquals(404, post(client, base + "/1/skip", "").statusCode());
+        }
+    }
+
+    // A named player's finished quiz reaches the leaderboard at once and the database on flush;
+    // anonymous quizzes are not kept.
+    @Test
+    void finishedQuizOfANamedPlayerIsRecorded(@TempDir Path dir) throws Exception {
+        try (ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + dir.resolve("quiz.db"), 2)) {
+            try (PooledConnection pc = pool.acquire();
+                 Statement stmt = pc.connection().createStatement()) {
+                for (String sql : QuizResults.SCHEMA_SQL) {
+                    stmt.execute(sql);
+                }
+            }
+            try (QuizResults results = new QuizResults(pool);
+                 QuizServer server = new QuizServer(newEngine(), results)) {
+                playToTheEnd(server, server.startSession("ana"), true);
+                playToTheEnd(server, server.startSession("bo"), false);
+                playToTheEnd(server, server.startSession(), true);
+                results.flush();
+
+                Leaderboard leaderboard = results.leaderboard();
+                assertEquals(2, leaderboard.size());
+                assertEquals("ana", leaderboard.top(1).get(0).getPlayer());
+                assertEquals(QUESTIONS, leaderboard.best("ana").getScore());
+                assertEquals(0, leaderboard.best("bo").getScore());
+                assertEquals(2, leaderboard.rank("bo"));
+            }
+            try (PooledConnection pc = pool.acquire();
+                 Statement stmt = pc.connection().createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM quiz_results")) {
+                rs.next();
+                assertEquals(2, rs.getInt(1));
+            }
+        }
+    }
+
+    // Results rank by the share answered right, so quizzes of different lengths compare fairly;
+    // a result that is not a quiz score is refused.
+    @Test
+    void leaderboardRanksByShareOfQuestionsAnswered() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.update("half", 5, 10);
+        leaderboard.update("all", 5, 5);
+        leaderboard.update("also-half", 1, 2);
+        assertEquals("all", leaderboard.top(1).get(0).getPlayer());
+        assertEquals(2, leaderboard.rank("half"));
+        assertEquals(2, leaderboard.rank("also-half"));
+
+        assertFalse(leaderboard.update("all", 9, 10));
+        assertTrue(leaderboard.update("half", 9, 10));
+        assertEquals(2, leaderboard.rank("half"));
+        assertEquals(9, leaderboard.best("half").getScore());
+
+        assertThrows(IllegalArgumentException.class, () -> leaderboard.update("none", 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> leaderboard.update("more", 6, 5));
+        assertEquals(3, leaderboard.size());
+    }
+
+    private static QuizEngine newEngine() {
+        return new QuizEngine(QUESTIONS, 1, 10, new SplittableRandom(42));
+    }
+
+    private static void playToTheEnd(QuizServer server, String state, boolean right) {
+        long id = idOf(state);
+        while (!state.contains("\"finished\":true")) {
+            state = server.answer(id, right ? solve(state) : solve(state) + 1);
+        }
+    }
+
+    private static HttpResponse<String> post(HttpClient client, String uri, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri)).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long idOf(String state) {
+        return Long.parseLong(state.substring(6, state.indexOf(',')));
+    }
+
+    // The answer to the "question" in a reply
+    private static int solve(String state) {
+        int from = state.indexOf("\"question\":\"") + 12;
+        String[] parts = state.substring(from, state.indexOf('"', from)).split(" ");
+        int left = Integer.parseInt(parts[0]);
+        int right = Integer.parseInt(parts[2]);
+        return switch (parts[1].charAt(0)) {
+            case '+' -> left + right;
+            case '-' -> left - right;
+            default -> left * right;
+        };
+    }
+
+    interface Worker {
+        void run(int worker) throws Exception;
+    }
+
+    // Starts THREADS workers together and rethrows the first failure.
+    private static void runThreads(Worker body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int worker = i;
+                Callable<Void> task = () -> {
+                    start.await();
+                    body.run(worker);
+                    return null;
+                };
+                futures.add(pool.submit(task));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                try {
+                    future.get(60, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
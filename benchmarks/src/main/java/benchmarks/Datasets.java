@@ -0,0 +1,119 @@
+package benchmarks;
+
+import integratedapp.IntegratedApp.Expense;
+import integratedapp.IntegratedApp.ExpenseManagerDB;
+import integratedapp.IntegratedApp.JsonExpenseWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+// Benchmark data, generated from a seed so every machine sees the same rows. The benchmarks
+// take their size from a @Param; main() writes the same data out as files, to feed the apps'
+// own tools (IntegratedApp --batch / import, BinaryToDecimalConverter --batch) by hand.
+// Run with: java -cp benchmarks.jar benchmarks.Datasets <dir> [expenses] [binaryLines] [maxBits]
+public final class Datasets {
+    public static final long SEED = 42;
+    public static final String[] CATEGORIES = {"Food", "Rent", "Travel", "Utilities", "Health", "Shopping",
+                                               "Education", "Other"};
+
+    private Datasets() {
+    }
+
+    // Expenses spread over 2018-2024 with amounts up to 5,000.00; ids are left to the database.
+    public static List<Expense> expenses(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Expense> expenses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String date = String.format("20%02d-%02d-%02d",
+                                        18 + random.nextInt(7), 1 + random.nextInt(12), 1 + random.nextInt(28));
+            expenses.add(new Expense(0, CATEGORIES[random.nextInt(CATEGORIES.length)],
+                                     random.nextInt(500_000) / 100.0, date));
+        }
+        return expenses;
+    }
+
+    // One binary number per line, `minBits` to `maxBits` long, no leading zeros.
+    public static byte[] binaryLines(int lines, int minBits, int maxBits, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        byte[] out = new byte[lines * (maxBits + 1)];
+        int size = 0;
+        for (int i = 0; i < lines; i++) {
+            int bits = minBits + random.nextInt(maxBits - minBits + 1);
+            out[size++] = '1';
+            for (int b = 1; b < bits; b++) {
+                out[size++] = (byte) ('0' + random.nextInt(2));
+            }
+            out[size++] = '\n';
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    // A fresh SQLite database in `dir` holding `rows` expenses, made current in ExpenseManagerDB.
+    public static void expenseDatabase(Path dir, String name, int rows, long seed) throws IOException {
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            Files.deleteIfExists(dir.resolve(name + suffix));
+        }
+        ExpenseManagerDB.useDatabase("jdbc:sqlite:" + dir.resolve(name));
+        ExpenseManagerDB.initializeDatabase();
+        ExpenseManagerDB.addExpenses(expenses(rows, seed));
+    }
+
+    public static void writeExpensesJson(Path file, List<Expense> expenses) throws IOException {
+        try (JsonExpenseWriter writer = new JsonExpenseWriter(file.toString(), false)) {
+            for (Expense exp : expenses) {
+                writer.onRow(exp.getId(), exp.getCategory(), exp.getAmount(), exp.getDate());
+            }
+            writer.finish();
+        }
+    }
+
+    // The apps print a line per export, import or insert; in a benchmark that is just noise.
+    public static PrintStream silenceStdout() {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return console;
+    }
+
+    public static void deleteRecursively(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "datasets");
+        int expenses = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int binaryLines = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        int maxBits = args.length > 3 ? Integer.parseInt(args[3]) : 63;
+        Files.createDirectories(dir);
+
+        Path json = dir.resolve("expenses-" + expenses + ".json");
+        writeExpensesJson(json, expenses(expenses, SEED));
+        Path binary = dir.resolve("binary-" + binaryLines + "x" + maxBits + ".txt");
+        Files.write(binary, binaryLines(binaryLines, 1, maxBits, SEED));
+        PrintStream console = silenceStdout();
+        try {
+            expenseDatabase(dir, "expenses-" + expenses + ".db", expenses, SEED);
+        } finally {
+            System.setOut(console);
+            ExpenseManagerDB.shutdown();
+        }
+        System.out.println("Wrote " + json + ", " + binary + " and " + dir.resolve("expenses-" + expenses + ".db")
+                           + " (seed " + SEED + ")");
+    }
+}
@@ -0,0 +1,147 @@
+package converter;
+
+import benchmarks.Datasets;
+import converter.BinaryToDecimalConverter.ConversionHistoryWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// The converter's history of `conversions` past conversions, skewed so a few of the
+// conversions / 10 distinct values come up far more often than the rest. Saving a conversion
+// as the GUI used to (a new statement and an autocommitted insert, on the EDT) against queueing
+// it for ConversionHistoryWriter: `recordBurst` lets the queue overflow and drop rows as a
+// burst faster than any user would, `recordNoDrops` waits for room, which makes it the writer's
+// own throughput. Then the top 10: GROUP BY over the old one-row-per-conversion table against
+// the indexed history it is folded into.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionHistoryBenchmark {
+    private static final String INSERT_SQL = "INSERT INTO conversions (binary, decimal) VALUES (?, ?)";
+
+    @Param({"100000", "1000000"})
+    public int conversions;
+
+    private Path dir;
+    private Connection oldTable;
+    private ConversionHistoryWriter history;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        dir = Files.createTempDirectory("history-bench");
+        String oldUrl = "jdbc:sqlite:" + dir.resolve("conversions.db");
+        String historyUrl = "jdbc:sqlite:" + dir.resolve("history.db");
+        fillConversionsTable(oldUrl);
+        fillConversionsTable(historyUrl);
+        oldTable = DriverManager.getConnection(oldUrl);
+        // Folds the conversions table of its own copy into the history on open
+        history = new ConversionHistoryWriter(historyUrl);
+        random = new SplittableRandom(Datasets.SEED);
+    }
+
+    private void fillConversionsTable(String url) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE conversions (id INTEGER PRIMARY KEY, binary TEXT, decimal INTEGER)");
+            }
+            connection.setAutoCommit(false);
+            SplittableRandom random = new SplittableRandom(Datasets.SEED);
+            try (PreparedStatement pstmt = connection.prepareStatement(INSERT_SQL)) {
+                for (int i = 0; i < conversions; i++) {
+                    long value = skewedValue(random);
+                    pstmt.setString(1, Long.toBinaryString(value));
+                    pstmt.setLong(2, value);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    private long skewedValue(SplittableRandom random) {
+        return (long) (conversions / 10 * Math.pow(random.nextDouble(), 3));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        history.close();
+        oldTable.close();
+        Datasets.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public int insertPerConversion() throws SQLException {
+        long value = skewedValue(random);
+        try (PreparedStatement pstmt = oldTable.prepareStatement(INSERT_SQL)) {
+            pstmt.setString(1, Long.toBinaryString(value));
+            pstmt.setLong(2, value);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public boolean recordBurst() {
+        long value = skewedValue(random);
+        return history.record(Long.toBinaryString(value), value);
+    }
+
+    @Benchmark
+    public boolean recordNoDrops() {
+        long value = skewedValue(random);
+        String binary = Long.toBinaryString(value);
+        while (!history.record(binary, value)) {
+            Thread.yield();
+        }
+        return true;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int topByGroupBy() throws SQLException {
+        int rows = 0;
+        try (Statement stmt = oldTable.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT binary, COUNT(*) AS hits FROM conversions "
+                                              + "GROUP BY binary ORDER BY hits DESC LIMIT 10")) {
+            while (rs.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<ConversionHistoryWriter.HistoryEntry> topFromHistory() throws SQLException {
+        return history.topConversions(10);
+    }
+}
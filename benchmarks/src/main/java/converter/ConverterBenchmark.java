@@ -0,0 +1,191 @@
+package converter;
+
+import benchmarks.Datasets;
+import converter.BinaryToDecimalConverter.BatchConverter;
+import converter.BinaryToDecimalConverter.Codec;
+import converter.BinaryToDecimalConverter.ConversionCache;
+import converter.BinaryToDecimalConverter.OutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// BinaryToDecimalConverter, in values converted per second: one value at a time as the Swing
+// converter does it, and whole files of LINES values as --batch does. Up to 63 bits a value
+// is parsed into a long; wider ones go through BigInteger. The parseInt benchmarks are the
+// converter's original regex + Integer.parseInt code, on values of up to 31 bits only.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConverterBenchmark {
+    private static final int LINES = 100_000;
+    // The widest value Integer.parseInt can take, and so the parseInt baseline's values
+    private static final int PARSE_INT_BITS = 31;
+
+    @State(Scope.Benchmark)
+    public static class Values {
+        @Param({"31", "63", "256"})
+        public int maxBits;
+
+        byte[] binaryFile;
+        byte[] decimalFile;
+        String[] values;
+        // Indexes into values, skewed so a few values come up far more often than the rest
+        int[] skewed;
+        int next;
+        OutputBuffer out;
+        ConversionCache cache;
+        BatchConverter batch;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            binaryFile = Datasets.binaryLines(LINES, 1, maxBits, Datasets.SEED);
+            values = new String(binaryFile, StandardCharsets.US_ASCII).split("\n");
+            SplittableRandom random = new SplittableRandom(Datasets.SEED);
+            skewed = new int[LINES];
+            for (int i = 0; i < LINES; i++) {
+                skewed[i] = (int) (LINES * Math.pow(random.nextDouble(), 3));
+            }
+            out = new OutputBuffer(binaryFile.length * 2);
+            convertAll(binaryFile, false);
+            decimalFile = Arrays.copyOf(out.bytes, out.size);
+            cache = new ConversionCache(ConversionCache.DEFAULT_CAPACITY);
+            batch = new BatchConverter(false, Runtime.getRuntime().availableProcessors());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            batch.close();
+        }
+
+        // Lines of `in` through Codec.convertLine into the reused output buffer
+        int convertAll(byte[] in, boolean toBinary) {
+            out.size = 0;
+            int lineStart = 0;
+            for (int i = 0; i < in.length; i++) {
+                if (in[i] == '\n') {
+                    Codec.convertLine(in, lineStart, i, toBinary, out);
+                    lineStart = i + 1;
+                }
+            }
+            return out.size;
+        }
+    }
+
+    // The same values as Values with maxBits 31, for the original code, which cannot go wider
+    @State(Scope.Benchmark)
+    public static class Narrow {
+        byte[] binaryFile;
+        String[] values;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            binaryFile = Datasets.binaryLines(LINES, 1, PARSE_INT_BITS, Datasets.SEED);
+            values = new String(binaryFile, StandardCharsets.US_ASCII).split("\n");
+        }
+    }
+
+    // The GUI path for one typed value, without the cache
+    @Benchmark
+    public Number convertValue(Values data) {
+        String value = data.values[data.next++ % LINES];
+        return Codec.isBinary(value) ? Codec.toNumber(Codec.stripLeadingZeros(value)) : null;
+    }
+
+    // The original GUI path: a regex check, then Integer.parseInt. Compare with convertValue at maxBits 31.
+    @Benchmark
+    public Integer parseIntValue(Narrow data) {
+        String value = data.values[data.next++ % LINES];
+        return value.matches("[01]+") ? Integer.parseInt(value, 2) : null;
+    }
+
+    // The GUI path with its LRU cache in front, for values that repeat
+    @Benchmark
+    public Number convertValueCached(Values data) {
+        String binary = Codec.stripLeadingZeros(data.values[data.skewed[data.next++ % LINES]]);
+        Number decimal = data.cache.get(binary);
+        if (decimal == null) {
+            decimal = Codec.toNumber(binary);
+            data.cache.put(binary, decimal);
+        }
+        return decimal;
+    }
+
+    // A whole file, byte-level, on one thread
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int convertFile(Values data) {
+        return data.convertAll(data.binaryFile, false);
+    }
+
+    // A whole file the original way, a line at a time through a reader and a writer. Compare
+    // with convertFile at maxBits 31.
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long parseIntFile(Narrow data) throws IOException {
+        CountingStream sink = new CountingStream();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                 new ByteArrayInputStream(data.binaryFile), StandardCharsets.US_ASCII));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(sink, StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                writer.write(line.matches("[01]+") ? String.valueOf(Integer.parseInt(line, 2)) : "invalid");
+                writer.newLine();
+            }
+        }
+        return sink.count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int convertFileToBinary(Values data) {
+        return data.convertAll(data.decimalFile, true);
+    }
+
+    // --batch: chunks converted on a pool of one thread per core, written in order
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long batchConvert(Values data) throws IOException, InterruptedException {
+        return data.batch.convert(new ByteArrayInputStream(data.binaryFile), OutputStream.nullOutputStream()).lines;
+    }
+
+    // Counts the bytes written, so the output is not optimized away
+    private static final class CountingStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
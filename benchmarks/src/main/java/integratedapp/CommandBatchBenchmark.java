@@ -0,0 +1,104 @@
+package integratedapp;
+
+import benchmarks.Datasets;
+import integratedapp.IntegratedApp.CommandBatch;
+import integratedapp.IntegratedApp.Expense;
+import integratedapp.IntegratedApp.ExpenseManagerCLI;
+import integratedapp.IntegratedApp.ExpenseManagerDB;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// A maintenance script of COMMANDS lines, 9 adds to 1 delete, in lines per second: run by
+// `IntegratedApp --batch` (CommandBatch, `batchSize` changes per transaction), and typed into
+// the interactive expense menu as scripts had to be before, one autocommitted change per line.
+// Deletes pick ids among the `rows` preloaded expenses, so later runs find some already gone.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandBatchBenchmark {
+    private static final int COMMANDS = 1_000;
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"10000"})
+    public int batchSize;
+
+    private Path dir;
+    private PrintStream console;
+    private String script;
+    private String menu;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("batch-bench");
+        console = Datasets.silenceStdout();
+        Datasets.expenseDatabase(dir, "expenses.db", rows, Datasets.SEED);
+
+        List<Expense> adds = Datasets.expenses(COMMANDS, Datasets.SEED + 1);
+        SplittableRandom random = new SplittableRandom(Datasets.SEED);
+        StringBuilder lines = new StringBuilder("# generated maintenance script\n");
+        StringBuilder keys = new StringBuilder();
+        for (int i = 1; i <= COMMANDS; i++) {
+            if (i % 10 == 0) {
+                int id = 1 + random.nextInt(rows);
+                lines.append("delete,").append(id).append('\n');
+                keys.append("3\n").append(id).append('\n');
+            } else {
+                Expense exp = adds.get(i);
+                lines.append("add,").append(exp.getAmount()).append(',').append(exp.getDate()).append(',')
+                     .append(exp.getCategory()).append('\n');
+                keys.append("1\n").append(exp.getCategory()).append('\n').append(exp.getAmount()).append('\n')
+                    .append(exp.getDate()).append('\n');
+            }
+        }
+        script = lines.toString();
+        menu = keys.append("7\n").toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ExpenseManagerDB.shutdown();
+        System.setOut(console);
+        Datasets.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public boolean batch() throws IOException {
+        return new CommandBatch(batchSize).run(new BufferedReader(new StringReader(script)));
+    }
+
+    // The same lines typed into the menu
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public void interactiveMenu() {
+        ExpenseManagerCLI.manageExpenses(new Scanner(menu));
+    }
+}
@@ -0,0 +1,94 @@
+package integratedapp;
+
+import benchmarks.Datasets;
+import integratedapp.IntegratedApp.Expense;
+import integratedapp.IntegratedApp.ExpenseColumnStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// The report aggregations over `rows` expenses held in memory: ExpenseColumnStore's primitive
+// columns against the same answer computed from a List<Expense> by a plain loop (a stream
+// sort for the top N), as the reports did before the column store.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseColumnStoreBenchmark {
+    private static final int TOP = 10;
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private List<Expense> expenses;
+    private ExpenseColumnStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        expenses = Datasets.expenses(rows, Datasets.SEED);
+        store = ExpenseColumnStore.of(expenses);
+    }
+
+    @Benchmark
+    public Map<String, Double> totalsByCategoryList() {
+        Map<String, Double> totals = new HashMap<>();
+        for (Expense exp : expenses) {
+            totals.merge(exp.getCategory(), exp.getAmount(), Double::sum);
+        }
+        return totals;
+    }
+
+    @Benchmark
+    public Map<String, Double> totalsByCategoryColumns() {
+        return store.totalsByCategory();
+    }
+
+    @Benchmark
+    public SortedMap<YearMonth, Double> totalsByMonthList() {
+        SortedMap<YearMonth, Double> totals = new TreeMap<>();
+        for (Expense exp : expenses) {
+            totals.merge(YearMonth.from(LocalDate.parse(exp.getDate())), exp.getAmount(), Double::sum);
+        }
+        return totals;
+    }
+
+    @Benchmark
+    public SortedMap<YearMonth, Double> totalsByMonthColumns() {
+        return store.totalsByMonth();
+    }
+
+    @Benchmark
+    public List<Expense> topNList() {
+        return expenses.stream()
+                       .sorted(Comparator.comparingDouble(Expense::getAmount).reversed())
+                       .limit(TOP)
+                       .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Expense> topNColumns() {
+        return store.topN(TOP);
+    }
+}
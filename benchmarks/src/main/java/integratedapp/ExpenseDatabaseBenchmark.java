@@ -0,0 +1,169 @@
+package integratedapp;
+
+import benchmarks.Datasets;
+import integratedapp.IntegratedApp.Expense;
+import integratedapp.IntegratedApp.ExpenseManagerDB;
+import integratedapp.IntegratedApp.PooledConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// ExpenseManagerDB inserts and selects against a SQLite file preloaded with `rows` expenses.
+// The inserts grow the table as they run; with its few indexes an insert costs about the same
+// at any of these sizes. A few benchmarks time the way the app used to do the same thing, for
+// comparison: a connection per call, and date ranges compared as TEXT with no index.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseDatabaseBenchmark {
+    private static final int INSERT_BATCH = 1_000;
+    private static final int PAGE_SIZE = 200;
+    private static final String SELECT_BY_ID = "SELECT id, category, amount, date FROM expenses WHERE id = ?";
+    private static final String CATEGORY_RANGE_TEXT =
+        "SELECT id, category, amount, date FROM expenses WHERE date BETWEEN ? AND ? AND category = ?";
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private Path dir;
+    private String url;
+    private PrintStream console;
+    private List<Expense> insertBatch;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("expense-db-bench");
+        console = Datasets.silenceStdout();
+        Datasets.expenseDatabase(dir, "expenses.db", rows, Datasets.SEED);
+        url = "jdbc:sqlite:" + dir.resolve("expenses.db");
+        insertBatch = Datasets.expenses(INSERT_BATCH, Datasets.SEED + 1);
+        random = new SplittableRandom(Datasets.SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ExpenseManagerDB.shutdown();
+        System.setOut(console);
+        Datasets.deleteRecursively(dir);
+    }
+
+    // One autocommitted insert, as the add form does
+    @Benchmark
+    public void insertOne() {
+        Expense exp = insertBatch.get(random.nextInt(INSERT_BATCH));
+        ExpenseManagerDB.addExpense(exp.getCategory(), exp.getAmount(), exp.getDate());
+    }
+
+    // Rows per second through addExpenses, a thousand rows per transaction
+    @Benchmark
+    @OperationsPerInvocation(INSERT_BATCH)
+    public int insertBatch() {
+        return ExpenseManagerDB.addExpenses(insertBatch, INSERT_BATCH);
+    }
+
+    // One primary-key read on a pooled connection with its statement cached
+    @Benchmark
+    public double selectById() throws SQLException {
+        try (PooledConnection pc = ExpenseManagerDB.pool().acquire()) {
+            return readOne(pc.prepare(SELECT_BY_ID));
+        }
+    }
+
+    // The same read on a connection opened and closed for the call, as before the pool
+    @Benchmark
+    public double selectByIdNewConnection() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_BY_ID)) {
+            return readOne(pstmt);
+        }
+    }
+
+    private double readOne(PreparedStatement pstmt) throws SQLException {
+        pstmt.setInt(1, 1 + random.nextInt(rows));
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getDouble(3) : 0;
+        }
+    }
+
+    @Benchmark
+    public long count() {
+        return ExpenseManagerDB.countExpenses();
+    }
+
+    // A page of the expense table at a random scroll position
+    @Benchmark
+    public List<Expense> pageAtOffset() throws SQLException {
+        return ExpenseManagerDB.getExpensePageAt(random.nextInt(rows), PAGE_SIZE);
+    }
+
+    // The same page found from its first id, as the table does once it has seen the page before
+    @Benchmark
+    public List<Expense> pageFromId() throws SQLException {
+        return ExpenseManagerDB.getExpensePage(1 + random.nextInt(rows), PAGE_SIZE);
+    }
+
+    // One category over one quarter, through the category/date index
+    @Benchmark
+    public long categoryQuarter(Blackhole blackhole) throws SQLException, IOException {
+        LocalDate from = LocalDate.of(2018 + random.nextInt(7), 1 + 3 * random.nextInt(4), 1);
+        return ExpenseManagerDB.streamExpenses(Datasets.CATEGORIES[random.nextInt(Datasets.CATEGORIES.length)],
+                                               from, from.plusMonths(3).minusDays(1),
+                                               (id, category, amount, date) -> blackhole.consume(amount));
+    }
+
+    // The same lookup comparing the TEXT date column, which no index covers: a full scan
+    @Benchmark
+    public long categoryQuarterTextScan(Blackhole blackhole) throws SQLException {
+        LocalDate from = LocalDate.of(2018 + random.nextInt(7), 1 + 3 * random.nextInt(4), 1);
+        long matched = 0;
+        try (PooledConnection pc = ExpenseManagerDB.pool().acquire()) {
+            PreparedStatement pstmt = pc.prepare(CATEGORY_RANGE_TEXT);
+            pstmt.setString(1, from.toString());
+            pstmt.setString(2, from.plusMonths(3).minusDays(1).toString());
+            pstmt.setString(3, Datasets.CATEGORIES[random.nextInt(Datasets.CATEGORIES.length)]);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    blackhole.consume(rs.getDouble(3));
+                    matched++;
+                }
+            }
+        }
+        return matched;
+    }
+
+    // Every row through the streaming cursor the exports use
+    @Benchmark
+    public long scanAll(Blackhole blackhole) throws SQLException, IOException {
+        return ExpenseManagerDB.streamExpenses((id, category, amount, date) -> blackhole.consume(id));
+    }
+}
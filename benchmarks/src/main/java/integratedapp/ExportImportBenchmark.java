@@ -0,0 +1,129 @@
+package integratedapp;
+
+import benchmarks.Datasets;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import integratedapp.IntegratedApp.ExcelReportGenerator;
+import integratedapp.IntegratedApp.Expense;
+import integratedapp.IntegratedApp.ExpenseManagerDB;
+import integratedapp.IntegratedApp.CsvExpenseWriter;
+import integratedapp.IntegratedApp.ExportPipeline;
+import integratedapp.IntegratedApp.JSONExportImport;
+import integratedapp.IntegratedApp.ProgressListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Whole-table exports and imports of `rows` expenses: milliseconds per file. The import
+// benchmarks read a JSON file written from the same generated rows; the streaming one saves
+// them, so its table grows by `rows` per call.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ExportImportBenchmark {
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private Path dir;
+    private PrintStream console;
+    private String jsonIn;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("export-bench");
+        console = Datasets.silenceStdout();
+        Datasets.expenseDatabase(dir, "expenses.db", rows, Datasets.SEED);
+        jsonIn = dir.resolve("import.json").toString();
+        Datasets.writeExpensesJson(dir.resolve("import.json"), Datasets.expenses(rows, Datasets.SEED));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ExpenseManagerDB.shutdown();
+        System.setOut(console);
+        Datasets.deleteRecursively(dir);
+    }
+
+    private String out(String name) {
+        return dir.resolve(name).toString();
+    }
+
+    @Benchmark
+    public long exportJson() {
+        return JSONExportImport.exportExpensesToJSON(out("export.json"), false);
+    }
+
+    @Benchmark
+    public long exportJsonPretty() {
+        return JSONExportImport.exportExpensesToJSON(out("export-pretty.json"), true);
+    }
+
+    // The original export: every row loaded into a list, then written by data binding
+    @Benchmark
+    public void exportJsonFromList() throws IOException {
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(dir.resolve("export-list.json").toFile(),
+                                                                       ExpenseManagerDB.getExpenses());
+    }
+
+    // Parsed into a list with data binding; nothing is saved
+    @Benchmark
+    public List<Expense> importJsonToList() {
+        return JSONExportImport.importExpensesFromJSON(jsonIn);
+    }
+
+    // Parsed a row at a time and saved in batches
+    @Benchmark
+    public long importJsonStreaming() throws IOException, SQLException {
+        return JSONExportImport.importExpensesFromJSONStreaming(jsonIn);
+    }
+
+    // SXSSF with sampled column widths, as the menus use
+    @Benchmark
+    public long excelReport() {
+        return ExcelReportGenerator.generateExpenseReportStreaming(out("report.xlsx"));
+    }
+
+    // The original in-memory workbook with autoSizeColumn, for comparison
+    @Benchmark
+    public void excelReportInMemory() {
+        ExcelReportGenerator.generateExpenseReport(out("report-in-memory.xlsx"));
+    }
+
+    // JSON, XLSX and CSV from one scan
+    @Benchmark
+    public long exportAll() {
+        return ExportPipeline.exportAll(out("all.json"), out("all.xlsx"), out("all.csv"));
+    }
+
+    // The same three files one after another, a scan each
+    @Benchmark
+    public long exportAllThreeScans() throws SQLException, IOException {
+        JSONExportImport.exportExpensesToJSON(out("each.json"), false, ProgressListener.NONE);
+        ExcelReportGenerator.generateExpenseReportStreaming(out("each.xlsx"));
+        try (CsvExpenseWriter csv = new CsvExpenseWriter(out("each.csv"))) {
+            long written = ExpenseManagerDB.streamExpenses(csv);
+            csv.finish();
+            return written;
+        }
+    }
+}
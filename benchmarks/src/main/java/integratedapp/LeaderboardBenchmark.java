@@ -0,0 +1,148 @@
+package integratedapp;
+
+import benchmarks.Datasets;
+import integratedapp.IntegratedApp.ExpenseManagerDB;
+import integratedapp.IntegratedApp.Leaderboard;
+import integratedapp.IntegratedApp.PooledConnection;
+import integratedapp.IntegratedApp.QuizResults;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// QuizResults and its Leaderboard with `players` players, ten results each already stored.
+// Results recorded flat out (ranked at once, stored in batches), then recorded by three threads
+// while a fourth asks for the top 10 and a player's rank as a busy leaderboard page would, and
+// the same two questions answered with SQL over quiz_results as before the leaderboard. Last,
+// rebuilding the leaderboard from the table, as on startup.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeaderboardBenchmark {
+    private static final int QUESTIONS = 10;
+    private static final String TOP_SQL =
+        "SELECT player, MAX(score) AS best FROM quiz_results GROUP BY player ORDER BY best DESC LIMIT 10";
+    private static final String RANK_SQL =
+        "SELECT COUNT(*) + 1 FROM (SELECT MAX(score) AS best FROM quiz_results GROUP BY player) "
+        + "WHERE best > (SELECT MAX(score) FROM quiz_results WHERE player = ?)";
+
+    @State(Scope.Benchmark)
+    public static class Results {
+        @Param({"10000", "100000"})
+        public int players;
+
+        private Path dir;
+        private PrintStream console;
+        QuizResults results;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("leaderboard-bench");
+            console = Datasets.silenceStdout();
+            Datasets.expenseDatabase(dir, "quiz.db", 0, Datasets.SEED);
+            results = new QuizResults(ExpenseManagerDB.pool());
+            SplittableRandom random = new SplittableRandom(Datasets.SEED);
+            for (int i = 0; i < players * 10; i++) {
+                results.record("player-" + (i % players), random.nextInt(QUESTIONS + 1), QUESTIONS);
+            }
+            results.flush();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            results.close();
+            ExpenseManagerDB.shutdown();
+            System.setOut(console);
+            Datasets.deleteRecursively(dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Player {
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams params) {
+            random = new SplittableRandom(Datasets.SEED + params.getThreadIndex());
+        }
+
+        String next(Results results) {
+            return "player-" + random.nextInt(results.players);
+        }
+    }
+
+    // Waits whenever the writer is a full queue behind, so this is the rate results are stored at
+    @Benchmark
+    @Threads(4)
+    public void record(Results results, Player player) {
+        results.results.record(player.next(results), player.random.nextInt(QUESTIONS + 1), QUESTIONS);
+    }
+
+    @Benchmark
+    @Group("busy")
+    @GroupThreads(3)
+    public void busyRecord(Results results, Player player) {
+        record(results, player);
+    }
+
+    @Benchmark
+    @Group("busy")
+    @GroupThreads(1)
+    public int busyTopAndRank(Results results, Player player) {
+        Leaderboard leaderboard = results.results.leaderboard();
+        return leaderboard.top(10).size() + leaderboard.rank(player.next(results));
+    }
+
+    // The top 10 and a rank straight from quiz_results
+    @Benchmark
+    public int topAndRankSql(Results results, Player player) throws SQLException {
+        int seen = 0;
+        try (PooledConnection pc = ExpenseManagerDB.pool().acquire()) {
+            try (ResultSet rs = pc.prepare(TOP_SQL).executeQuery()) {
+                while (rs.next()) {
+                    seen += rs.getInt(2);
+                }
+            }
+            PreparedStatement pstmt = pc.prepare(RANK_SQL);
+            pstmt.setString(1, player.next(results));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? seen + rs.getInt(1) : seen;
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Leaderboard.Entry> reload(Results results) {
+        try (QuizResults reloaded = new QuizResults(ExpenseManagerDB.pool())) {
+            return reloaded.leaderboard().top(10);
+        }
+    }
+}
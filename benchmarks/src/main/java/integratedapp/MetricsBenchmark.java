@@ -0,0 +1,90 @@
+package integratedapp;
+
+import integratedapp.IntegratedApp.Metrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// The cost of recording one latency from four threads at once, and of reading its p99: a
+// Metrics.Histogram against the simple way, every sample kept in a synchronized list that is
+// sorted for percentiles. The list starts over every SAMPLES values so its heap stays bounded.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+    private static final int SAMPLES = 1_000_000;
+
+    private Metrics.Histogram histogram;
+    private List<Long> samples;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        histogram = new Metrics.Histogram();
+        samples = new ArrayList<>(SAMPLES);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < SAMPLES; i++) {
+            long value = latency(random);
+            histogram.record(value);
+            samples.add(value);
+        }
+    }
+
+    // 1 us to 1 ms
+    private static long latency(ThreadLocalRandom random) {
+        return 1_000 + random.nextLong(1_000_000);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordHistogram() {
+        histogram.record(latency(ThreadLocalRandom.current()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordList() {
+        long value = latency(ThreadLocalRandom.current());
+        synchronized (samples) {
+            if (samples.size() == SAMPLES) {
+                samples.clear();
+            }
+            samples.add(value);
+        }
+    }
+
+    @Benchmark
+    public long p99Histogram() {
+        return histogram.percentileNanos(99);
+    }
+
+    // A sorted copy, so the list can keep taking samples meanwhile
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long p99List() {
+        List<Long> sorted;
+        synchronized (samples) {
+            sorted = new ArrayList<>(samples);
+        }
+        Collections.sort(sorted);
+        return sorted.get((int) (sorted.size() * 0.99));
+    }
+}
@@ -0,0 +1,241 @@
+package integratedapp;
+
+import benchmarks.Datasets;
+import integratedapp.IntegratedApp.QuizEngine;
+import integratedapp.IntegratedApp.QuizServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Many players on one QuizServer. Whole quizzes per second (start a session, answer every
+// question), and the time to grade one answer while `openSessions` other quizzes are in
+// progress, first in process and then over HTTP. Every answer is right, and a finished quiz
+// that does not score full marks fails the run.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuizBenchmark {
+    private static final int QUESTIONS = 5;
+    private static final int HTTP_THREADS = 4;
+
+    @State(Scope.Benchmark)
+    public static class InProcess {
+        @Param({"1000", "100000"})
+        public int openSessions;
+
+        QuizServer server;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            server = newServer();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            server.close();
+        }
+    }
+
+    // A server of its own listening on a free port, with one HTTP client shared by the threads
+    @State(Scope.Benchmark)
+    public static class Http {
+        @Param({"1000", "100000"})
+        public int openSessions;
+
+        QuizServer server;
+        private PrintStream console;
+        private ExecutorService clientThreads;
+        HttpClient client;
+        URI base;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            console = Datasets.silenceStdout();
+            server = newServer();
+            server.start(0, HTTP_THREADS);
+            clientThreads = Executors.newFixedThreadPool(HTTP_THREADS);
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientThreads).build();
+            base = URI.create("http://localhost:" + server.getPort() + "/quiz");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            clientThreads.shutdown();
+            server.close();
+            System.setOut(console);
+        }
+
+        String send(HttpRequest.Builder request) throws IOException, InterruptedException {
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 300) {
+                throw new IllegalStateException(response.statusCode() + " " + response.body());
+            }
+            return response.body();
+        }
+    }
+
+    private static QuizServer newServer() {
+        return new QuizServer(new QuizEngine(QUESTIONS, 1, 10, new SplittableRandom(Datasets.SEED)));
+    }
+
+    // This thread's share of the `openSessions` quizzes in progress, opened in process (quicker to
+    // set up than over HTTP). gradeAnswer and httpAnswer answer them round-robin one question at a
+    // time, so all of them stay open; a session that finishes is replaced by a new one.
+    public abstract static class Players {
+        long[] ids;
+        String[] states;
+        int next;
+
+        void open(QuizServer server, int openSessions, ThreadParams params) {
+            int share = Math.max(1, openSessions / params.getThreadCount());
+            ids = new long[share];
+            states = new String[share];
+            for (int i = 0; i < share; i++) {
+                states[i] = server.startSession();
+                ids[i] = idOf(states[i]);
+            }
+        }
+
+        int nextSlot() {
+            int slot = next;
+            next = (next + 1) % ids.length;
+            return slot;
+        }
+
+        void set(int slot, String state, QuizServer server) {
+            if (isFinished(state)) {
+                state = server.startSession();
+                ids[slot] = idOf(state);
+            }
+            states[slot] = state;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LocalPlayers extends Players {
+        @Setup(Level.Trial)
+        public void setUp(InProcess sessions, ThreadParams params) {
+            open(sessions.server, sessions.openSessions, params);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class HttpPlayers extends Players {
+        @Setup(Level.Trial)
+        public void setUp(Http sessions, ThreadParams params) {
+            open(sessions.server, sessions.openSessions, params);
+        }
+    }
+
+    // Sessions per second: a quiz started and played to the end among the ones already open
+    @Benchmark
+    public String completeQuiz(InProcess sessions, LocalPlayers players) {
+        return playQuiz(sessions.server);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String completeQuizConcurrent(InProcess sessions, LocalPlayers players) {
+        return playQuiz(sessions.server);
+    }
+
+    private static String playQuiz(QuizServer server) {
+        String state = server.startSession();
+        long id = idOf(state);
+        while (!isFinished(state)) {
+            state = server.answer(id, solve(state));
+        }
+        return checkPerfect(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(4)
+    public String gradeAnswer(InProcess sessions, LocalPlayers players) {
+        int slot = players.nextSlot();
+        String state = sessions.server.answer(players.ids[slot], solve(players.states[slot]));
+        players.set(slot, state, sessions.server);
+        return state;
+    }
+
+    @Benchmark
+    @Threads(HTTP_THREADS)
+    public String httpCompleteQuiz(Http http, HttpPlayers players) throws IOException, InterruptedException {
+        String state = http.send(HttpRequest.newBuilder(http.base).POST(HttpRequest.BodyPublishers.noBody()));
+        long id = idOf(state);
+        while (!isFinished(state)) {
+            state = http.send(answerRequest(http, id, state));
+        }
+        return checkPerfect(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(HTTP_THREADS)
+    public String httpAnswer(Http http, HttpPlayers players) throws IOException, InterruptedException {
+        int slot = players.nextSlot();
+        String state = http.send(answerRequest(http, players.ids[slot], players.states[slot]));
+        players.set(slot, state, http.server);
+        return state;
+    }
+
+    private static HttpRequest.Builder answerRequest(Http http, long id, String state) {
+        return HttpRequest.newBuilder(URI.create(http.base + "/" + id + "/answer"))
+                          .POST(HttpRequest.BodyPublishers.ofString(String.valueOf(solve(state))));
+    }
+
+    private static String checkPerfect(String state) {
+        if (!state.contains("\"score\":" + QUESTIONS + ",")) {
+            throw new IllegalStateException("Right answers were not all graded as right: " + state);
+        }
+        return state;
+    }
+
+    static boolean isFinished(String state) {
+        return state.contains("\"finished\":true");
+    }
+
+    static long idOf(String state) {
+        return Long.parseLong(state.substring(6, state.indexOf(',')));
+    }
+
+    // The answer to the "question" in a quiz server reply, like a player who never misses
+    static int solve(String state) {
+        int from = state.indexOf("\"question\":\"") + 12;
+        String[] parts = state.substring(from, state.indexOf('"', from)).split(" ");
+        int left = Integer.parseInt(parts[0]);
+        int right = Integer.parseInt(parts[2]);
+        return switch (parts[1].charAt(0)) {
+            case '+' -> left + right;
+            case '-' -> left - right;
+            default -> left * right;
+        };
+    }
+}
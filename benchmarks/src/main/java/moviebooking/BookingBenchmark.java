@@ -0,0 +1,161 @@
+package moviebooking;
+
+import benchmarks.Datasets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Movie booking operations. In memory: a hold + confirm + cancel cycle and a seat map read on
+// the SeatReservationEngine alone, by one thread and by several fighting over the same show.
+// Through BookingService with SQLite behind it, as the app and the HTTP server run it: the same
+// cycle, each confirm and cancel committed by BookingStore, and availability reads across
+// `shows` shows, more than the AvailabilityCache holds once there are 1000 of them.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingBenchmark {
+    private static final int CACHED_SHOWS = 64;
+
+    @State(Scope.Benchmark)
+    public static class InMemory {
+        @Param({"100", "1000"})
+        public int seats;
+
+        SeatReservationEngine engine;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            engine = new SeatReservationEngine();
+            engine.register(new Movie(1, "Benchmark", seats));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Service {
+        @Param({"10", "1000"})
+        public int shows;
+
+        private Path dir;
+        private PrintStream console;
+        private BookingStore store;
+        BookingService service;
+        int seatsPerShow;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException, SQLException {
+            dir = Files.createTempDirectory("booking-bench");
+            console = Datasets.silenceStdout();
+            seatsPerShow = 100;
+            Database.connect("jdbc:sqlite:" + dir.resolve("movies.db"));
+            Database.createTables();
+            for (int id = 1; id <= shows; id++) {
+                Database.addMovie(new Movie(id, "Show " + id, seatsPerShow));
+            }
+            store = new BookingStore();
+            service = new BookingService(new AvailabilityCache(store, CACHED_SHOWS).getEngine(), Database.getMovies());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            service.close();
+            store.close();
+            System.setOut(console);
+            Datasets.deleteRecursively(dir);
+        }
+    }
+
+    // Each benchmark thread is its own user with its own random stream
+    @State(Scope.Thread)
+    public static class Caller {
+        String user;
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams params) {
+            int thread = params.getThreadIndex();
+            user = "user-" + thread;
+            random = new SplittableRandom(Datasets.SEED + thread);
+        }
+    }
+
+    @Benchmark
+    public List<Booking> holdConfirmCancel(InMemory show, Caller caller) {
+        return cycle(show, caller);
+    }
+
+    // A hold that finds its seat taken by another thread fails fast and counts as an operation
+    @Benchmark
+    @Threads(4)
+    public List<Booking> holdConfirmCancelContended(InMemory show, Caller caller) {
+        return cycle(show, caller);
+    }
+
+    private static List<Booking> cycle(InMemory show, Caller caller) {
+        int seat = caller.random.nextInt(show.seats);
+        SeatReservationEngine.Hold hold = show.engine.hold(1, caller.user, seat);
+        if (hold == null) {
+            return null;
+        }
+        List<Booking> bookings = show.engine.confirm(hold);
+        show.engine.cancel(1, seat);
+        return bookings;
+    }
+
+    @Benchmark
+    public boolean[] seatMap(InMemory show) {
+        return show.engine.getAvailability(1);
+    }
+
+    @Benchmark
+    public boolean bookAndCancel(Service service, Caller caller) {
+        return serviceCycle(service, caller);
+    }
+
+    // Concurrent confirms share BookingStore's group commits
+    @Benchmark
+    @Threads(8)
+    public boolean bookAndCancelConcurrent(Service service, Caller caller) {
+        return serviceCycle(service, caller);
+    }
+
+    // A hold that finds its seat taken, or still being cancelled, by another thread fails fast
+    private static boolean serviceCycle(Service service, Caller caller) {
+        int movieId = 1 + caller.random.nextInt(service.shows);
+        String seat = Seat.label(caller.random.nextInt(service.seatsPerShow));
+        BookingApi.HoldTicket ticket = service.service.hold(movieId, caller.user, Collections.singletonList(seat));
+        if (ticket == null) {
+            return false;
+        }
+        List<Booking> bookings = service.service.confirm(ticket.getId());
+        return bookings != null && service.service.cancel(movieId, seat);
+    }
+
+    @Benchmark
+    public BookingApi.Availability availability(Service service, Caller caller) {
+        return service.service.getAvailability(1 + caller.random.nextInt(service.shows));
+    }
+}
@@ -0,0 +1,153 @@
+package moviebooking;
+
+import benchmarks.Datasets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// BookingEventLog: events appended per second under each sync mode, and how long a restart
+// takes to rebuild the sold seats from a log of `events` events, replaying all of it or
+// loading the snapshot taken at 99% and replaying the rest. The events mimic booking traffic:
+// a 2-seat hold, then a confirm (or 1 time in 10 a release), and every 50th booking cancelled.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingEventLogBenchmark {
+    private static final int SHOWS = 1000;
+    private static final int SEATS_PER_SHOW = 200;
+
+    // A new log every iteration, so the file never grows past one iteration's events
+    @State(Scope.Benchmark)
+    public static class Appender {
+        @Param({"NONE", "BATCH", "EVERY"})
+        public BookingEventLog.SyncMode mode;
+
+        private Path dir;
+        BookingEventLog log;
+        Traffic traffic;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("event-log-bench");
+            log = new BookingEventLog(dir.resolve("events.log"), mode, 1000, 100);
+            traffic = new Traffic();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            log.close();
+            Datasets.deleteRecursively(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Recorded {
+        @Param({"1000000", "10000000"})
+        public int events;
+
+        private Path dir;
+        Path file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("event-log-bench");
+            file = dir.resolve("events.log");
+            try (BookingEventLog log = new BookingEventLog(file, BookingEventLog.SyncMode.NONE, 1, 1000)) {
+                Traffic traffic = new Traffic();
+                int tail = events / 100;
+                for (int i = 0; i < events - tail; i++) {
+                    traffic.append(log);
+                }
+                log.checkpoint();
+                for (int i = 0; i < tail; i++) {
+                    traffic.append(log);
+                }
+                log.sync();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Datasets.deleteRecursively(dir);
+        }
+    }
+
+    // The next event of the generated traffic, one append() at a time
+    static final class Traffic {
+        private int booking;
+        private int step;
+
+        long append(BookingEventLog log) {
+            int movieId = 1 + booking % SHOWS;
+            int seat = (booking / SHOWS * 2) % SEATS_PER_SHOW;
+            byte outcome = booking % 10 == 9 ? BookingEventLog.RELEASE : BookingEventLog.CONFIRM;
+            boolean cancelled = booking % 50 == 0 && outcome == BookingEventLog.CONFIRM;
+            long sequence;
+            if (step < 4) {
+                sequence = log.append(step < 2 ? BookingEventLog.HOLD : outcome, movieId, seat + step % 2);
+            } else {
+                sequence = log.append(BookingEventLog.CANCEL, movieId, seat);
+            }
+            if (++step == (cancelled ? 5 : 4)) {
+                step = 0;
+                booking++;
+            }
+            return sequence;
+        }
+    }
+
+    @Benchmark
+    public long append(Appender appender) {
+        return appender.traffic.append(appender.log);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<Integer, BitSet> recoverFromSnapshot(Recorded recorded) throws IOException {
+        try (BookingEventLog log = new BookingEventLog(recorded.file, BookingEventLog.SyncMode.NONE, 1, 1000)) {
+            return log.recover();
+        }
+    }
+
+    // What recovery costs with no snapshot: every event replayed
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<Integer, BitSet> recoverFullReplay(Recorded recorded) throws IOException {
+        Map<Integer, BitSet> booked = new HashMap<>();
+        try (BookingEventLog log = new BookingEventLog(recorded.file, BookingEventLog.SyncMode.NONE, 1, 1000)) {
+            log.replay(1, (sequence, time, type, movieId, seat) -> {
+                if (type == BookingEventLog.CONFIRM) {
+                    booked.computeIfAbsent(movieId, id -> new BitSet()).set(seat);
+                } else if (type == BookingEventLog.CANCEL) {
+                    BitSet seats = booked.get(movieId);
+                    if (seats != null) {
+                        seats.clear(seat);
+                    }
+                }
+            });
+        }
+        return booked;
+    }
+}
@@ -0,0 +1,162 @@
+package moviebooking;
+
+import benchmarks.Datasets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A booking rush: 8 threads each confirming 2-seat bookings and waiting for them to be saved,
+// in bookings per second. BookingStore commits whatever is queued as one group; before it, the
+// threads took turns on one shared connection with an autocommitted insert per seat. Every
+// booking takes two new seats, so nothing conflicts. Then seat maps of SHOWS shows, most
+// requests on the 10 hottest: read from SQLite each time, or from AvailabilityCache (room for
+// CACHED_SHOWS of them).
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingStoreBenchmark {
+    private static final int SHOWS = 100;
+    private static final int SEATS_PER_SHOW = 200;
+    private static final int CACHED_SHOWS = 32;
+    private static final String INSERT_SQL =
+        "INSERT INTO bookings (movie_id, seat_number, user, booked_at) VALUES (?, ?, ?, ?)";
+
+    @State(Scope.Benchmark)
+    public static class Stores {
+        private Path dir;
+        private PrintStream console;
+        BookingStore store;
+        SeatReservationEngine cache;
+        Connection shared;
+        // Next unused seat of the rush show, which has no seat limit in the database
+        final AtomicInteger nextSeat = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException, SQLException {
+            dir = Files.createTempDirectory("booking-store-bench");
+            console = Datasets.silenceStdout();
+            Database.connect("jdbc:sqlite:" + dir.resolve("movies.db"));
+            Database.createTables();
+            for (int id = 1; id <= SHOWS; id++) {
+                Database.addMovie(new Movie(id, "Show " + id, SEATS_PER_SHOW));
+            }
+            store = new BookingStore();
+            // Some seats of every show already sold, for the seat map reads
+            SplittableRandom random = new SplittableRandom(Datasets.SEED);
+            List<Booking> sold = new ArrayList<>();
+            for (int id = 2; id <= SHOWS; id++) {
+                for (int seat = 0; seat < SEATS_PER_SHOW; seat++) {
+                    if (random.nextInt(3) == 0) {
+                        sold.add(new Booking(0, id, Seat.label(seat), "early-bird"));
+                    }
+                }
+            }
+            store.save(sold).join();
+            cache = new AvailabilityCache(store, CACHED_SHOWS).getEngine();
+
+            shared = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("shared.db"));
+            try (Statement stmt = shared.createStatement()) {
+                stmt.execute("CREATE TABLE bookings (id INTEGER PRIMARY KEY, movie_id INTEGER NOT NULL, "
+                             + "seat_number TEXT NOT NULL, user TEXT NOT NULL, booked_at INTEGER NOT NULL, "
+                             + "UNIQUE (movie_id, seat_number))");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException, SQLException {
+            shared.close();
+            store.close();
+            System.setOut(console);
+            Datasets.deleteRecursively(dir);
+        }
+
+        List<Booking> nextBooking(String user) {
+            int seat = nextSeat.getAndAdd(2);
+            List<Booking> bookings = new ArrayList<>(2);
+            bookings.add(new Booking(0, 1, Seat.label(seat), user));
+            bookings.add(new Booking(0, 1, Seat.label(seat + 1), user));
+            return bookings;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+        String user;
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams params) {
+            user = "user-" + params.getThreadIndex();
+            random = new SplittableRandom(Datasets.SEED + params.getThreadIndex());
+        }
+
+        int show() {
+            return random.nextInt(10) < 9 ? 2 + random.nextInt(10) : 2 + random.nextInt(SHOWS - 1);
+        }
+    }
+
+    // Each caller waits for its booking to commit, as a request handler does
+    @Benchmark
+    @Threads(8)
+    public List<Booking> groupCommit(Stores stores, Caller caller) {
+        return stores.store.save(stores.nextBooking(caller.user)).join();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int sharedConnection(Stores stores, Caller caller) throws SQLException {
+        int inserted = 0;
+        for (Booking booking : stores.nextBooking(caller.user)) {
+            synchronized (stores.shared) {
+                try (PreparedStatement pstmt = stores.shared.prepareStatement(INSERT_SQL)) {
+                    pstmt.setInt(1, booking.getMovieId());
+                    pstmt.setString(2, booking.getSeatNumber());
+                    pstmt.setString(3, booking.getUser());
+                    pstmt.setLong(4, System.currentTimeMillis());
+                    inserted += pstmt.executeUpdate();
+                }
+            }
+        }
+        return inserted;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int[] seatMapFromDatabase(Stores stores, Caller caller) throws SQLException {
+        return stores.store.getBookedSeats(caller.show());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean[] seatMapFromCache(Stores stores, Caller caller) {
+        return stores.cache.getAvailability(caller.show());
+    }
+}